@@ -5,6 +5,7 @@ plugins {
     id("org.springframework.boot") version "2.7.1"
     id("io.spring.dependency-management") version "1.0.12.RELEASE"
     id("org.springframework.experimental.aot") version "0.12.1"
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = "com.acme"
@@ -31,6 +32,10 @@ repositories {
 dependencies {
     implementation("org.springframework.boot:spring-boot-starter-webflux")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    // step latencies & outcomes exported in prometheus text format
+    implementation("io.micrometer:micrometer-registry-prometheus")
+    // checkpoint/restore api. No-op unless the JDK supports CRaC
+    implementation("org.crac:crac:0.1.3")
     // to specify native configuration in a dedicated configuration class
     compileOnly("org.springframework.experimental:spring-aot:0.12.1")
     // disabled bcoz of issues with graalvm native image. log4j2 has major issues with native image. logback has conditional support. So lets disable log4j2 for now
@@ -38,13 +43,69 @@ dependencies {
 //    implementation("org.springframework.boot:spring-boot-starter-log4j2")
 //    implementation("com.lmax:disruptor:3.4.4")
     annotationProcessor("org.projectlombok:lombok")
+    // generates reflection free json codecs for records annotated with @GenerateJsonCodec
+    annotationProcessor(project(":codec-processor"))
     testImplementation("org.springframework.boot:spring-boot-starter-test")
+    // StepVerifier & virtual time
+    testImplementation("io.projectreactor:reactor-test")
+}
+
+// stub portals & load harness. Kept out of the application jar
+val harness: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += output + compileClasspath + sourceSets.main.get().runtimeClasspath
+}
+configurations[harness.annotationProcessorConfigurationName].extendsFrom(configurations.annotationProcessor.get())
+
+// `./gradlew harness --args="--harness.accounts=200 --harness.error-rate=0.02"`. See LoadHarness for all options
+tasks.register<JavaExec>("harness") {
+    description = "Refreshes simulated accounts against local stub portals & reports throughput, latency, heap & connection usage"
+    group = "verification"
+    classpath = harness.runtimeClasspath
+    mainClass.set("com.acme.resume.harness.LoadHarness")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
 }
 
+// benchmarks live under src/jmh. `./gradlew jmh -PjmhIncludes=<regex>` to run a subset
+jmh {
+    jmhVersion.set("1.35")
+    // allocation rate per operation is as interesting as the time taken
+    profilers.add("gc")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    resultFormat.set("JSON")
+    (findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
+
+// AppCDS archive of every class loaded while booting, created from a training run (see FastStart). Classes cant be archived from inside the fat jar,
+// so the archive & the launcher next to it use a plain classpath of jars. Both are tied to these jars & the JDK running gradle. Recreate after upgrading either
+val fastStartDir = layout.buildDirectory.dir("fast-start")
+val fastStartLibs by tasks.registering(Sync::class) {
+    from(configurations.runtimeClasspath)
+    from(tasks.jar)
+    into(fastStartDir.map { it.dir("lib") })
+}
+tasks.register<Exec>("cdsArchive") {
+    description = "Creates AppCDS archive from a training run along with `build/fast-start/resume-refresher` launcher that uses it"
+    group = "build"
+    dependsOn(fastStartLibs)
+    doFirst {
+        val dir = fastStartDir.get().asFile
+        val java = File(System.getProperty("java.home"), "bin/java").absolutePath
+        val classpath = dir.resolve("lib").listFiles()!!.sorted().joinToString(File.pathSeparator) { it.absolutePath }
+        val archive = dir.resolve("app.jsa").absolutePath
+        val mainClass = "com.acme.resume.refresh.ResumeRefresherApplication"
+        commandLine(java, "-XX:ArchiveClassesAtExit=$archive", "-cp", classpath, mainClass, "--app.fast-start.mode=training")
+        val launcher = dir.resolve("resume-refresher")
+        launcher.writeText("#!/bin/sh\n# generated by ./gradlew cdsArchive\nexec \"$java\" \$JAVA_OPTS -XX:SharedArchiveFile=\"$archive\" -cp \"$classpath\" $mainClass \"\$@\"\n")
+        launcher.setExecutable(true)
+    }
+}
+
 tasks.withType<BootBuildImage> {
     builder = "paketobuildpacks/builder:tiny"
     environment = mapOf("BP_NATIVE_IMAGE" to "true")
@@ -0,0 +1,9 @@
+plugins {
+    java
+}
+
+group = "com.acme"
+version = "0.0.1-SNAPSHOT"
+java.sourceCompatibility = JavaVersion.VERSION_17
+
+// runs inside javac, so it only depends on the jdk. Generated sources depend on jackson-core & the application's `codec` package
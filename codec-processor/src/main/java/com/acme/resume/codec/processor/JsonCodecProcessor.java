@@ -0,0 +1,295 @@
+package com.acme.resume.codec.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.acme.resume.codec.processor.JsonCodecProcessor.GENERATE_JSON_CODEC;
+
+/**
+ * Generates a `<record>JsonCodec` (reading/writing the record using jackson's streaming api) next to every record annotated with `@GenerateJsonCodec` & a `GeneratedJsonCodecs` listing all of them in the package of the annotation.
+ * Since generated code calls accessors & canonical constructors directly, these records need no reflection at runtime (& hence no native image hints)
+ */
+@SupportedAnnotationTypes(GENERATE_JSON_CODEC)
+public class JsonCodecProcessor extends AbstractProcessor {
+  static final String GENERATE_JSON_CODEC = "com.acme.resume.refresh.codec.GenerateJsonCodec";
+  private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+  private static final String CODEC_SUFFIX = "JsonCodec";
+  private static final String REGISTRY_NAME = "GeneratedJsonCodecs";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      final var records = new ArrayList<TypeElement>();
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.RECORD) {
+          error(element, "@GenerateJsonCodec is only supported on records");
+        } else if (!((TypeElement) element).getTypeParameters().isEmpty()) {
+          error(element, "@GenerateJsonCodec is not supported on generic records");
+        } else {
+          records.add((TypeElement) element);
+        }
+      }
+      records.sort(Comparator.comparing(record -> record.getQualifiedName().toString()));
+      for (TypeElement record : records) {
+        generateCodec(record);
+      }
+      generateRegistry((PackageElement) annotation.getEnclosingElement(), annotation, records);
+    }
+    return true;
+  }
+
+  private void generateCodec(TypeElement record) {
+    final var properties = new ArrayList<Property>();
+    for (RecordComponentElement component : record.getRecordComponents()) {
+      final var valueType = valueTypeOf(component.asType());
+      if (valueType.isEmpty()) {
+        error(component, "Unsupported type " + component.asType() + " of " + record.getSimpleName() + "." + component.getSimpleName()
+            + ". Supported types are String, int, long, double, boolean, records annotated with @GenerateJsonCodec & Lists of String/such records");
+        return;
+      }
+      properties.add(new Property(component.getSimpleName().toString(), jsonNameOf(record, component), component.asType(), valueType.get()));
+    }
+
+    final var packageName = packageNameOf(record);
+    final var recordName = binaryNameWithinPackage(record);
+    final var codecName = codecNameOf(record);
+    try (final var out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualified(packageName, codecName), record).openWriter())) {
+      out.println("package " + packageName + ";");
+      out.println();
+      out.println("import com.acme.resume.refresh.codec.JsonCodec;");
+      out.println("import com.acme.resume.refresh.codec.JsonValues;");
+      out.println("import com.fasterxml.jackson.core.JsonGenerator;");
+      out.println("import com.fasterxml.jackson.core.JsonParser;");
+      out.println("import com.fasterxml.jackson.core.JsonToken;");
+      out.println("import java.io.IOException;");
+      out.println("import javax.annotation.processing.Generated;");
+      out.println();
+      out.println("@Generated(\"" + getClass().getName() + "\")");
+      out.println("public final class " + codecName + " implements JsonCodec<" + recordName + "> {");
+      out.println("  public static final " + codecName + " INSTANCE = new " + codecName + "();");
+      out.println();
+      out.println("  private " + codecName + "() {");
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  public Class<" + recordName + "> type() {");
+      out.println("    return " + recordName + ".class;");
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  public " + recordName + " read(JsonParser parser) throws IOException {");
+      out.println("    JsonValues.expectStartObject(parser, " + recordName + ".class);");
+      for (Property property : properties) {
+        out.println("    " + property.type() + " " + property.local() + " = " + property.valueType().defaultValue() + ";");
+      }
+      out.println("    while (parser.nextToken() == JsonToken.FIELD_NAME) {");
+      out.println("      final var field = parser.getCurrentName();");
+      out.println("      parser.nextToken();");
+      out.println("      switch (field) {");
+      for (Property property : properties) {
+        out.println("        case \"" + escape(property.jsonName()) + "\" -> " + property.local() + " = " + property.valueType().read("parser") + ";");
+      }
+      out.println("        default -> parser.skipChildren();");
+      out.println("      }");
+      out.println("    }");
+      out.println("    return new " + recordName + "(" + String.join(", ", properties.stream().map(Property::local).toList()) + ");");
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  public void write(JsonGenerator generator, " + recordName + " value) throws IOException {");
+      out.println("    generator.writeStartObject();");
+      for (Property property : properties) {
+        out.println("    generator.writeFieldName(\"" + escape(property.jsonName()) + "\");");
+        out.println("    " + property.valueType().write("generator", "value." + property.name() + "()") + ";");
+      }
+      out.println("    generator.writeEndObject();");
+      out.println("  }");
+      out.println("}");
+    } catch (IOException e) {
+      error(record, "Could not generate " + codecName + ": " + e.getMessage());
+    }
+  }
+
+  private void generateRegistry(PackageElement annotationPackage, TypeElement annotation, List<TypeElement> records) {
+    if (records.isEmpty()) {
+      return;
+    }
+    final var packageName = annotationPackage.getQualifiedName().toString();
+    final var originatingElements = Stream.concat(Stream.of(annotation), records.stream()).toArray(Element[]::new);
+    try (final var out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualified(packageName, REGISTRY_NAME), originatingElements).openWriter())) {
+      out.println("package " + packageName + ";");
+      out.println();
+      out.println("import java.util.List;");
+      out.println("import javax.annotation.processing.Generated;");
+      out.println();
+      out.println("@Generated(\"" + getClass().getName() + "\")");
+      out.println("final class " + REGISTRY_NAME + " {");
+      out.println("  static final List<JsonCodec<?>> ALL = List.of(");
+      for (int i = 0; i < records.size(); i++) {
+        final var record = records.get(i);
+        out.println("      " + qualified(packageNameOf(record), codecNameOf(record)) + ".INSTANCE" + (i < records.size() - 1 ? "," : ""));
+      }
+      out.println("  );");
+      out.println();
+      out.println("  private " + REGISTRY_NAME + "() {");
+      out.println("  }");
+      out.println("}");
+    } catch (IOException e) {
+      error(annotation, "Could not generate " + REGISTRY_NAME + ": " + e.getMessage());
+    }
+  }
+
+  private Optional<ValueType> valueTypeOf(TypeMirror type) {
+    return switch (type.getKind()) {
+      case INT -> Optional.of(ValueType.scalar("Int", "0"));
+      case LONG -> Optional.of(ValueType.scalar("Long", "0L"));
+      case DOUBLE -> Optional.of(ValueType.scalar("Double", "0d"));
+      case BOOLEAN -> Optional.of(ValueType.scalar("Boolean", "false"));
+      case DECLARED -> declaredValueTypeOf((DeclaredType) type);
+      default -> Optional.empty();
+    };
+  }
+
+  private Optional<ValueType> declaredValueTypeOf(DeclaredType type) {
+    final var element = (TypeElement) type.asElement();
+    final var name = element.getQualifiedName().toString();
+    if (name.equals(String.class.getName())) {
+      return Optional.of(ValueType.scalar("String", "null"));
+    }
+    if (isAnnotatedRecord(element)) {
+      final var codec = qualified(packageNameOf(element), codecNameOf(element)) + ".INSTANCE";
+      return Optional.of(new ValueType(
+          parser -> "JsonValues.readObject(" + parser + ", " + codec + ")",
+          (generator, value) -> "JsonValues.writeObject(" + generator + ", " + value + ", " + codec + ")",
+          "null"));
+    }
+    if (name.equals(List.class.getName()) && type.getTypeArguments().size() == 1 && type.getTypeArguments().get(0).getKind() == TypeKind.DECLARED) {
+      return declaredValueTypeOf((DeclaredType) type.getTypeArguments().get(0)).map(elementType -> new ValueType(
+          parser -> "JsonValues.readList(" + parser + ", elementParser -> " + elementType.read("elementParser") + ")",
+          (generator, value) -> "JsonValues.writeList(" + generator + ", " + value + ", (elementGenerator, element) -> " + elementType.write("elementGenerator", "element") + ")",
+          "null"));
+    }
+    return Optional.empty();
+  }
+
+  private static boolean isAnnotatedRecord(TypeElement element) {
+    return element.getKind() == ElementKind.RECORD && annotation(element, GENERATE_JSON_CODEC).isPresent();
+  }
+
+  /**
+   * `@JsonProperty` on a record component ends up on the field, accessor & canonical constructor parameter, but not necessarily on the component itself (it does not target record components)
+   */
+  private static String jsonNameOf(TypeElement record, RecordComponentElement component) {
+    final var name = component.getSimpleName().toString();
+    final var field = record.getEnclosedElements().stream()
+        .filter(enclosed -> enclosed.getKind() == ElementKind.FIELD && enclosed.getSimpleName().contentEquals(name))
+        .findFirst();
+    return Stream.of(Optional.<Element>of(component), Optional.ofNullable(component.getAccessor()), field)
+        .flatMap(Optional::stream)
+        .map(element -> annotation(element, JSON_PROPERTY))
+        .flatMap(Optional::stream)
+        .flatMap(jsonProperty -> jsonProperty.getElementValues().entrySet().stream())
+        .filter(entry -> entry.getKey().getSimpleName().contentEquals("value"))
+        .map(entry -> (String) entry.getValue().getValue())
+        .filter(value -> !value.isEmpty())
+        .findFirst()
+        .orElse(name);
+  }
+
+  private static Optional<? extends AnnotationMirror> annotation(Element element, String annotationName) {
+    return element.getAnnotationMirrors().stream()
+        .filter(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName))
+        .findFirst();
+  }
+
+  private String packageNameOf(TypeElement element) {
+    return processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+  }
+
+  /**
+   * `Outer.Inner` for nested records
+   */
+  private String binaryNameWithinPackage(TypeElement element) {
+    final var packageName = packageNameOf(element);
+    final var qualifiedName = element.getQualifiedName().toString();
+    return packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1);
+  }
+
+  private String codecNameOf(TypeElement element) {
+    return binaryNameWithinPackage(element).replace('.', '_') + CODEC_SUFFIX;
+  }
+
+  private static String qualified(String packageName, String simpleName) {
+    return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private void error(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+  }
+
+  private record Property(String name, String jsonName, TypeMirror type, ValueType valueType) {
+    // prefixed so that components named `parser`, `field` etc dont clash with the locals of generated code
+    String local() {
+      return "_" + name;
+    }
+  }
+
+  /**
+   * How a value of a given type is read/written by generated code
+   */
+  private record ValueType(Reader reader, Writer writer, String defaultValue) {
+    static ValueType scalar(String kind, String defaultValue) {
+      return new ValueType(
+          parser -> "JsonValues.read" + kind + "(" + parser + ")",
+          (generator, value) -> generator + ".write" + (kind.equals("String") ? "String" : kind.equals("Boolean") ? "Boolean" : "Number") + "(" + value + ")",
+          defaultValue);
+    }
+
+    String read(String parser) {
+      return reader.expression(parser);
+    }
+
+    String write(String generator, String value) {
+      return writer.statement(generator, value);
+    }
+  }
+
+  @FunctionalInterface
+  private interface Reader {
+    String expression(String parser);
+  }
+
+  @FunctionalInterface
+  private interface Writer {
+    String statement(String generator, String value);
+  }
+}
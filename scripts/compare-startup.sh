@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Compares time taken to boot the application till its ready to refresh (i.e. everything but the refresh itself) across launch modes, with both the
+# annotation (component scanning & auto-configuration) & functional (--app.fast-start.launcher=functional) launchers
+#
+# Usage: ./gradlew bootJar cdsArchive && scripts/compare-startup.sh [runs]
+# CRaC restore is measured only when JAVA_CRAC_HOME points to a CRaC enabled JDK
+set -euo pipefail
+
+runs=${1:-5}
+jar=$(ls build/libs/resume-refresher-*.jar | grep -v plain | head -n 1)
+
+measure() {
+  local label=$1
+  shift
+  local times=()
+  for _ in $(seq "$runs"); do
+    local started_at
+    started_at=$(date +%s%N)
+    "$@" >/dev/null 2>&1
+    times+=($(( ($(date +%s%N) - started_at) / 1000000 )))
+  done
+  local sorted
+  sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+  echo "$label: median ${sorted[$((runs / 2))]}ms (all runs: ${times[*]})"
+}
+
+functional=--app.fast-start.launcher=functional
+
+measure "fat jar" java -jar "$jar" --app.fast-start.mode=training
+measure "fat jar + functional launcher" java -jar "$jar" --app.fast-start.mode=training $functional
+JAVA_OPTS=-Xshare:off measure "plain classpath" build/fast-start/resume-refresher --app.fast-start.mode=training
+JAVA_OPTS=-Xshare:off measure "plain classpath + functional launcher" build/fast-start/resume-refresher --app.fast-start.mode=training $functional
+measure "plain classpath + appcds" build/fast-start/resume-refresher --app.fast-start.mode=training
+# archive is created from a training run of the annotation launcher, which loads a superset of the classes functional launcher needs
+measure "plain classpath + appcds + functional launcher" build/fast-start/resume-refresher --app.fast-start.mode=training $functional
+
+if [ -n "${JAVA_CRAC_HOME:-}" ]; then
+  rm -rf build/crac
+  # checkpointing process is killed once the checkpoint is written
+  "$JAVA_CRAC_HOME/bin/java" -XX:CRaCCheckpointTo=build/crac -jar "$jar" --app.fast-start.mode=checkpoint >/dev/null 2>&1 || true
+  # configuration after restore comes from the environment. Lets mirror what training runs boot with
+  export APP_FAST_START_EXIT_AFTER_STARTUP=true APP_RESUME_PATH=training.pdf APP_RESUME_FILENAME=training.pdf \
+    APP_NAUKRI_USERNAME=training APP_NAUKRI_PASSWORD=training APP_MONSTER_USERNAME=training APP_MONSTER_PASSWORD=training \
+    APP_INSTAHYRE_USERNAME=training APP_INSTAHYRE_PASSWORD=training APP_SESSIONCACHE_SECRET= APP_ASSETCACHE_FILE= APP_JOURNAL_FILE=
+  measure "crac restore" "$JAVA_CRAC_HOME/bin/java" -XX:CRaCRestoreFrom=build/crac
+fi
@@ -5,3 +5,5 @@ pluginManagement {
     }
 }
 rootProject.name = "resume-refresher"
+// generates reflection free json codecs for `exchange` records at compile time
+include("codec-processor")
@@ -0,0 +1,36 @@
+package com.acme.resume.harness;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Latency & failures added to every stub endpoint
+ *
+ * @param latency added before each response
+ * @param jitter random extra latency upto this much
+ * @param errorRate fraction (0 to 1) of requests answered with `503 Service Unavailable`, which refreshers treat as transient & retry
+ */
+public record FaultInjection(Duration latency, Duration jitter, double errorRate) {
+  public BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> apply(BiFunction<HttpServerRequest, HttpServerResponse, Publisher<Void>> handler) {
+    return (request, response) -> Mono.delay(delay())
+        .then(Mono.defer(() -> {
+          if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            // lets read the request fully (uploads included), as a real server would before failing
+            return request.receive().then(response.status(SERVICE_UNAVAILABLE).send().then());
+          }
+          return Mono.from(handler.apply(request, response));
+        }));
+  }
+
+  private Duration delay() {
+    return jitter.isZero() ? latency : latency.plusMillis(ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1));
+  }
+}
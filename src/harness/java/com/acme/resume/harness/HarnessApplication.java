@@ -0,0 +1,16 @@
+package com.acme.resume.harness;
+
+import com.acme.resume.refresh.ResumeRefresherApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+
+/**
+ * Same beans as {@link ResumeRefresherApplication}, minus its runner that refreshes on startup. Harness drives the refreshes itself
+ */
+@SpringBootConfiguration(proxyBeanMethods = false)
+@EnableAutoConfiguration
+@ComponentScan(basePackageClasses = ResumeRefresherApplication.class, excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ResumeRefresherApplication.class))
+class HarnessApplication {
+}
@@ -0,0 +1,49 @@
+package com.acme.resume.harness;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Samples used heap while a run is in progress, so that we know the peak rather than whatever is left at the end. Also counts collections that happened meanwhile
+ */
+final class HeapSampler {
+  private static final long SAMPLE_INTERVAL_MILLIS = 20;
+
+  private final AtomicLong peakUsedBytes = new AtomicLong();
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    final var thread = new Thread(runnable, "heap-sampler");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private final long gcCountAtStart = gcCount();
+  private final long gcMillisAtStart = gcMillis();
+  private final long usedBytesAtStart = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+  HeapSampler() {
+    executor.scheduleAtFixedRate(() -> peakUsedBytes.accumulateAndGet(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(), Math::max), 0, SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param inFlightAccounts accounts refreshed at the same time during the run. Growth of peak heap over heap at start is split across them, so that engines (or settings) can be compared by memory per in-flight account
+   * @return single line describing peak heap usage & collections since this sampler was created
+   */
+  String stop(int inFlightAccounts) {
+    executor.shutdownNow();
+    final var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    final var growthBytes = Math.max(0, peakUsedBytes.get() - usedBytesAtStart);
+    return String.format("peak %dMB used of %dMB committed (max %dMB), %dKB per in-flight account (%d in flight); %d collections taking %dms", peakUsedBytes.get() >> 20, heap.getCommitted() >> 20,
+        heap.getMax() >> 20, (growthBytes / Math.max(1, inFlightAccounts)) >> 10, inFlightAccounts, gcCount() - gcCountAtStart, gcMillis() - gcMillisAtStart);
+  }
+
+  private static long gcCount() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+  }
+
+  private static long gcMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+  }
+}
@@ -0,0 +1,57 @@
+package com.acme.resume.harness;
+
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.LOCATION;
+import static io.netty.handler.codec.http.HttpHeaderNames.SET_COOKIE;
+import static io.netty.handler.codec.http.HttpResponseStatus.FORBIDDEN;
+import static io.netty.handler.codec.http.HttpResponseStatus.FOUND;
+
+/**
+ * Emulates instahyre's login (session & csrf cookies), profile page carrying `candidateId = '...'` & candidate/resume apis. Profile page redirects to login without a session, just like the real one
+ */
+final class InstahyreStub {
+  private static final int PROFILE_PAGE_SIZE = 128 * 1024;
+
+  private InstahyreStub() {
+  }
+
+  static List<StubServer> start(FaultInjection faults) {
+    return List.of(new StubServer("www.instahyre.com", routes(faults)));
+  }
+
+  private static Consumer<HttpServerRoutes> routes(FaultInjection faults) {
+    return routes -> routes
+        .post("/api/v1/user_login", faults.apply((request, response) -> Stubs.json(request, response
+            .addHeader(SET_COOKIE, "csrftoken=" + Stubs.token() + "; Max-Age=31449600; Path=/")
+            .addHeader(SET_COOKIE, "sessionid=" + Stubs.token() + "; Max-Age=1209600; Path=/; HttpOnly"), "{\"success\":true}")))
+        .get("/candidate/profile/", faults.apply((request, response) -> {
+          final var sessionId = Stubs.cookie(request, "sessionid");
+          if (sessionId == null) {
+            return request.receive().then(response.status(FOUND).header(LOCATION, "/login/").send().then());
+          }
+          // candidateId sits in an inline script near the top of the page
+          return Stubs.html(request, response, Stubs.page(PROFILE_PAGE_SIZE, 8 * 1024, "<script>var candidateId = '" + Stubs.idOf(sessionId) + "', theme = 'light';</script>\n"));
+        }))
+        .get("/api/v1/candidate/{candidateId}", faults.apply((request, response) -> {
+          if (Stubs.cookie(request, "sessionid") == null) {
+            return Stubs.unauthorized(request, response);
+          }
+          final var candidateId = Long.parseLong(request.param("candidateId"));
+          return Stubs.json(request, response, "{\"id\":" + candidateId + ",\"resume\":{\"id\":" + (candidateId * 7) + ",\"title\":\"resume.pdf\"},\"skills\":[\"java\",\"reactor\"]}");
+        }))
+        .put("/api/v1/resume/{resumeId}", faults.apply((request, response) -> {
+          if (Stubs.cookie(request, "sessionid") == null) {
+            return Stubs.unauthorized(request, response);
+          }
+          final var csrfToken = Stubs.cookie(request, "csrftoken");
+          if (csrfToken == null || !csrfToken.equals(request.requestHeaders().get("x-csrftoken"))) {
+            return request.receive().then(response.status(FORBIDDEN).send().then());
+          }
+          return Stubs.json(request, response, "{\"id\":" + request.param("resumeId") + "}");
+        }));
+  }
+}
@@ -0,0 +1,84 @@
+package com.acme.resume.harness;
+
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.resilience.FailureKind;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Exact latency of every refresh of a single run, per portal. Unlike the timers in the metrics registry, percentiles computed from these are not approximated or decayed over time
+ */
+final class LatencyRecorder {
+  private final ConcurrentMap<String, ConcurrentLinkedQueue<Long>> portalToLatencyNanos = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, ConcurrentMap<FailureKind, Integer>> portalToFailures = new ConcurrentHashMap<>();
+
+  ResumeRefresher timed(ResumeRefresher refresher) {
+    return new ResumeRefresher() {
+      @Override
+      public String portal() {
+        return refresher.portal();
+      }
+
+      @Override
+      public Mono<Void> refresh() {
+        return Mono.defer(() -> {
+          final var startedAt = System.nanoTime();
+          return refresher.refresh()
+              .doOnSuccess(__ -> portalToLatencyNanos.computeIfAbsent(refresher.portal(), ___ -> new ConcurrentLinkedQueue<>()).add(System.nanoTime() - startedAt))
+              .doOnError(e -> portalToFailures.computeIfAbsent(refresher.portal(), __ -> new ConcurrentHashMap<>()).merge(FailureKind.of(e), 1, Integer::sum));
+        });
+      }
+    };
+  }
+
+  /**
+   * @return lines describing successes, latency percentiles & failures of each portal
+   */
+  List<String> summary() {
+    final var portals = new TreeSet<>(portalToLatencyNanos.keySet());
+    portals.addAll(portalToFailures.keySet());
+    final var lines = new ArrayList<String>();
+    for (String portal : portals) {
+      final var latencies = new ArrayList<>(portalToLatencyNanos.getOrDefault(portal, new ConcurrentLinkedQueue<>()));
+      Collections.sort(latencies);
+      final Map<FailureKind, Integer> failures = portalToFailures.getOrDefault(portal, new ConcurrentHashMap<>());
+      final var line = new StringBuilder(portal).append(": ").append(latencies.size()).append(" succeeded");
+      if (!latencies.isEmpty()) {
+        line.append(" (p50 ").append(millisOf(percentile(latencies, 0.5)))
+            .append(", p90 ").append(millisOf(percentile(latencies, 0.9)))
+            .append(", p99 ").append(millisOf(percentile(latencies, 0.99)))
+            .append(", max ").append(millisOf(latencies.get(latencies.size() - 1))).append(')');
+      }
+      line.append(", ").append(failures.values().stream().mapToInt(Integer::intValue).sum()).append(" failed");
+      if (!failures.isEmpty()) {
+        line.append(' ').append(new TreeMap<>(failures));
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  int refreshes() {
+    return portalToLatencyNanos.values().stream().mapToInt(ConcurrentLinkedQueue::size).sum()
+        + portalToFailures.values().stream().flatMap(failures -> failures.values().stream()).mapToInt(Integer::intValue).sum();
+  }
+
+  private static long percentile(List<Long> sortedLatencies, double percentile) {
+    final var index = (int) Math.ceil(percentile * sortedLatencies.size()) - 1;
+    return sortedLatencies.get(Math.max(0, Math.min(index, sortedLatencies.size() - 1)));
+  }
+
+  private static String millisOf(long nanos) {
+    return Duration.ofNanos(nanos).toMillis() + "ms";
+  }
+}
@@ -0,0 +1,158 @@
+package com.acme.resume.harness;
+
+import com.acme.resume.refresh.batch.TenantRoster;
+import com.acme.resume.refresh.common.ResumeRefreshRunner;
+import com.acme.resume.refresh.common.Tenant;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.Banner;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Refreshes resumes of `--harness.accounts` simulated accounts against local stub portals & reports throughput, latency percentiles, heap & connection usage of each run.
+ * <p>
+ * Options (all optional)
+ * <ul>
+ *   <li>`--harness.accounts` number of simulated accounts. Defaults to 50</li>
+ *   <li>`--harness.portals` comma separated portals each account is refreshed on. Defaults to all portals</li>
+ *   <li>`--harness.runs` number of back to back runs within the same process, for eg. to see the effect of warm sessions, caches & jit. Defaults to 1</li>
+ *   <li>`--harness.latency`, `--harness.jitter` & `--harness.error-rate` see {@link FaultInjection}. Default to 50ms, 20ms & 0</li>
+ *   <li>`--harness.resume-size` size of the resume uploaded by every account. Defaults to 256KB</li>
+ * </ul>
+ * Every other argument is passed on to the application as is, so its settings (for eg. `--app.batch.parallelism`, `--app.http.pool.max-connections`) can be varied between runs of the harness.
+ * Pass `--app.engine.type=blocking` to compare the blocking engine (virtual threads) with the reactor one on throughput, p99 latency & heap per in-flight account
+ */
+@Log4j2
+public final class LoadHarness {
+  private LoadHarness() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    final var arguments = new DefaultApplicationArguments(args);
+    final var accounts = Integer.parseInt(option(arguments, "harness.accounts", "50"));
+    final var portals = Arrays.asList(option(arguments, "harness.portals", "naukri,monster,instahyre").split(","));
+    final var runs = Integer.parseInt(option(arguments, "harness.runs", "1"));
+    final var faults = new FaultInjection(
+        DurationStyle.detectAndParse(option(arguments, "harness.latency", "50ms")),
+        DurationStyle.detectAndParse(option(arguments, "harness.jitter", "20ms")),
+        Double.parseDouble(option(arguments, "harness.error-rate", "0")));
+    final var resumeSize = DataSize.parse(option(arguments, "harness.resume-size", "256KB"));
+
+    final var stubServers = new ArrayList<StubServer>();
+    final var workDirectory = Files.createTempDirectory("resume-refresher-harness");
+    try {
+      for (String portal : portals) {
+        stubServers.addAll(switch (portal) {
+          case "naukri" -> NaukriStub.start(faults);
+          case "monster" -> MonsterStub.start(faults);
+          case "instahyre" -> InstahyreStub.start(faults);
+          default -> throw new IllegalArgumentException("Unknown portal `" + portal + "`. Supported portals are naukri, monster & instahyre");
+        });
+      }
+      final var resume = writeResume(workDirectory, resumeSize);
+      final var applicationArgs = applicationArgs(args, accounts, portals, resume, workDirectory, stubServers);
+
+      log.info("Refreshing {} accounts on {} against stub portals with {} latency (+ upto {} jitter) & {} error rate using {} engine", accounts, portals, faults.latency(), faults.jitter(), faults.errorRate(),
+          option(arguments, "app.engine.type", "reactor"));
+      try (final var context = new SpringApplicationBuilder(HarnessApplication.class)
+          .bannerMode(Banner.Mode.OFF)
+          .web(WebApplicationType.NONE)
+          .run(applicationArgs.toArray(String[]::new))) {
+        final var tenantRoster = context.getBean(TenantRoster.class);
+        final var runner = context.getBean(ResumeRefreshRunner.class);
+        for (int run = 1; run <= runs; run++) {
+          final var latencyRecorder = new LatencyRecorder();
+          final var tenants = tenantRoster.tenants().stream()
+              .map(tenant -> new Tenant(tenant.id(), tenant.resumePath(), tenant.refreshers().stream().map(latencyRecorder::timed).toList()))
+              .toList();
+          final var connectionsAtStart = stubServers.stream().mapToLong(StubServer::openedConnections).toArray();
+          final var heapSampler = new HeapSampler();
+          final var startedAt = System.nanoTime();
+          // failures are part of the report rather than a reason to stop
+          runner.refresh(tenants, tenantRoster.parallelism()).onErrorResume(__ -> Mono.empty()).block();
+          final var elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+          report(run, elapsed, latencyRecorder, heapSampler.stop(Math.min(tenants.size(), tenantRoster.parallelism())), stubServers, connectionsAtStart);
+        }
+      }
+    } finally {
+      stubServers.forEach(StubServer::dispose);
+      deleteRecursively(workDirectory);
+    }
+  }
+
+  private static List<String> applicationArgs(String[] args, int accounts, List<String> portals, Path resume, Path workDirectory, List<StubServer> stubServers) {
+    // command line args take precedence over application.yml, which points caches & journal to the home directory
+    final var result = new ArrayList<String>();
+    result.add("--app.session-cache.secret=");
+    result.add("--app.asset-cache.file=");
+    result.add("--app.journal.file=");
+    result.add("--app.metrics.prometheus-file=");
+    result.add("--app.flight-recorder.directory=" + workDirectory.resolve("flight-recordings"));
+    for (StubServer stubServer : stubServers) {
+      result.add("--app.http.host-overrides[" + stubServer.host() + "]=" + stubServer.baseUrl());
+    }
+    for (int account = 0; account < accounts; account++) {
+      final var tenant = "--app.batch.tenants[" + account + "].";
+      result.add(tenant + "id=account-" + account);
+      result.add(tenant + "resume.path=" + resume);
+      result.add(tenant + "resume.filename=" + resume.getFileName());
+      for (String portal : portals) {
+        result.add(tenant + "portals." + portal + ".username=account-" + account + "@harness.local");
+        result.add(tenant + "portals." + portal + ".password=stub");
+      }
+    }
+    // lets let the caller override any of the above
+    result.addAll(Arrays.asList(args));
+    return result;
+  }
+
+  private static void report(int run, Duration elapsed, LatencyRecorder latencyRecorder, String heap, List<StubServer> stubServers, long[] connectionsAtStart) {
+    final var refreshes = latencyRecorder.refreshes();
+    log.info("Run {}: {} refreshes in {}ms ({} refreshes/s)", run, refreshes, elapsed.toMillis(), String.format("%.1f", refreshes * 1000.0 / Math.max(1, elapsed.toMillis())));
+    latencyRecorder.summary().forEach(line -> log.info("  {}", line));
+    log.info("  heap: {}", heap);
+    for (int i = 0; i < stubServers.size(); i++) {
+      final var stubServer = stubServers.get(i);
+      log.info("  connections to {}: {} opened during this run, peak {} open at a time so far", stubServer.host(), stubServer.openedConnections() - connectionsAtStart[i], stubServer.peakOpenConnections());
+    }
+  }
+
+  /**
+   * @return pdf like file of the given size. Content is random as real pdfs are mostly compressed streams
+   */
+  private static Path writeResume(Path directory, DataSize size) throws IOException {
+    final var header = "%PDF-1.4\n".getBytes(US_ASCII);
+    final var content = new byte[(int) Math.max(size.toBytes(), header.length)];
+    new Random(42).nextBytes(content);
+    System.arraycopy(header, 0, content, 0, header.length);
+    return Files.write(directory.resolve("resume.pdf"), content);
+  }
+
+  private static String option(DefaultApplicationArguments arguments, String name, String defaultValue) {
+    final var values = arguments.getOptionValues(name);
+    return values == null || values.isEmpty() ? defaultValue : values.get(values.size() - 1);
+  }
+
+  private static void deleteRecursively(Path directory) throws IOException {
+    try (final var paths = Files.walk(directory)) {
+      for (Path path : paths.sorted((first, second) -> second.compareTo(first)).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+}
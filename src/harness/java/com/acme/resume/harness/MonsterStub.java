@@ -0,0 +1,82 @@
+package com.acme.resume.harness;
+
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
+import static io.netty.handler.codec.http.HttpHeaderNames.LOCATION;
+import static io.netty.handler.codec.http.HttpHeaderNames.SET_COOKIE;
+import static io.netty.handler.codec.http.HttpResponseStatus.FOUND;
+import static io.netty.handler.codec.http.HttpResponseStatus.NOT_MODIFIED;
+
+/**
+ * Emulates monster's login chain (form login setting `MRE`, oauth authorize redirecting to the callback, callback setting `MSSOAT` twice with the second one clearing it), profile & upload apis, and the static script that carries `client_id`
+ */
+final class MonsterStub {
+  private static final String HOST = "www.monsterindia.com";
+  private static final String SCRIPT_ETAG = "\"stub-login-app-service-v1\"";
+  // script is big & client_id is towards its end, just like the real one
+  private static final String SCRIPT = Stubs.page(512 * 1024, 500 * 1024, "var o={response_type:\"code\",client_id=\"stub-client-id\",scope:\"all\"};\n");
+
+  private MonsterStub() {
+  }
+
+  static List<StubServer> start(FaultInjection faults) {
+    return List.of(new StubServer(HOST, main(faults)), new StubServer("media.monsterindia.com", media(faults)));
+  }
+
+  private static Consumer<HttpServerRoutes> main(FaultInjection faults) {
+    return routes -> routes
+        .post("/rio/login", faults.apply((request, response) -> Stubs.json(request, response.header(SET_COOKIE, "MRE=" + Stubs.token() + "; Path=/; HttpOnly"),
+            "{\"redirectUrl\":\"http://" + HOST + "/rio/oauth/authorize?client_id=stub-client-id&scope=all&response_type=code&redirect_uri=http://" + HOST + "/rio/login/oauth/callback\"}")))
+        .get("/rio/oauth/authorize", faults.apply((request, response) -> {
+          if (Stubs.cookie(request, "MRE") == null) {
+            return Stubs.unauthorized(request, response);
+          }
+          return request.receive().then(response.status(FOUND).header(LOCATION, "http://" + HOST + "/rio/login/oauth/callback?code=" + Stubs.token()).send().then());
+        }))
+        .get("/rio/login/oauth/callback", faults.apply((request, response) -> {
+          if (Stubs.cookie(request, "MRE") == null) {
+            return Stubs.unauthorized(request, response);
+          }
+          return Stubs.html(request, response
+              .addHeader(SET_COOKIE, "MSSOAT=" + Stubs.token() + "; Max-Age=86400; Path=/; HttpOnly")
+              .addHeader(SET_COOKIE, "MSSOAT=; Max-Age=0; Path=/rio"), "<html><body>Redirecting</body></html>");
+        }))
+        .get("/middleware/profileSettings", faults.apply((request, response) -> {
+          final var mainCookie = Stubs.cookie(request, "MSSOAT");
+          if (mainCookie == null) {
+            return Stubs.unauthorized(request, response);
+          }
+          return Stubs.json(request, response, "{\"userProfile\":{\"personalDetailSection\":{\"personalDetails\":{\"profileId\":\"" + Stubs.idOf(mainCookie) + "\",\"firstName\":\"Stub\"}}}}");
+        }))
+        .post("/middleware/upload-resume", faults.apply((request, response) -> authorized(request, response,
+            "{\"uploadResumeStatus\":200,\"uploadResumeStatusText\":\"OK\",\"uploadResumeResponse\":{\"errorCode\":null,\"errorMessage\":null,\"detailErrorMessage\":null}}")))
+        .post("/middleware/publish/events/field-level-update", faults.apply((request, response) -> authorized(request, response, "{}")))
+        .post("/middleware/deleteResume", faults.apply((request, response) -> authorized(request, response, "{}")));
+  }
+
+  private static Consumer<HttpServerRoutes> media(FaultInjection faults) {
+    return routes -> routes
+        .get("/rio/public/js/login-app-service.js", faults.apply((request, response) -> {
+          if (SCRIPT_ETAG.equals(request.requestHeaders().get(IF_NONE_MATCH))) {
+            return response.status(NOT_MODIFIED).header(ETAG, SCRIPT_ETAG).send();
+          }
+          return response.header(ETAG, SCRIPT_ETAG).header(CONTENT_TYPE, "application/javascript").sendString(Mono.just(SCRIPT));
+        }));
+  }
+
+  private static Mono<Void> authorized(HttpServerRequest request, HttpServerResponse response, String json) {
+    if (Stubs.cookie(request, "MSSOAT") == null) {
+      return Stubs.unauthorized(request, response);
+    }
+    return Stubs.json(request, response, json);
+  }
+}
@@ -0,0 +1,53 @@
+package com.acme.resume.harness;
+
+import org.reactivestreams.Publisher;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.AUTHORIZATION;
+
+/**
+ * Emulates naukri's mobile api (login, dashboard, delete/advertise resume) & its file validation service (upload)
+ */
+final class NaukriStub {
+  private static final String PROFILES_PATH = "/apigateway/servicegateway-mynaukri/resman-aggregator-services/v0/users/self";
+
+  private NaukriStub() {
+  }
+
+  static List<StubServer> start(FaultInjection faults) {
+    return List.of(new StubServer("www.nma.mobi", api(faults)), new StubServer("filevalidation.naukri.com", fileValidation(faults)));
+  }
+
+  private static Consumer<HttpServerRoutes> api(FaultInjection faults) {
+    return routes -> routes
+        .post("/central-login-services/v1/login", faults.apply((request, response) -> Stubs.json(request, response,
+            "{\"cookies\":[{\"name\":\"nauk_at\",\"value\":\"" + Stubs.jwt(Duration.ofHours(1)) + "\"},{\"name\":\"nauk_rt\",\"value\":\"" + Stubs.token() + "\"}]}")))
+        .get(PROFILES_PATH + "/dashboard", faults.apply((request, response) -> {
+          final var authorization = request.requestHeaders().get(AUTHORIZATION);
+          if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return Stubs.unauthorized(request, response);
+          }
+          return Stubs.json(request, response, "{\"dashBoard\":{\"profileId\":\"" + Long.toHexString(Stubs.idOf(authorization)) + "\",\"name\":\"Stub\",\"profileCompletion\":87}}");
+        }))
+        .post(PROFILES_PATH + "/profiles/{profileId}/deleteResume", faults.apply(NaukriStub::authorized))
+        .post(PROFILES_PATH + "/profiles/{profileId}/advResume", faults.apply(NaukriStub::authorized));
+  }
+
+  private static Consumer<HttpServerRoutes> fileValidation(FaultInjection faults) {
+    return routes -> routes
+        .post("/file", faults.apply((request, response) -> Stubs.json(request, response, "{\"status\":\"uploaded\"}")));
+  }
+
+  private static Publisher<Void> authorized(HttpServerRequest request, HttpServerResponse response) {
+    if (request.requestHeaders().get(AUTHORIZATION) == null) {
+      return Stubs.unauthorized(request, response);
+    }
+    return Stubs.json(request, response, "{}");
+  }
+}
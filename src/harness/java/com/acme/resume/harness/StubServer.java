@@ -0,0 +1,58 @@
+package com.acme.resume.harness;
+
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRoutes;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Embedded http server standing in for a single portal host. Keeps track of connections refreshers open to it
+ */
+public final class StubServer {
+  private final String host;
+  private final AtomicLong openedConnections = new AtomicLong();
+  private final AtomicInteger openConnections = new AtomicInteger();
+  private final AtomicInteger peakOpenConnections = new AtomicInteger();
+  private final DisposableServer server;
+
+  /**
+   * @param host real portal host this server stands in for
+   */
+  public StubServer(String host, Consumer<? super HttpServerRoutes> routes) {
+    this.host = host;
+    this.server = HttpServer.create()
+        .host("127.0.0.1")
+        .port(0)
+        .doOnConnection(connection -> {
+          openedConnections.incrementAndGet();
+          peakOpenConnections.accumulateAndGet(openConnections.incrementAndGet(), Math::max);
+          connection.onDispose(openConnections::decrementAndGet);
+        })
+        .route(routes)
+        .bindNow();
+  }
+
+  public String host() {
+    return host;
+  }
+
+  public URI baseUrl() {
+    return URI.create("http://127.0.0.1:" + server.port());
+  }
+
+  public long openedConnections() {
+    return openedConnections.get();
+  }
+
+  public int peakOpenConnections() {
+    return peakOpenConnections.get();
+  }
+
+  public void dispose() {
+    server.disposeNow();
+  }
+}
@@ -0,0 +1,89 @@
+package com.acme.resume.harness;
+
+import io.netty.handler.codec.http.cookie.Cookie;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Set;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
+import static io.netty.handler.codec.http.HttpResponseStatus.UNAUTHORIZED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Bits shared by stub portals
+ */
+final class Stubs {
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private Stubs() {
+  }
+
+  /**
+   * Request body is always read fully (even if its not used), so that the connection can be reused for next request
+   */
+  static Mono<Void> json(HttpServerRequest request, HttpServerResponse response, String json) {
+    return request.receive().then(response.header(CONTENT_TYPE, "application/json").sendString(Mono.just(json)).then());
+  }
+
+  static Mono<Void> html(HttpServerRequest request, HttpServerResponse response, String html) {
+    return request.receive().then(response.header(CONTENT_TYPE, "text/html; charset=utf-8").sendString(Mono.just(html)).then());
+  }
+
+  static Mono<Void> unauthorized(HttpServerRequest request, HttpServerResponse response) {
+    return request.receive().then(response.status(UNAUTHORIZED).send().then());
+  }
+
+  /**
+   * @return `null` if the request does not carry the cookie
+   */
+  static String cookie(HttpServerRequest request, String name) {
+    final Set<Cookie> cookies = request.cookies().get(name);
+    return cookies == null || cookies.isEmpty() ? null : cookies.iterator().next().value();
+  }
+
+  static String token() {
+    final var bytes = new byte[16];
+    RANDOM.nextBytes(bytes);
+    return HexFormat.of().formatHex(bytes);
+  }
+
+  /**
+   * @return unsigned jwt whose `exp` claim is honoured by the session cache
+   */
+  static String jwt(Duration validFor) {
+    final var encoder = Base64.getUrlEncoder().withoutPadding();
+    final var header = encoder.encodeToString("{\"alg\":\"none\",\"typ\":\"JWT\"}".getBytes(UTF_8));
+    final var payload = encoder.encodeToString(("{\"sub\":\"" + token() + "\",\"exp\":" + Instant.now().plus(validFor).getEpochSecond() + "}").getBytes(UTF_8));
+    return header + "." + payload + ".stub";
+  }
+
+  /**
+   * @return stable positive id derived from `value`, so that the same session always maps to the same profile
+   */
+  static long idOf(String value) {
+    return (value.hashCode() & 0x7fffffffL) + 1;
+  }
+
+  /**
+   * @param marker placed after `markerAt` chars of filler markup
+   */
+  static String page(int size, int markerAt, String marker) {
+    final var filler = "<div class=\"section\"><span class=\"label\">Lorem ipsum dolor sit amet</span><a href=\"/candidate/opportunities/\">Opportunities</a></div>\n";
+    final var page = new StringBuilder(size + marker.length());
+    while (page.length() < markerAt) {
+      page.append(filler);
+    }
+    page.append(marker);
+    while (page.length() < size) {
+      page.append(filler);
+    }
+    return page.toString();
+  }
+}
@@ -0,0 +1,125 @@
+package com.acme.resume.refresh.common;
+
+import com.acme.resume.refresh.codec.JsonCodec;
+import com.acme.resume.refresh.instahyre.exchange.CandidateResponse;
+import com.acme.resume.refresh.instahyre.exchange.CandidateResponseJsonCodec;
+import com.acme.resume.refresh.monster.exchange.UserProfileResponse;
+import com.acme.resume.refresh.monster.exchange.UserProfileResponseJsonCodec;
+import com.acme.resume.refresh.naukri.exchange.DashboardResponse;
+import com.acme.resume.refresh.naukri.exchange.DashboardResponseJsonCodec;
+import com.acme.resume.refresh.naukri.exchange.LoginResponse;
+import com.acme.resume.refresh.naukri.exchange.LoginResponseJsonCodec;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Decoding of portal responses into `exchange` records. Portals return far more than the few fields we map, so payloads carry a realistic amount of fields that are skipped.
+ * Each response is decoded both reflectively by jackson (the baseline) & by the codec generated for it by `codec-processor` (what webclient uses)
+ */
+@State(Scope.Benchmark)
+public class ExchangeDecodingBenchmark {
+  // configured the same way as the mapper webclient decodes with
+  private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final ObjectReader dashboardResponseReader = OBJECT_MAPPER.readerFor(DashboardResponse.class);
+  private final ObjectReader loginResponseReader = OBJECT_MAPPER.readerFor(LoginResponse.class);
+  private final ObjectReader userProfileResponseReader = OBJECT_MAPPER.readerFor(UserProfileResponse.class);
+  private final ObjectReader candidateResponseReader = OBJECT_MAPPER.readerFor(CandidateResponse.class);
+  private byte[] dashboardResponse;
+  private byte[] loginResponse;
+  private byte[] userProfileResponse;
+  private byte[] candidateResponse;
+
+  @Setup
+  public void setup() {
+    dashboardResponse = ("{\"dashBoard\":{" + skippedFields(40) + ",\"profileId\":\"7f3a9c0e1b2d4e5f\"},\"recommendedJobs\":[" + skippedObjects(25) + "]}").getBytes(UTF_8);
+    loginResponse = ("{\"cookies\":[{\"name\":\"nauk_at\",\"value\":\"eyJhbGciOiJSUzI1NiIsInR5cCI6IkpXVCJ9." + "x".repeat(600) + ".sig\"},{\"name\":\"nauk_rt\",\"value\":\"" + "y".repeat(64) + "\"},{\"name\":\"nauk_sid\",\"value\":\"" + "z".repeat(32) + "\"}]," + skippedFields(10) + "}").getBytes(UTF_8);
+    userProfileResponse = ("{\"userProfile\":{\"personalDetailSection\":{\"personalDetails\":{" + skippedFields(30) + ",\"profileId\":\"48213377\"}},\"workExperienceSection\":[" + skippedObjects(8) + "],\"educationSection\":[" + skippedObjects(4) + "]}}").getBytes(UTF_8);
+    candidateResponse = ("{" + skippedFields(30) + ",\"resume\":{\"id\":91827364," + skippedFields(6) + "},\"skills\":[" + skippedObjects(20) + "]}").getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public DashboardResponse dashboardResponse() throws IOException {
+    return dashboardResponseReader.readValue(dashboardResponse);
+  }
+
+  @Benchmark
+  public LoginResponse loginResponse() throws IOException {
+    return loginResponseReader.readValue(loginResponse);
+  }
+
+  @Benchmark
+  public UserProfileResponse userProfileResponse() throws IOException {
+    return userProfileResponseReader.readValue(userProfileResponse);
+  }
+
+  @Benchmark
+  public CandidateResponse candidateResponse() throws IOException {
+    return candidateResponseReader.readValue(candidateResponse);
+  }
+
+  @Benchmark
+  public DashboardResponse dashboardResponseGenerated() throws IOException {
+    return decode(DashboardResponseJsonCodec.INSTANCE, dashboardResponse);
+  }
+
+  @Benchmark
+  public LoginResponse loginResponseGenerated() throws IOException {
+    return decode(LoginResponseJsonCodec.INSTANCE, loginResponse);
+  }
+
+  @Benchmark
+  public UserProfileResponse userProfileResponseGenerated() throws IOException {
+    return decode(UserProfileResponseJsonCodec.INSTANCE, userProfileResponse);
+  }
+
+  @Benchmark
+  public CandidateResponse candidateResponseGenerated() throws IOException {
+    return decode(CandidateResponseJsonCodec.INSTANCE, candidateResponse);
+  }
+
+  private static <T> T decode(JsonCodec<T> codec, byte[] json) throws IOException {
+    try (final var parser = JSON_FACTORY.createParser(json)) {
+      parser.nextToken();
+      return codec.read(parser);
+    }
+  }
+
+  private static String skippedFields(int count) {
+    final var fields = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        fields.append(',');
+      }
+      fields.append(switch (i % 4) {
+        case 0 -> "\"field" + i + "\":\"some value of field " + i + "\"";
+        case 1 -> "\"field" + i + "\":" + (i * 7919L);
+        case 2 -> "\"field" + i + "\":[\"a\",\"b\",\"c\"]";
+        default -> "\"field" + i + "\":{\"nested\":true,\"label\":\"nested value\"}";
+      });
+    }
+    return fields.toString();
+  }
+
+  private static String skippedObjects(int count) {
+    final var objects = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        objects.append(',');
+      }
+      objects.append('{').append(skippedFields(12)).append('}');
+    }
+    return objects.toString();
+  }
+}
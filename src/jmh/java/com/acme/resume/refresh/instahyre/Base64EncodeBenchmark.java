@@ -0,0 +1,49 @@
+package com.acme.resume.refresh.instahyre;
+
+import com.acme.resume.refresh.store.StoredResume;
+import com.acme.resume.refresh.util.DrainingHttpOutputMessage;
+import com.acme.resume.refresh.util.StreamingBase64BodyInserters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Both ways instahyre upload body gets its base64 content: encoding the whole resume once (cached as a derived form of the resume) & encoding it chunk by chunk while writing the body (resumes bigger than `app.resume-store.max-derived-size`)
+ */
+@State(Scope.Benchmark)
+public class Base64EncodeBenchmark {
+  private static final byte[] BODY_BEFORE_CONTENT = "{\"calculate_opps\":true,\"candidate\":\"/api/v1/limited_candidate/48213377\",\"file_b64\":\"data:application/pdf;base64,".getBytes(UTF_8);
+  private static final byte[] BODY_AFTER_CONTENT = "\",\"title\":\"resume.pdf\"}".getBytes(UTF_8);
+
+  @Param({"102400", "1048576", "5242880"})
+  private int resumeSize;
+
+  private StoredResume resume;
+
+  @Setup
+  public void setup() {
+    final var content = new byte[resumeSize];
+    // pdfs are mostly compressed streams, so random bytes are a fair stand in
+    new Random(42).nextBytes(content);
+    resume = new StoredResume(Paths.get("resume.pdf"), "benchmark", resumeSize, FileTime.fromMillis(0), ByteBuffer.wrap(content).asReadOnlyBuffer());
+  }
+
+  @Benchmark
+  public ByteBuffer wholeResume() {
+    return InstahyreResumeRefresher.base64EncodedContentOf(resume);
+  }
+
+  @Benchmark
+  public long streaming() {
+    return DrainingHttpOutputMessage.drain(StreamingBase64BodyInserters.fromContentAsBase64(BODY_BEFORE_CONTENT, resume.content(InstahyreResumeRefresher.UPLOAD_CHUNK_SIZE), resume.size(), BODY_AFTER_CONTENT, InstahyreResumeRefresher.UPLOAD_CHUNK_SIZE));
+  }
+}
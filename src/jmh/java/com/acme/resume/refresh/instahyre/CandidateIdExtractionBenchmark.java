@@ -0,0 +1,42 @@
+package com.acme.resume.refresh.instahyre;
+
+import com.acme.resume.refresh.util.MiscUtil;
+import com.acme.resume.refresh.util.Pages;
+import com.acme.resume.refresh.util.StreamingPatternExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Extraction of candidateId from the profile page, both streaming (as done today) & by joining the whole page first (baseline)
+ */
+@State(Scope.Benchmark)
+public class CandidateIdExtractionBenchmark {
+  private static final int PAGE_SIZE = 256 * 1024;
+
+  private final StreamingPatternExtractor extractor = new StreamingPatternExtractor(InstahyreResumeRefresher.CANDIDATE_ID_PATTERN, "candidateId", 64, 2 * 1024 * 1024);
+  private byte[] page;
+
+  @Setup
+  public void setup() {
+    page = Pages.html(PAGE_SIZE, "var candidateId = '48213377',\n").getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public String streaming() {
+    return extractor.extract(Pages.chunksOf(page)).block();
+  }
+
+  @Benchmark
+  public String joinThenMatch() {
+    return MiscUtil.readAllBuffersAsUtf8String(Pages.chunksOf(page))
+        .map(body -> {
+          final var matcher = InstahyreResumeRefresher.CANDIDATE_ID_PATTERN.matcher(body);
+          return matcher.find() ? matcher.group("candidateId") : null;
+        })
+        .block();
+  }
+}
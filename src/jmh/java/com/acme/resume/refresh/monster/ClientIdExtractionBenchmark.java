@@ -0,0 +1,42 @@
+package com.acme.resume.refresh.monster;
+
+import com.acme.resume.refresh.util.MiscUtil;
+import com.acme.resume.refresh.util.Pages;
+import com.acme.resume.refresh.util.StreamingPatternExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Extraction of client_id from monster's login javascript bundle, both streaming (as done today) & by joining the whole script first (baseline). Only runs when the script changed, but the bundle is the biggest body we scan
+ */
+@State(Scope.Benchmark)
+public class ClientIdExtractionBenchmark {
+  private static final int SCRIPT_SIZE = 1024 * 1024;
+
+  private final StreamingPatternExtractor extractor = new StreamingPatternExtractor(MonsterResumeRefresher.CLIENT_ID_PATTERN, "clientId", 256, 4 * 1024 * 1024);
+  private byte[] script;
+
+  @Setup
+  public void setup() {
+    script = Pages.html(SCRIPT_SIZE, "var o={response_type:\"code\",client_id=\"b3f1c9e2-7d4a-4c1e-9a55-2f0e6d8c1a77\",scope:\"openid\"};\n").getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public String streaming() {
+    return extractor.extract(Pages.chunksOf(script)).block();
+  }
+
+  @Benchmark
+  public String joinThenMatch() {
+    return MiscUtil.readAllBuffersAsUtf8String(Pages.chunksOf(script))
+        .map(body -> {
+          final var matcher = MonsterResumeRefresher.CLIENT_ID_PATTERN.matcher(body);
+          return matcher.find() ? matcher.group("clientId") : null;
+        })
+        .block();
+  }
+}
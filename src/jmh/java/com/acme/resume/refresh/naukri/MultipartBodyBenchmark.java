@@ -0,0 +1,63 @@
+package com.acme.resume.refresh.naukri;
+
+import com.acme.resume.refresh.store.StoredResume;
+import com.acme.resume.refresh.util.DrainingHttpOutputMessage;
+import com.acme.resume.refresh.util.MultipartBodyInserters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Random;
+
+import static org.springframework.http.MediaType.APPLICATION_PDF;
+
+/**
+ * Naukri's multipart upload body, built & written via spring's multipart writer (the way {@link NaukriResumeRefresher} used to) & the way it does now (minus the network)
+ */
+@State(Scope.Benchmark)
+public class MultipartBodyBenchmark {
+  @Param({"102400", "1048576"})
+  private int resumeSize;
+
+  private StoredResume resume;
+
+  @Setup
+  public void setup() {
+    final var content = new byte[resumeSize];
+    new Random(42).nextBytes(content);
+    resume = new StoredResume(Paths.get("resume.pdf"), "benchmark", resumeSize, FileTime.fromMillis(0), ByteBuffer.wrap(content).asReadOnlyBuffer());
+  }
+
+  @Benchmark
+  public long buildAndWrite() {
+    final var multipartBodyBuilder = new MultipartBodyBuilder();
+    multipartBodyBuilder.part("formKey", "F51f8e7e54e205");
+    multipartBodyBuilder.part("fileKey", "U0yQvNXWLsNRrH");
+    multipartBodyBuilder.part("fileName", "resume.pdf");
+    multipartBodyBuilder.part("uploadCallback", "true");
+    multipartBodyBuilder.asyncPart("file", resume.content(NaukriResumeRefresher.UPLOAD_CHUNK_SIZE), DataBuffer.class).filename("resume.pdf").contentType(APPLICATION_PDF);
+    return DrainingHttpOutputMessage.drain(BodyInserters.fromMultipartData(multipartBodyBuilder.build()));
+  }
+
+  /**
+   * Same body written by {@link MultipartBodyInserters} instead. No reactor netty connection here, so this measures its tls path (views of in memory content) rather than sendfile
+   */
+  @Benchmark
+  public long prebuiltHeadAndWrite() {
+    final var fields = new LinkedHashMap<String, String>();
+    fields.put("formKey", "F51f8e7e54e205");
+    fields.put("fileKey", "U0yQvNXWLsNRrH");
+    fields.put("fileName", "resume.pdf");
+    fields.put("uploadCallback", "true");
+    return DrainingHttpOutputMessage.drain(MultipartBodyInserters.fromFieldsAndFile(fields, "file", "resume.pdf", APPLICATION_PDF, resume, NaukriResumeRefresher.UPLOAD_CHUNK_SIZE));
+  }
+}
@@ -0,0 +1,97 @@
+package com.acme.resume.refresh.util;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Request body sink that counts & releases every buffer written to it, so that benchmarks measure body construction & encoding without any network involved
+ */
+public class DrainingHttpOutputMessage implements ReactiveHttpOutputMessage {
+  // same writers & buffer allocator webclient uses with reactor netty
+  private static final List<HttpMessageWriter<?>> MESSAGE_WRITERS = ExchangeStrategies.withDefaults().messageWriters();
+  private static final DataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+  private static final BodyInserter.Context CONTEXT = new BodyInserter.Context() {
+    @Override
+    public List<HttpMessageWriter<?>> messageWriters() {
+      return MESSAGE_WRITERS;
+    }
+
+    @Override
+    public Optional<ServerHttpRequest> serverRequest() {
+      return Optional.empty();
+    }
+
+    @Override
+    public Map<String, Object> hints() {
+      return Map.of();
+    }
+  };
+
+  private final HttpHeaders headers = new HttpHeaders();
+  private long writtenBytes;
+
+  /**
+   * @return number of body bytes written
+   */
+  public static long drain(BodyInserter<?, ? super ReactiveHttpOutputMessage> inserter) {
+    final var outputMessage = new DrainingHttpOutputMessage();
+    inserter.insert(outputMessage, CONTEXT).block();
+    return outputMessage.writtenBytes;
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    return headers;
+  }
+
+  @Override
+  public DataBufferFactory bufferFactory() {
+    return BUFFER_FACTORY;
+  }
+
+  @Override
+  public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return false;
+  }
+
+  @Override
+  public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+    return Flux.from(body)
+        .doOnNext(buffer -> {
+          writtenBytes += buffer.readableByteCount();
+          DataBufferUtils.release(buffer);
+        })
+        .then();
+  }
+
+  @Override
+  public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+    return writeWith(Flux.from(body).concatMap(Flux::from));
+  }
+
+  @Override
+  public Mono<Void> setComplete() {
+    return Mono.empty();
+  }
+}
@@ -0,0 +1,57 @@
+package com.acme.resume.refresh.util;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.util.Random;
+
+/**
+ * Synthetic html/javascript bodies that look like portal pages to the code under benchmark, i.e. mostly markup with the interesting bit somewhere near the end
+ */
+public final class Pages {
+  // reactor netty hands over bodies as pooled buffers of (upto) 8KB
+  private static final int CHUNK_SIZE = 8 * 1024;
+  private static final NettyDataBufferFactory BUFFER_FACTORY = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+  private static final String[] FRAGMENTS = {
+      "<div class=\"profile-section\"><span class=\"label\">",
+      "</span></div>\n",
+      "<script type=\"text/javascript\">window.__config = {\"theme\":\"light\",\"locale\":\"en-IN\"};</script>\n",
+      "function t(e,n){return e&&n?e.concat(n):e||n}\n",
+      "<a href=\"/candidate/opportunities/?page=2\" class=\"nav-link\">Opportunities</a>\n",
+      "Experienced engineer with a focus on distributed systems & performance — résumé ✓\n"
+  };
+
+  private Pages() {
+  }
+
+  /**
+   * @param marker text placed right before the last 1KB (or at the start for pages smaller than that), for eg. the value a pattern extracts
+   */
+  public static String html(int size, String marker) {
+    final var random = new Random(42);
+    final var page = new StringBuilder(size + marker.length());
+    final var markerAt = Math.max(0, size - 1024);
+    while (page.length() < markerAt) {
+      page.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+    }
+    page.append(marker);
+    while (page.length() < size) {
+      page.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+    }
+    return page.toString();
+  }
+
+  /**
+   * @return body split into pooled buffers the way reactor netty hands them over. Consumer is expected to release them
+   */
+  public static Flux<DataBuffer> chunksOf(byte[] body) {
+    return Flux.range(0, (body.length + CHUNK_SIZE - 1) / CHUNK_SIZE)
+        .map(index -> {
+          final var offset = index * CHUNK_SIZE;
+          final var length = Math.min(CHUNK_SIZE, body.length - offset);
+          return BUFFER_FACTORY.allocateBuffer(length).write(body, offset, length);
+        });
+  }
+}
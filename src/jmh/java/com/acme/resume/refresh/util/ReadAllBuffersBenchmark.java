@@ -0,0 +1,31 @@
+package com.acme.resume.refresh.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static java.nio.charset.UTF_8;
+
+/**
+ * {@link MiscUtil#readAllBuffersAsUtf8String} on bodies of the size portals actually return
+ */
+@State(Scope.Benchmark)
+public class ReadAllBuffersBenchmark {
+  // small json response, profile page & javascript bundle
+  @Param({"2048", "262144", "1048576"})
+  private int bodySize;
+
+  private byte[] body;
+
+  @Setup
+  public void setup() {
+    body = Pages.html(bodySize, "").getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public String readAllBuffersAsUtf8String() {
+    return MiscUtil.readAllBuffersAsUtf8String(Pages.chunksOf(body)).block();
+  }
+}
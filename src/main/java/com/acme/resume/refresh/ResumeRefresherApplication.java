@@ -1,37 +1,99 @@
 package com.acme.resume.refresh;
 
-import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.batch.TenantRoster;
+import com.acme.resume.refresh.common.ResumeRefreshRunner;
+import com.acme.resume.refresh.daemon.ResumeFileWatcher;
+import com.acme.resume.refresh.daemon.ResumeRefreshDaemon;
+import com.acme.resume.refresh.faststart.FastStart;
+import com.acme.resume.refresh.faststart.FastStartProperties;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.ApplicationContextFactory;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
 import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.BackgroundPreinitializer;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
-import reactor.core.publisher.Flux;
+import org.springframework.context.support.GenericApplicationContext;
 
-import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
+@Log4j2
 @SpringBootApplication(proxyBeanMethods = false)
+@EnableConfigurationProperties(FastStartProperties.class)
 public class ResumeRefresherApplication {
 
   public static void main(String[] args) {
-    new SpringApplicationBuilder(ResumeRefresherApplication.class)
+    final Function<String[], ConfigurableApplicationContext> application = switch (FastStart.launcherOf(args)) {
+      case ANNOTATION -> ResumeRefresherApplication::run;
+      case FUNCTIONAL -> ResumeRefresherApplication::runFunctional;
+    };
+    switch (FastStart.modeOf(args)) {
+      case TRAINING -> FastStart.train(application::apply);
+      case CHECKPOINT -> application.apply(FastStart.checkpoint(application::apply));
+      case NONE -> application.apply(args);
+    }
+  }
+
+  private static ConfigurableApplicationContext run(String[] args) {
+    return new SpringApplicationBuilder(ResumeRefresherApplication.class)
         .properties("spring.output.ansi.enabled=always")
         .bannerMode(Banner.Mode.OFF)
         .web(WebApplicationType.NONE) // We only care about webclient & we don't webflux features. Let's run the app in non-server mode
         .run(args);
   }
 
+  /**
+   * Boots the same application without component scanning, auto-configuration (webflux included), condition evaluation & bean validation. Beans are registered by {@link ResumeRefresherBeans} instead.
+   * Config files, environment variables & args are still read the same way, since spring boot's environment & logging setup is retained
+   */
+  private static ConfigurableApplicationContext runFunctional(String[] args) {
+    // nothing is validated in this mode, so lets not have spring warm up hibernate validator (along with jackson & friends) on a background thread
+    System.setProperty(BackgroundPreinitializer.IGNORE_BACKGROUNDPREINITIALIZER_PROPERTY_NAME, "true");
+    final var application = new SpringApplication(ResumeRefresherBeans.class) {
+      @Override
+      protected void load(ApplicationContext context, Object[] sources) {
+        // loading sources registers annotation config processors (which would parse @Component & @EnableConfigurationProperties of our beans). Beans are registered by the initializer instead
+      }
+    };
+    application.setApplicationContextFactory(ApplicationContextFactory.ofContextClass(GenericApplicationContext.class));
+    application.setDefaultProperties(Map.of("spring.output.ansi.enabled", "always"));
+    application.setBannerMode(Banner.Mode.OFF);
+    application.setWebApplicationType(WebApplicationType.NONE);
+    application.addInitializers(new ResumeRefresherBeans());
+    return application.run(args);
+  }
+
   @Bean
-  ApplicationRunner doOnInit(List<ResumeRefresher> refreshers) {
+  ApplicationRunner doOnInit(TenantRoster tenantRoster, ResumeRefreshRunner resumeRefreshRunner, ResumeRefreshDaemon resumeRefreshDaemon, ResumeFileWatcher resumeFileWatcher,
+      FastStartProperties fastStartProperties) {
     return args -> {
-      if (refreshers.isEmpty()) {
+      final var tenants = tenantRoster.tenants();
+      if (fastStartProperties.exitAfterStartup()) {
+        log.info("Started up with {} tenants. Exiting without refreshing as requested", tenants.size());
+        return;
+      }
+      if (tenants.isEmpty()) {
         throw new RuntimeException(
-            "No built in resume refreshers are enabled. Make sure you run the application by enabling atleast one resume refresher by specifying corresponding properties. For eg. by specifying app_naukri_username & app_naukri_password, etc");
+            "No built in resume refreshers are enabled. Make sure you run the application by enabling atleast one resume refresher by specifying corresponding properties. For eg. by specifying app_naukri_username & app_naukri_password (or) by specifying tenants under app.batch.tenants, etc");
+      }
+      if (resumeFileWatcher.enabled() && resumeRefreshDaemon.enabled()) {
+        throw new RuntimeException("Both app.watch.enabled & app.daemon.enabled are specified. Enable only one of them, as refreshing on every change of the resume makes scheduled refreshes redundant");
+      }
+      if (resumeFileWatcher.enabled()) {
+        resumeFileWatcher.run(tenants, changedTenants -> resumeRefreshRunner.refresh(changedTenants, tenantRoster.parallelism()));
+      } else if (resumeRefreshDaemon.enabled()) {
+        resumeRefreshDaemon.run(() -> resumeRefreshRunner.refresh(tenants, tenantRoster.parallelism()));
+      } else {
+        resumeRefreshRunner.refresh(tenants, tenantRoster.parallelism())
+          .block();
       }
-      Flux.fromIterable(refreshers)
-        .concatMapDelayError(ResumeRefresher::refresh) //lets allow refresh of resume to proceed even if we fail to refresh in one of the resume service provider
-        .blockLast();
     };
   }
 
@@ -0,0 +1,193 @@
+package com.acme.resume.refresh;
+
+import com.acme.resume.refresh.asset.StaticAssetCache;
+import com.acme.resume.refresh.asset.StaticAssetCacheProperties;
+import com.acme.resume.refresh.batch.BatchProperties;
+import com.acme.resume.refresh.batch.TenantRoster;
+import com.acme.resume.refresh.blocking.BlockingEngine;
+import com.acme.resume.refresh.blocking.EngineProperties;
+import com.acme.resume.refresh.common.RefreshProperties;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefreshRunner;
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.common.ResumeRefresherConfiguration;
+import com.acme.resume.refresh.common.ResumeRefresherFactory;
+import com.acme.resume.refresh.daemon.DaemonProperties;
+import com.acme.resume.refresh.daemon.ResumeFileWatcher;
+import com.acme.resume.refresh.daemon.ResumeRefreshDaemon;
+import com.acme.resume.refresh.daemon.WatchProperties;
+import com.acme.resume.refresh.faststart.FastStartProperties;
+import com.acme.resume.refresh.http.FlightRecorder;
+import com.acme.resume.refresh.http.FlightRecorderProperties;
+import com.acme.resume.refresh.http.HttpClientProperties;
+import com.acme.resume.refresh.http.NetworkTimingRecorder;
+import com.acme.resume.refresh.instahyre.BlockingInstahyreResumeRefresher;
+import com.acme.resume.refresh.instahyre.BlockingInstahyreResumeRefresherFactory;
+import com.acme.resume.refresh.instahyre.InstahyreProperties;
+import com.acme.resume.refresh.instahyre.InstahyreResumeRefresher;
+import com.acme.resume.refresh.instahyre.InstahyreResumeRefresherFactory;
+import com.acme.resume.refresh.journal.RefreshJournal;
+import com.acme.resume.refresh.journal.RefreshJournalProperties;
+import com.acme.resume.refresh.metrics.MetricsConfiguration;
+import com.acme.resume.refresh.metrics.MetricsProperties;
+import com.acme.resume.refresh.metrics.PrometheusScrapeServer;
+import com.acme.resume.refresh.metrics.RefreshMetrics;
+import com.acme.resume.refresh.monster.MonsterProperties;
+import com.acme.resume.refresh.monster.MonsterResumeRefresher;
+import com.acme.resume.refresh.monster.MonsterResumeRefresherFactory;
+import com.acme.resume.refresh.naukri.BlockingNaukriResumeRefresher;
+import com.acme.resume.refresh.naukri.BlockingNaukriResumeRefresherFactory;
+import com.acme.resume.refresh.naukri.NaukriProperties;
+import com.acme.resume.refresh.naukri.NaukriResumeRefresher;
+import com.acme.resume.refresh.naukri.NaukriResumeRefresherFactory;
+import com.acme.resume.refresh.resilience.CircuitBreakerRegistry;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.resilience.ResilienceProperties;
+import com.acme.resume.refresh.resilience.RetryPolicies;
+import com.acme.resume.refresh.session.SessionCache;
+import com.acme.resume.refresh.session.SessionCacheConfiguration;
+import com.acme.resume.refresh.session.SessionCacheProperties;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.store.ResumeStore;
+import com.acme.resume.refresh.store.ResumeStoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.netty.handler.ssl.SslContext;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.netty.resources.ConnectionProvider;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Registers the same beans component scanning & auto-configuration end up with, but functionally i.e. without scanning the classpath, parsing configuration classes, evaluating conditions or validating properties.
+ * Used by the functional launcher (see {@link ResumeRefresherApplication#main}). Keep this in sync whenever a component or a bean is added
+ */
+final class ResumeRefresherBeans implements ApplicationContextInitializer<GenericApplicationContext> {
+
+  @Override
+  public void initialize(GenericApplicationContext context) {
+    final var binder = Binder.get(context.getEnvironment());
+    registerProperties(context, binder,
+        FastStartProperties.class, ResumeProperties.class, HttpClientProperties.class, MetricsProperties.class, SessionCacheProperties.class, StaticAssetCacheProperties.class,
+        RefreshJournalProperties.class, ResumeStoreProperties.class, FlightRecorderProperties.class, ResilienceProperties.class, RefreshProperties.class, DaemonProperties.class,
+        WatchProperties.class, BatchProperties.class, EngineProperties.class);
+    // lets pick the engine the way @ConditionalOnProperty(name = "app.engine.type") does otherwise
+    final var blocking = binder.bindOrCreate(prefixOf(EngineProperties.class), EngineProperties.class).type() == EngineProperties.Type.BLOCKING;
+
+    // shared infrastructure
+    final var resumeRefresherConfiguration = new ResumeRefresherConfiguration();
+    context.registerBean(PrometheusMeterRegistry.class, () -> new MetricsConfiguration().prometheusMeterRegistry(context.getBean(MetricsProperties.class)),
+        definition -> definition.setDestroyMethodName("close"));
+    context.registerBean(RefreshMetrics.class, () -> new RefreshMetrics(context.getBean(PrometheusMeterRegistry.class), context.getBean(MetricsProperties.class)));
+    context.registerBean(PrometheusScrapeServer.class, () -> new PrometheusScrapeServer(context.getBean(PrometheusMeterRegistry.class), context.getBean(MetricsProperties.class)));
+    context.registerBean(NetworkTimingRecorder.class, () -> new NetworkTimingRecorder(context.getBean(PrometheusMeterRegistry.class)));
+    context.registerBean(ConnectionProvider.class, () -> resumeRefresherConfiguration.portalConnectionProvider(context.getBean(HttpClientProperties.class)),
+        definition -> definition.setDestroyMethodName("dispose"));
+    context.registerBean(SslContext.class, () -> resumeRefresherConfiguration.portalSslContext(context.getBean(HttpClientProperties.class)));
+    context.registerBean(ClientHttpConnector.class, () -> resumeRefresherConfiguration.portalClientHttpConnector(context.getBean(ConnectionProvider.class),
+        context.getBean(SslContext.class), context.getBean(HttpClientProperties.class), context.getBean(NetworkTimingRecorder.class)));
+    context.registerBean(ObjectMapper.class, ResumeRefresherBeans::objectMapper);
+    context.registerBean(SessionCache.class, () -> new SessionCacheConfiguration().sessionCache(context.getBean(SessionCacheProperties.class), context.getBean(ObjectMapper.class)));
+    context.registerBean(SessionManager.class, () -> new SessionManager(context.getBean(SessionCache.class), context.getBean(SessionCacheProperties.class)));
+    context.registerBean(StaticAssetCache.class, () -> new StaticAssetCache(context.getBean(StaticAssetCacheProperties.class), context.getBean(ObjectMapper.class)));
+    context.registerBean(RefreshJournal.class, () -> new RefreshJournal(context.getBean(RefreshJournalProperties.class), context.getBean(ObjectMapper.class)));
+    context.registerBean(ResumeStore.class, () -> new ResumeStore(context.getBean(ResumeStoreProperties.class)));
+    context.registerBean(FlightRecorder.class, () -> new FlightRecorder(context.getBean(FlightRecorderProperties.class)));
+    context.registerBean(RetryPolicies.class, () -> new RetryPolicies(context.getBean(ResilienceProperties.class)));
+    context.registerBean(CircuitBreakerRegistry.class, () -> new CircuitBreakerRegistry(context.getBean(ResilienceProperties.class)));
+    context.registerBean(RateLimiterRegistry.class, () -> new RateLimiterRegistry(context.getBean(ResilienceProperties.class)));
+    if (blocking) {
+      context.registerBean(BlockingEngine.class, () -> new BlockingEngine(context.getBean(EngineProperties.class), context.getBean(HttpClientProperties.class), context.getBean(RetryPolicies.class),
+          context.getBean(CircuitBreakerRegistry.class), context.getBean(RateLimiterRegistry.class)));
+    }
+
+    // refresher factories for batch tenants
+    if (blocking) {
+      context.registerBean(BlockingNaukriResumeRefresherFactory.class, () -> new BlockingNaukriResumeRefresherFactory(context.getBean(SessionManager.class), context.getBean(ResumeStore.class),
+          context.getBean(RefreshJournal.class), context.getBean(BlockingEngine.class)));
+    } else {
+      context.registerBean(NaukriResumeRefresherFactory.class, () -> new NaukriResumeRefresherFactory(context.getBean(ClientHttpConnector.class), context.getBean(SessionManager.class),
+          context.getBean(ResumeStore.class), context.getBean(FlightRecorder.class), context.getBean(RetryPolicies.class), context.getBean(CircuitBreakerRegistry.class),
+          context.getBean(RefreshJournal.class), context.getBean(RateLimiterRegistry.class)));
+    }
+    context.registerBean(MonsterResumeRefresherFactory.class, () -> new MonsterResumeRefresherFactory(context.getBean(ClientHttpConnector.class), context.getBean(SessionManager.class),
+        context.getBean(StaticAssetCache.class), context.getBean(ResumeStore.class), context.getBean(FlightRecorder.class), context.getBean(RetryPolicies.class),
+        context.getBean(CircuitBreakerRegistry.class), context.getBean(RefreshJournal.class), context.getBean(RateLimiterRegistry.class)));
+    if (blocking) {
+      context.registerBean(BlockingInstahyreResumeRefresherFactory.class, () -> new BlockingInstahyreResumeRefresherFactory(context.getBean(SessionManager.class),
+          context.getBean(ResumeStore.class), context.getBean(BlockingEngine.class)));
+    } else {
+      context.registerBean(InstahyreResumeRefresherFactory.class, () -> new InstahyreResumeRefresherFactory(context.getBean(ClientHttpConnector.class), context.getBean(SessionManager.class),
+          context.getBean(ResumeStore.class), context.getBean(FlightRecorder.class), context.getBean(RetryPolicies.class), context.getBean(CircuitBreakerRegistry.class),
+          context.getBean(RateLimiterRegistry.class)));
+    }
+
+    // refreshers of the default tenant. Only those whose credentials are specified (what @ConditionalOnPropertyNotEmpty does otherwise)
+    final var naukriProperties = binder.bindOrCreate(prefixOf(NaukriProperties.class), NaukriProperties.class);
+    if (hasText(naukriProperties.username()) && hasText(naukriProperties.password()) && blocking) {
+      context.registerBean(BlockingNaukriResumeRefresher.class, () -> new BlockingNaukriResumeRefresher(naukriProperties, context.getBean(ResumeProperties.class),
+          context.getBean(SessionManager.class), context.getBean(ResumeStore.class), context.getBean(RefreshJournal.class), context.getBean(BlockingEngine.class)));
+    } else if (hasText(naukriProperties.username()) && hasText(naukriProperties.password())) {
+      context.registerBean(NaukriResumeRefresher.class, () -> new NaukriResumeRefresher(naukriProperties, context.getBean(ResumeProperties.class), context.getBean(ClientHttpConnector.class),
+          context.getBean(SessionManager.class), context.getBean(ResumeStore.class), context.getBean(FlightRecorder.class), context.getBean(RetryPolicies.class),
+          context.getBean(CircuitBreakerRegistry.class), context.getBean(RefreshJournal.class), context.getBean(RateLimiterRegistry.class)));
+    }
+    final var monsterProperties = binder.bindOrCreate(prefixOf(MonsterProperties.class), MonsterProperties.class);
+    if (hasText(monsterProperties.username()) && hasText(monsterProperties.password())) {
+      context.registerBean(MonsterResumeRefresher.class, () -> new MonsterResumeRefresher(monsterProperties, context.getBean(ResumeProperties.class), context.getBean(ClientHttpConnector.class),
+          context.getBean(SessionManager.class), context.getBean(StaticAssetCache.class), context.getBean(ResumeStore.class), context.getBean(FlightRecorder.class),
+          context.getBean(RetryPolicies.class), context.getBean(CircuitBreakerRegistry.class), context.getBean(RefreshJournal.class), context.getBean(RateLimiterRegistry.class)));
+    }
+    final var instahyreProperties = binder.bindOrCreate(prefixOf(InstahyreProperties.class), InstahyreProperties.class);
+    if (hasText(instahyreProperties.username()) && hasText(instahyreProperties.password()) && blocking) {
+      context.registerBean(BlockingInstahyreResumeRefresher.class, () -> new BlockingInstahyreResumeRefresher(instahyreProperties, context.getBean(ResumeProperties.class),
+          context.getBean(SessionManager.class), context.getBean(ResumeStore.class), context.getBean(BlockingEngine.class)));
+    } else if (hasText(instahyreProperties.username()) && hasText(instahyreProperties.password())) {
+      context.registerBean(InstahyreResumeRefresher.class, () -> new InstahyreResumeRefresher(instahyreProperties, context.getBean(ResumeProperties.class),
+          context.getBean(ClientHttpConnector.class), context.getBean(SessionManager.class), context.getBean(ResumeStore.class), context.getBean(FlightRecorder.class),
+          context.getBean(RetryPolicies.class), context.getBean(CircuitBreakerRegistry.class), context.getBean(RateLimiterRegistry.class)));
+    }
+
+    context.registerBean(ResumeRefreshRunner.class, () -> new ResumeRefreshRunner(context.getBean(RefreshProperties.class), context.getBean(FlightRecorder.class), context.getBean(RefreshMetrics.class)));
+    context.registerBean(ResumeRefreshDaemon.class, () -> new ResumeRefreshDaemon(context.getBean(DaemonProperties.class)));
+    context.registerBean(ResumeFileWatcher.class, () -> new ResumeFileWatcher(context.getBean(WatchProperties.class)));
+    context.registerBean(TenantRoster.class, () -> new TenantRoster(context.getBean(BatchProperties.class), context.getBean(ResumeProperties.class),
+        context.getBeanProvider(ResumeRefresherFactory.class).orderedStream().toList(), context.getBeanProvider(ResumeRefresher.class).orderedStream().toList()));
+    context.registerBean(ApplicationRunner.class, () -> new ResumeRefresherApplication().doOnInit(context.getBean(TenantRoster.class), context.getBean(ResumeRefreshRunner.class),
+        context.getBean(ResumeRefreshDaemon.class), context.getBean(ResumeFileWatcher.class), context.getBean(FastStartProperties.class)));
+  }
+
+  /**
+   * Binds the same way `@EnableConfigurationProperties` does (relaxed names, `@DefaultValue`s & conversions), minus validation
+   */
+  @SafeVarargs
+  private static void registerProperties(GenericApplicationContext context, Binder binder, Class<? extends Record>... propertiesTypes) {
+    for (Class<? extends Record> propertiesType : propertiesTypes) {
+      registerPropertiesOf(context, binder, propertiesType);
+    }
+  }
+
+  private static <T> void registerPropertiesOf(GenericApplicationContext context, Binder binder, Class<T> propertiesType) {
+    context.registerBean(propertiesType, () -> binder.bindOrCreate(prefixOf(propertiesType), propertiesType));
+  }
+
+  private static String prefixOf(Class<?> propertiesType) {
+    return propertiesType.getAnnotation(ConfigurationProperties.class).value();
+  }
+
+  /**
+   * Configured the way jackson auto-configuration does by default, so that files written by either launcher can be read by the other
+   */
+  private static ObjectMapper objectMapper() {
+    return Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+        .build();
+  }
+}
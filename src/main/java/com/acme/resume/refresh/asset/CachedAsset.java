@@ -0,0 +1,17 @@
+package com.acme.resume.refresh.asset;
+
+import java.time.Instant;
+
+/**
+ * Value extracted from a static asset along with validators required to check if the asset changed since
+ *
+ * @param etag value of `ETag` response header. `null` if server did not send it
+ * @param lastModified value of `Last-Modified` response header. `null` if server did not send it
+ * @param value value extracted from the asset
+ * @param validatedAt last time we confirmed with the server that the asset did not change
+ */
+public record CachedAsset(String etag, String lastModified, String value, Instant validatedAt) {
+  public CachedAsset revalidatedAt(Instant instant) {
+    return new CachedAsset(etag, lastModified, value, instant);
+  }
+}
@@ -0,0 +1,171 @@
+package com.acme.resume.refresh.asset;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.IF_MODIFIED_SINCE;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpHeaders.LAST_MODIFIED;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Caches values extracted from static portal assets (such as javascript bundles) & revalidates them using `If-None-Match`/`If-Modified-Since`, so that the asset is only downloaded again when it actually changed.
+ * <p>
+ * Concurrent lookups of the same value share a single request
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(StaticAssetCacheProperties.class)
+public class StaticAssetCache {
+  private final StaticAssetCacheProperties staticAssetCacheProperties;
+  private final ObjectMapper objectMapper;
+  private final ConcurrentMap<String, Mono<String>> keyToInFlightLookup = new ConcurrentHashMap<>();
+  // file is read once, off the event loop, by whichever lookup comes first
+  private final Mono<ConcurrentMap<String, CachedAsset>> keyToCachedAsset$ = Mono.<ConcurrentMap<String, CachedAsset>>fromCallable(() -> new ConcurrentHashMap<>(load()))
+      .subscribeOn(Schedulers.boundedElastic())
+      .cache();
+  // set by every store & cleared by the writer, so that stores made while the writer is busy are written by it in one go
+  private final AtomicBoolean dirty = new AtomicBoolean();
+  // ensures there is only one writer at a time
+  private final AtomicBoolean writing = new AtomicBoolean();
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public StaticAssetCache(StaticAssetCacheProperties staticAssetCacheProperties, ObjectMapper objectMapper) {
+    this.staticAssetCacheProperties = staticAssetCacheProperties;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @param name name of the value being extracted. Multiple values can be extracted from the same url under different names
+   * @param extractor extracts value from the asset body. Its only invoked when the asset is (re)downloaded
+   */
+  public Mono<String> lookup(WebClient webClient, String url, String name, Function<Flux<DataBuffer>, Mono<String>> extractor) {
+    final var key = name + "@" + url;
+    return Mono.defer(() -> keyToInFlightLookup.computeIfAbsent(key, __ -> doLookup(webClient, url, key, extractor)
+        .doFinally(___ -> keyToInFlightLookup.remove(key))
+        .cache()));
+  }
+
+  private Mono<String> doLookup(WebClient webClient, String url, String key, Function<Flux<DataBuffer>, Mono<String>> extractor) {
+    return keyToCachedAsset$.flatMap(cachedAssets -> {
+      final var cachedAsset = cachedAssets.get(key);
+      if (cachedAsset != null && cachedAsset.validatedAt().plus(staticAssetCacheProperties.freshFor()).isAfter(Instant.now())) {
+        log.debug("Using cached {} as its still fresh", key);
+        return Mono.just(cachedAsset.value());
+      }
+      return webClient
+          .method(GET)
+          .uri(url)
+          .headers(httpHeaders -> {
+            if (cachedAsset != null && hasText(cachedAsset.etag())) {
+              httpHeaders.set(IF_NONE_MATCH, cachedAsset.etag());
+            }
+            if (cachedAsset != null && hasText(cachedAsset.lastModified())) {
+              httpHeaders.set(IF_MODIFIED_SINCE, cachedAsset.lastModified());
+            }
+          })
+          .exchangeToMono(response -> {
+            if (cachedAsset != null && response.statusCode() == NOT_MODIFIED) {
+              log.debug("{} did not change since we last fetched it", url);
+              store(cachedAssets, key, cachedAsset.revalidatedAt(Instant.now()));
+              return Mono.just(cachedAsset.value());
+            }
+            if (!response.statusCode().is2xxSuccessful()) {
+              return response.createException().flatMap(Mono::error);
+            }
+            final var etag = response.headers().asHttpHeaders().getFirst(ETAG);
+            final var lastModified = response.headers().asHttpHeaders().getFirst(LAST_MODIFIED);
+            return extractor.apply(response.bodyToFlux(DataBuffer.class))
+                .doOnNext(value -> store(cachedAssets, key, new CachedAsset(etag, lastModified, value, Instant.now())));
+          });
+    });
+  }
+
+  private Map<String, CachedAsset> load() {
+    final var file = persistentFile();
+    if (file == null || !Files.exists(file)) {
+      return Map.of();
+    }
+    try {
+      return objectMapper.readValue(file.toFile(), new TypeReference<HashMap<String, CachedAsset>>() {});
+    } catch (IOException e) {
+      log.warn("Unable to read asset cache from {}. Starting with an empty cache. Reason: {}", file, e.toString());
+      return Map.of();
+    }
+  }
+
+  /**
+   * Updates the in memory cache right away & leaves writing it to the file to a writer on a bounded elastic thread, as stores happen on event loop threads
+   */
+  private void store(Map<String, CachedAsset> cachedAssets, String key, CachedAsset cachedAsset) {
+    cachedAssets.put(key, cachedAsset);
+    if (persistentFile() == null) {
+      return;
+    }
+    dirty.set(true);
+    scheduleWrite(cachedAssets);
+  }
+
+  private void scheduleWrite(Map<String, CachedAsset> cachedAssets) {
+    if (writing.compareAndSet(false, true)) {
+      Schedulers.boundedElastic().schedule(() -> write(cachedAssets));
+    }
+  }
+
+  private void write(Map<String, CachedAsset> cachedAssets) {
+    try {
+      // each pass writes everything stored till then
+      while (dirty.getAndSet(false)) {
+        persist(cachedAssets);
+      }
+    } finally {
+      writing.set(false);
+    }
+    // store that came in after our last pass, but before we let go of writing
+    if (dirty.get()) {
+      scheduleWrite(cachedAssets);
+    }
+  }
+
+  private void persist(Map<String, CachedAsset> cachedAssets) {
+    final var file = persistentFile();
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      final var tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), "assets", ".tmp");
+      objectMapper.writeValue(tempFile.toFile(), cachedAssets);
+      Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      // not being able to persist is not fatal. We will just download the asset again next time
+      log.warn("Unable to persist asset cache to {}. Reason: {}", file, e.toString());
+    }
+  }
+
+  private Path persistentFile() {
+    return hasText(staticAssetCacheProperties.file()) ? Paths.get(staticAssetCacheProperties.file()) : null;
+  }
+}
@@ -0,0 +1,14 @@
+package com.acme.resume.refresh.asset;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param file file where cached values are persisted across runs. Values are only cached in memory if not specified
+ * @param freshFor cached value is used without revalidating with the server for this long after it was last validated
+ */
+@ConfigurationProperties("app.asset-cache")
+public record StaticAssetCacheProperties(String file, @DefaultValue("15m") Duration freshFor) {
+}
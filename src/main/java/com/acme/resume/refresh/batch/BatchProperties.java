@@ -0,0 +1,16 @@
+package com.acme.resume.refresh.batch;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import java.util.List;
+
+/**
+ * @param parallelism max number of tenants whose resumes are refreshed at the same time
+ * @param tenants roster of accounts to refresh in this run
+ */
+@ConfigurationProperties("app.batch")
+public record BatchProperties(@DefaultValue("4") @Min(1) int parallelism, List<@Valid TenantProperties> tenants) {
+}
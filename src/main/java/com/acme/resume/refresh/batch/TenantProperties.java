@@ -0,0 +1,15 @@
+package com.acme.resume.refresh.batch;
+
+import com.acme.resume.refresh.common.PortalCredentials;
+import com.acme.resume.refresh.common.ResumeProperties;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.Map;
+
+/**
+ * @param portals credentials keyed by portal name (naukri/monster/instahyre). Only portals specified here are refreshed for this tenant
+ */
+public record TenantProperties(@NotEmpty String id, @NotNull @Valid ResumeProperties resume, Map<String, @Valid PortalCredentials> portals) {
+}
@@ -0,0 +1,86 @@
+package com.acme.resume.refresh.batch;
+
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefresherFactory;
+import com.acme.resume.refresh.common.Tenant;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds tenants from `app.batch.tenants` roster. Refreshers enabled via `app.<portal>.*` properties (single account mode) are grouped under {@link Tenant#DEFAULT_TENANT_ID} tenant
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(BatchProperties.class)
+public class TenantRoster {
+  private final BatchProperties batchProperties;
+  private final ResumeProperties resumeProperties;
+  private final Map<String, ResumeRefresherFactory> portalToRefresherFactory;
+  private final List<ResumeRefresher> defaultTenantRefreshers;
+  private volatile List<Tenant> tenants;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public TenantRoster(@Valid BatchProperties batchProperties, ResumeProperties resumeProperties, List<ResumeRefresherFactory> refresherFactories, List<ResumeRefresher> defaultTenantRefreshers) {
+    this.batchProperties = batchProperties;
+    this.resumeProperties = resumeProperties;
+    this.portalToRefresherFactory = refresherFactories.stream().collect(Collectors.toMap(ResumeRefresherFactory::portal, Function.identity()));
+    this.defaultTenantRefreshers = defaultTenantRefreshers;
+  }
+
+  public int parallelism() {
+    return batchProperties.parallelism();
+  }
+
+  /**
+   * @return all tenants. Refreshers are built only once & reused by subsequent calls
+   */
+  public List<Tenant> tenants() {
+    var result = tenants;
+    if (result == null) {
+      synchronized (this) {
+        result = tenants;
+        if (result == null) {
+          result = buildTenants();
+          tenants = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private List<Tenant> buildTenants() {
+    final var result = new ArrayList<Tenant>();
+    if (!defaultTenantRefreshers.isEmpty()) {
+      result.add(new Tenant(Tenant.DEFAULT_TENANT_ID, resumeProperties.path(), defaultTenantRefreshers));
+    }
+    if (batchProperties.tenants() != null) {
+      for (TenantProperties tenantProperties : batchProperties.tenants()) {
+        final var refreshers = new ArrayList<ResumeRefresher>();
+        if (tenantProperties.portals() != null) {
+          tenantProperties.portals().forEach((portal, credentials) -> {
+            final var refresherFactory = portalToRefresherFactory.get(portal);
+            if (refresherFactory == null) {
+              throw new IllegalArgumentException("Unknown portal `" + portal + "` specified for tenant `" + tenantProperties.id() + "`. Supported portals are " + portalToRefresherFactory.keySet());
+            }
+            refreshers.add(refresherFactory.create(credentials, tenantProperties.resume()));
+          });
+        }
+        if (refreshers.isEmpty()) {
+          log.warn("Tenant {} has no portal credentials specified. Skipping it", tenantProperties.id());
+          continue;
+        }
+        result.add(new Tenant(tenantProperties.id(), tenantProperties.resume().path(), List.copyOf(refreshers)));
+      }
+    }
+    return List.copyOf(result);
+  }
+}
@@ -0,0 +1,415 @@
+package com.acme.resume.refresh.blocking;
+
+import com.acme.resume.refresh.codec.JsonCodec;
+import com.acme.resume.refresh.codec.JsonCodecs;
+import com.acme.resume.refresh.http.FlightRecorder;
+import com.acme.resume.refresh.http.HttpClientProperties;
+import com.acme.resume.refresh.http.RecordedExchange;
+import com.acme.resume.refresh.resilience.CircuitBreakerRegistry;
+import com.acme.resume.refresh.resilience.PortalContractException;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.resilience.RetryPolicies;
+import com.acme.resume.refresh.step.PhaseTimings;
+import com.acme.resume.refresh.step.StepObserver;
+import lombok.extern.log4j.Log4j2;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Runs refreshers written as straight line blocking code, each refresh on a virtual thread of its own, & sends their requests using a jdk http client shared by all of them.
+ * <p>
+ * Requests go through the same circuit breakers, rate limiters & retry policies (see {@link RetryPolicies#call}) as webclient requests do, & failed responses surface as {@link WebClientResponseException}s, so that failures are classified the same way irrespective of the engine.
+ * Steps are reported to the {@link StepObserver} in the reactor context the refresh is subscribed with, same as {@link com.acme.resume.refresh.step.StepGraph} does, & exchanges are recorded into its {@link FlightRecorder} recording (if any).
+ * <p>
+ * Cookies are handled by the refreshers themselves (there is no {@link com.acme.resume.refresh.http.CookieJar}) & jdk http client does not report connect/tls/ttfb timings, so the whole exchange is attributed to the step & the network timing metrics of webclient requests have no counterpart here
+ * <p>
+ * Virtual threads need java 21. On older runtimes (the build targets java 17) each refresh gets a platform thread instead, which works the same but costs a thread stack per in-flight refresh
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(EngineProperties.class)
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "blocking")
+public class BlockingEngine implements DisposableBean {
+  // reactor context of the refresh running on the current thread
+  private static final ThreadLocal<ContextView> CONTEXT = new ThreadLocal<>();
+  // timings of the step running on the current thread
+  private static final ThreadLocal<PhaseTimings> PHASE_TIMINGS = new ThreadLocal<>();
+
+  private final EngineProperties engineProperties;
+  private final Map<String, URI> hostToBaseUrl;
+  private final RetryPolicies retryPolicies;
+  private final CircuitBreakerRegistry circuitBreakerRegistry;
+  private final RateLimiterRegistry rateLimiterRegistry;
+  private final Scheduler scheduler;
+  private final HttpClient httpClient;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public BlockingEngine(EngineProperties engineProperties, HttpClientProperties httpClientProperties, RetryPolicies retryPolicies, CircuitBreakerRegistry circuitBreakerRegistry,
+      RateLimiterRegistry rateLimiterRegistry) {
+    this.engineProperties = engineProperties;
+    this.hostToBaseUrl = httpClientProperties.hostOverrides() != null ? Map.copyOf(httpClientProperties.hostOverrides()) : Map.of();
+    this.retryPolicies = retryPolicies;
+    this.circuitBreakerRegistry = circuitBreakerRegistry;
+    this.rateLimiterRegistry = rateLimiterRegistry;
+    final var executor = newThreadPerTaskExecutor();
+    this.scheduler = Schedulers.fromExecutorService(executor, "blocking-engine");
+    this.httpClient = HttpClient.newBuilder()
+        .executor(executor)
+        .connectTimeout(engineProperties.connectTimeout())
+        // same as webclient. Refreshers look at redirects themselves (for eg. instahyre redirects to login page once the session expires)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        // protocol is picked per host via ALPN, same as reactor netty does. Plain text hosts (for eg. stub portals) are still talked to over http/1.1
+        .version(httpClientProperties.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+        .sslContext(sslContextOf(httpClientProperties))
+        .sslParameters(new SSLParameters(null, new String[]{"TLSv1.3", "TLSv1.2"}))
+        .build();
+    hostToBaseUrl.forEach((host, baseUrl) -> log.warn("Requests to {} are sent to {} instead", host, baseUrl));
+  }
+
+  /**
+   * @param refresh whole refresh of an account, written as blocking code
+   * @return publisher that runs `refresh` on a thread of its own, once subscribed. Reactor context of the subscriber (tenant id, step observer) is available to {@link #send} & {@link #step} of the refresh
+   */
+  public Mono<Void> run(Work refresh) {
+    return Mono.deferContextual(context -> Mono.<Void>fromCallable(() -> {
+          CONTEXT.set(context);
+          try {
+            refresh.run();
+            return null;
+          } finally {
+            CONTEXT.remove();
+          }
+        }))
+        .subscribeOn(scheduler);
+  }
+
+  /**
+   * Runs a single step of the refresh & reports it to the {@link StepObserver} in the reactor context of the refresh (if any)
+   */
+  public <T> T step(String step, Callable<T> work) throws Exception {
+    final var phaseTimings = new PhaseTimings();
+    PHASE_TIMINGS.set(phaseTimings);
+    final var startedAtNanos = System.nanoTime();
+    try {
+      final var output = work.call();
+      onStepFinished(step, startedAtNanos, phaseTimings, null);
+      return output;
+    } catch (Exception e) {
+      onStepFinished(step, startedAtNanos, phaseTimings, e);
+      throw e;
+    } finally {
+      PHASE_TIMINGS.remove();
+    }
+  }
+
+  /**
+   * Same as {@link #step(String, Callable)}, but for steps without an output
+   */
+  public void step(String step, Work work) throws Exception {
+    step(step, () -> {
+      work.run();
+      return null;
+    });
+  }
+
+  /**
+   * Makes `attempt` (typically a single {@link #send}) & retries it as per the retry policy of `step`, logging each attempt the way reactive refreshers do
+   *
+   * @param step `portal.step` (for eg. `naukri.upload-resume`). Used to lookup step specific retry policy
+   * @param action what the attempt does, for logs
+   */
+  public <T> T attempt(String step, String action, Callable<T> attempt) throws Exception {
+    return retryPolicies.call(step, logged(action, attempt));
+  }
+
+  /**
+   * Same as {@link #attempt}, but for requests that must not reach the portal twice (for eg. login, delete). Only failures that happened before the request was sent are retried (see {@link RetryPolicies#callNonIdempotent})
+   */
+  public <T> T attemptNonIdempotent(String step, String action, Callable<T> attempt) throws Exception {
+    return retryPolicies.callNonIdempotent(step, logged(action, attempt));
+  }
+
+  private static <T> Callable<T> logged(String action, Callable<T> attempt) {
+    return () -> {
+      log.info("Attempting to {}", action);
+      try {
+        final var output = attempt.call();
+        log.info("Finished attempt to {}. Succeeded", action);
+        return output;
+      } catch (Exception e) {
+        log.info("Finished attempt to {}. Failed with {}", action, e.toString());
+        throw e;
+      }
+    };
+  }
+
+  /**
+   * Sends `request` through the circuit breaker & rate limiter of its host & records the exchange (if the refresh is being recorded). Requests meant for an overridden host (see `app.http.host-overrides`) are sent to its base url instead, while resilience is still applied against the original host
+   *
+   * @throws WebClientResponseException if the portal responded with 4xx/5xx, same as what webclient's `retrieve()` does
+   */
+  public <T> HttpResponse<T> send(HttpRequest request, BodyHandler<T> bodyHandler) throws Exception {
+    final var host = request.uri().getHost();
+    final var actualRequest = overridden(request);
+    // recorded exactly as it goes over the wire, same as the flight recorder's webclient filter does
+    final var exchange = FlightRecorder.start(CONTEXT.get(), actualRequest.method(), actualRequest.uri(), headersOf(actualRequest.headers()));
+    final var sentRequest = exchange.map(recordedExchange -> recording(actualRequest, recordedExchange)).orElse(actualRequest);
+    final var sentBodyHandler = exchange.map(recordedExchange -> recording(bodyHandler, recordedExchange)).orElse(bodyHandler);
+    final var startedAtNanos = System.nanoTime();
+    final HttpResponse<T> response;
+    try {
+      response = circuitBreakerRegistry.send(host, () -> rateLimiterRegistry.send(host, tenantId(), () -> httpClient.send(sentRequest, sentBodyHandler)));
+    } catch (Exception e) {
+      exchange.ifPresent(recordedExchange -> recordedExchange.failed(e));
+      throw e;
+    }
+    final var phaseTimings = PHASE_TIMINGS.get();
+    if (phaseTimings != null) {
+      // jdk http client does not tell us how long connect, tls handshake etc took. So, lets attribute the whole exchange to the step
+      phaseTimings.add("exchange", Duration.ofNanos(System.nanoTime() - startedAtNanos));
+    }
+    if (response.statusCode() >= 400) {
+      throw failureOf(response);
+    }
+    return response;
+  }
+
+  /**
+   * @return builder of a request to `uri`, with timeout of the engine
+   */
+  public HttpRequest.Builder request(URI uri) {
+    return HttpRequest.newBuilder(uri).timeout(engineProperties.requestTimeout());
+  }
+
+  /**
+   * @param buffers read-only views of (for eg. stored resume) content. Written as is, without copying them into intermediate buffers
+   */
+  public static BodyPublisher fromBuffers(Publisher<ByteBuffer> buffers, long contentLength) {
+    return BodyPublishers.fromPublisher(JdkFlowAdapter.publisherToFlowPublisher(buffers), contentLength);
+  }
+
+  /**
+   * @return body of `response` read as json using `codec`
+   * @throws PortalContractException if the body is empty or is not json of the shape `codec` expects
+   */
+  public static <T> T readJson(JsonCodec<T> codec, HttpResponse<byte[]> response) {
+    final T value;
+    try {
+      value = JsonCodecs.readValue(codec, response.body());
+    } catch (DecodingException e) {
+      throw new PortalContractException("Unable to read " + codec.type().getSimpleName() + " from response of " + response.uri(), e);
+    }
+    if (value == null) {
+      throw new PortalContractException("Expected " + codec.type().getSimpleName() + " in response of " + response.uri() + ", but the body is empty");
+    }
+    return value;
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.dispose();
+  }
+
+  private HttpRequest overridden(HttpRequest request) {
+    final var baseUrl = hostToBaseUrl.get(request.uri().getHost());
+    if (baseUrl == null) {
+      return request;
+    }
+    final var overriddenUri = UriComponentsBuilder.fromUri(request.uri())
+        .scheme(baseUrl.getScheme())
+        .host(baseUrl.getHost())
+        .port(baseUrl.getPort())
+        .build(true)
+        .toUri();
+    return HttpRequest.newBuilder(request, (name, value) -> true).uri(overriddenUri).build();
+  }
+
+  private static HttpRequest recording(HttpRequest request, RecordedExchange exchange) {
+    final var bodyPublisher = request.bodyPublisher().orElse(null);
+    if (bodyPublisher == null) {
+      return request;
+    }
+    return HttpRequest.newBuilder(request, (name, value) -> true)
+        .method(request.method(), new BodyPublisher() {
+          @Override
+          public long contentLength() {
+            return bodyPublisher.contentLength();
+          }
+
+          @Override
+          public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            bodyPublisher.subscribe(new Flow.Subscriber<>() {
+              @Override
+              public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(subscription);
+              }
+
+              @Override
+              public void onNext(ByteBuffer chunk) {
+                exchange.requestBodySent(chunk);
+                subscriber.onNext(chunk);
+              }
+
+              @Override
+              public void onError(Throwable error) {
+                subscriber.onError(error);
+              }
+
+              @Override
+              public void onComplete() {
+                subscriber.onComplete();
+              }
+            });
+          }
+        })
+        .build();
+  }
+
+  private static <T> BodyHandler<T> recording(BodyHandler<T> bodyHandler, RecordedExchange exchange) {
+    return responseInfo -> {
+      exchange.responded(responseInfo.statusCode(), headersOf(responseInfo.headers()));
+      final var bodySubscriber = bodyHandler.apply(responseInfo);
+      return new BodySubscriber<>() {
+        @Override
+        public CompletionStage<T> getBody() {
+          return bodySubscriber.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+          bodySubscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> chunks) {
+          chunks.forEach(exchange::responseBodyReceived);
+          bodySubscriber.onNext(chunks);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+          bodySubscriber.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+          bodySubscriber.onComplete();
+        }
+      };
+    };
+  }
+
+  private static HttpHeaders headersOf(java.net.http.HttpHeaders jdkHeaders) {
+    final var headers = new HttpHeaders();
+    jdkHeaders.map().forEach(headers::addAll);
+    return headers;
+  }
+
+  private static String tenantId() {
+    final var context = CONTEXT.get();
+    return context != null ? context.getOrDefault(RateLimiterRegistry.TENANT_ID_CONTEXT_KEY, null) : null;
+  }
+
+  private static void onStepFinished(String step, long startedAtNanos, PhaseTimings phaseTimings, Throwable error) {
+    final var context = CONTEXT.get();
+    if (context != null) {
+      context.<StepObserver>getOrEmpty(StepObserver.class)
+          .ifPresent(observer -> observer.onStepFinished(step, Duration.ofNanos(System.nanoTime() - startedAtNanos), phaseTimings, error));
+    }
+  }
+
+  private static WebClientResponseException failureOf(HttpResponse<?> response) throws Exception {
+    final byte[] body;
+    if (response.body() instanceof byte[] bytes) {
+      body = bytes;
+    } else {
+      if (response.body() instanceof InputStream stream) {
+        // lets not leave the connection hanging with an unread body
+        stream.close();
+      }
+      body = new byte[0];
+    }
+    final var status = HttpStatus.resolve(response.statusCode());
+    return WebClientResponseException.create(response.statusCode(), status != null ? status.getReasonPhrase() : "", headersOf(response.headers()), body, UTF_8);
+  }
+
+  /**
+   * Same ssl settings as the ssl context reactor netty connections share (see `ResumeRefresherConfiguration#portalSslContext`)
+   */
+  private static SSLContext sslContextOf(HttpClientProperties httpClientProperties) {
+    try {
+      final var sslContext = SSLContext.getInstance("TLS");
+      sslContext.init(null, null, null);
+      sslContext.getClientSessionContext().setSessionCacheSize(httpClientProperties.tls().sessionCacheSize());
+      sslContext.getClientSessionContext().setSessionTimeout((int) httpClientProperties.tls().sessionTimeout().toSeconds());
+      return sslContext;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Could not create ssl context for portal connections", e);
+    }
+  }
+
+  /**
+   * Looked up reflectively, as the build targets java 17 where virtual threads are not available
+   */
+  private static ExecutorService newThreadPerTaskExecutor() {
+    try {
+      final var executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      log.info("Blocking engine runs refreshes on virtual threads");
+      return executor;
+    } catch (ReflectiveOperationException e) {
+      log.warn("Virtual threads need java 21 or later. Blocking engine runs refreshes on platform threads instead");
+      final var threadCount = new AtomicInteger();
+      return Executors.newCachedThreadPool(runnable -> {
+        final var thread = new Thread(runnable, "blocking-engine-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Blocking work without an output
+   */
+  @FunctionalInterface
+  public interface Work {
+    void run() throws Exception;
+  }
+}
@@ -0,0 +1,28 @@
+package com.acme.resume.refresh.blocking;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param type engine refreshers run on. Picked at startup
+ * @param connectTimeout max time the blocking engine waits for a connection to a portal host to be established
+ * @param requestTimeout max time the blocking engine waits for the response of a single request (every retry gets its own)
+ */
+@ConfigurationProperties("app.engine")
+public record EngineProperties(@DefaultValue("reactor") Type type,
+                               @DefaultValue("10s") Duration connectTimeout,
+                               @DefaultValue("30s") Duration requestTimeout) {
+
+  public enum Type {
+    /**
+     * Refreshers are reactor pipelines over webclient (reactor netty)
+     */
+    REACTOR,
+    /**
+     * Portals with a blocking port (naukri & instahyre) are refreshed by straight line blocking code on a virtual thread per refresh, using jdk http client. Other portals stay on reactor
+     */
+    BLOCKING
+  }
+}
@@ -0,0 +1,15 @@
+package com.acme.resume.refresh.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Has `codec-processor` generate a {@link JsonCodec} named `<record>JsonCodec` next to the annotated record at compile time & register it with every portal's webclient (see {@link JsonCodecs#register}).
+ * Json property names honour {@link com.fasterxml.jackson.annotation.JsonProperty}. Components can be of type {@link String}, `int`, `long`, `double`, `boolean`, records annotated with this annotation & {@link java.util.List}s of either of the non primitive ones. Anything else fails the compilation
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateJsonCodec {
+}
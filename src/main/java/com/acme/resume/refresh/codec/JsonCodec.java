@@ -0,0 +1,20 @@
+package com.acme.resume.refresh.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Reads/writes a record directly from/to jackson's streaming api, without any reflection. Implementations are generated for records annotated with {@link GenerateJsonCodec}
+ */
+public interface JsonCodec<T> {
+  Class<T> type();
+
+  /**
+   * @param parser positioned at the start of the object
+   */
+  T read(JsonParser parser) throws IOException;
+
+  void write(JsonGenerator generator, T value) throws IOException;
+}
@@ -0,0 +1,72 @@
+package com.acme.resume.refresh.codec;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes json bodies into records using their generated {@link JsonCodec}. Bodies are joined (upto `maxInMemorySize` bytes) & parsed in one go, same as jackson's decoder does for `bodyToMono`
+ */
+class JsonCodecDecoder implements Decoder<Object> {
+  static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+
+  private final Map<Class<?>, JsonCodec<?>> codecs;
+  private final int maxInMemorySize;
+
+  JsonCodecDecoder(Map<Class<?>, JsonCodec<?>> codecs, int maxInMemorySize) {
+    this.codecs = codecs;
+    this.maxInMemorySize = maxInMemorySize;
+  }
+
+  static boolean supports(MimeType mimeType) {
+    return mimeType == null || MIME_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType));
+  }
+
+  @Override
+  public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+    return codecs.containsKey(elementType.toClass()) && supports(mimeType);
+  }
+
+  @Override
+  public Flux<Object> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+    return decodeToMono(inputStream, elementType, mimeType, hints).flux();
+  }
+
+  @Override
+  public Mono<Object> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+    return DataBufferUtils.join(inputStream, maxInMemorySize)
+        .flatMap(dataBuffer -> Mono.justOrEmpty(decode(dataBuffer, elementType, mimeType, hints)));
+  }
+
+  @Override
+  public Object decode(DataBuffer buffer, ResolvableType targetType, MimeType mimeType, Map<String, Object> hints) throws DecodingException {
+    final var codec = codecs.get(targetType.toClass());
+    try (final var parser = JsonCodecs.JSON_FACTORY.createParser(buffer.asInputStream())) {
+      // empty body
+      if (parser.nextToken() == null) {
+        return null;
+      }
+      return JsonValues.readObject(parser, codec);
+    } catch (IOException e) {
+      throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  @Override
+  public List<MimeType> getDecodableMimeTypes() {
+    return MIME_TYPES;
+  }
+}
@@ -0,0 +1,57 @@
+package com.acme.resume.refresh.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes records using their generated {@link JsonCodec} straight into a single buffer obtained from the connection's allocator
+ */
+class JsonCodecEncoder implements Encoder<Object> {
+  private final Map<Class<?>, JsonCodec<?>> codecs;
+
+  JsonCodecEncoder(Map<Class<?>, JsonCodec<?>> codecs) {
+    this.codecs = codecs;
+  }
+
+  @Override
+  public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+    return codecs.containsKey(elementType.toClass()) && JsonCodecDecoder.supports(mimeType);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+    return Flux.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints));
+  }
+
+  @Override
+  public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType, MimeType mimeType, Map<String, Object> hints) {
+    @SuppressWarnings("unchecked") final var codec = (JsonCodec<Object>) codecs.get(valueType.toClass());
+    final var buffer = bufferFactory.allocateBuffer();
+    try {
+      try (final var generator = JsonCodecs.JSON_FACTORY.createGenerator(buffer.asOutputStream(), JsonEncoding.UTF8)) {
+        JsonValues.writeObject(generator, value, codec);
+      }
+      return buffer;
+    } catch (IOException e) {
+      DataBufferUtils.release(buffer);
+      throw new EncodingException("JSON encoding error: " + e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public List<MimeType> getEncodableMimeTypes() {
+    return JsonCodecDecoder.MIME_TYPES;
+  }
+}
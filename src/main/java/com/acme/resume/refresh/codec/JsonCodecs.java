@@ -0,0 +1,64 @@
+package com.acme.resume.refresh.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import lombok.experimental.UtilityClass;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.codec.CodecConfigurer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toUnmodifiableMap;
+
+@UtilityClass
+public class JsonCodecs {
+  static final JsonFactory JSON_FACTORY = new JsonFactory();
+  // same as the limit spring applies to its own decoders by default
+  private static final int MAX_IN_MEMORY_SIZE = 256 * 1024;
+  // GeneratedJsonCodecs is written by codec-processor & lists codecs of every record annotated with @GenerateJsonCodec
+  private static final Map<Class<?>, JsonCodec<?>> CODECS = GeneratedJsonCodecs.ALL.stream().collect(toUnmodifiableMap(JsonCodec::type, Function.identity()));
+
+  /**
+   * Lets generated codecs take precedence over jackson's (reflective) json codecs for the records they cover. Every other type is still handled by jackson
+   */
+  public static void register(CodecConfigurer codecConfigurer) {
+    codecConfigurer.customCodecs().register(new JsonCodecDecoder(CODECS, MAX_IN_MEMORY_SIZE));
+    codecConfigurer.customCodecs().register(new JsonCodecEncoder(CODECS));
+  }
+
+  public static <T> String writeValueAsString(JsonCodec<T> codec, T value) throws IOException {
+    final var writer = new StringWriter();
+    try (final var generator = JSON_FACTORY.createGenerator(writer)) {
+      JsonValues.writeObject(generator, value, codec);
+    }
+    return writer.toString();
+  }
+
+  public static <T> byte[] writeValueAsBytes(JsonCodec<T> codec, T value) throws IOException {
+    final var out = new ByteArrayOutputStream(256);
+    try (final var generator = JSON_FACTORY.createGenerator(out)) {
+      JsonValues.writeObject(generator, value, codec);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Same as what {@link JsonCodecDecoder} does with a response body, for callers that read the body themselves (for eg. jdk http client)
+   *
+   * @return `null` for an empty body
+   * @throws DecodingException if the json does not fit the record, same as webclient would
+   */
+  public static <T> T readValue(JsonCodec<T> codec, byte[] json) {
+    try (final var parser = JSON_FACTORY.createParser(json)) {
+      if (parser.nextToken() == null) {
+        return null;
+      }
+      return JsonValues.readObject(parser, codec);
+    } catch (IOException e) {
+      throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.acme.resume.refresh.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads/writes individual values on behalf of generated {@link JsonCodec}s. Each read expects the parser to be positioned at the value & leaves it at the last token of the value.
+ * Missing/`null` values are read as `null`/`0`/`false` & scalars are coerced the way jackson does by default
+ */
+@UtilityClass
+public class JsonValues {
+
+  public static void expectStartObject(JsonParser parser, Class<?> type) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException(parser, "Expected an object for " + type.getSimpleName() + ", but found " + parser.currentToken());
+    }
+  }
+
+  public static String readString(JsonParser parser) throws IOException {
+    expectScalar(parser);
+    return parser.getValueAsString();
+  }
+
+  public static int readInt(JsonParser parser) throws IOException {
+    expectScalar(parser);
+    return parser.getValueAsInt();
+  }
+
+  public static long readLong(JsonParser parser) throws IOException {
+    expectScalar(parser);
+    return parser.getValueAsLong();
+  }
+
+  public static double readDouble(JsonParser parser) throws IOException {
+    expectScalar(parser);
+    return parser.getValueAsDouble();
+  }
+
+  public static boolean readBoolean(JsonParser parser) throws IOException {
+    expectScalar(parser);
+    return parser.getValueAsBoolean();
+  }
+
+  public static <T> T readObject(JsonParser parser, JsonCodec<T> codec) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return codec.read(parser);
+  }
+
+  public static <T> List<T> readList(JsonParser parser, ValueReader<T> elementReader) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      throw new JsonParseException(parser, "Expected an array, but found " + parser.currentToken());
+    }
+    final var elements = new ArrayList<T>();
+    // parser fails on its own if the input ends before the array does
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      elements.add(elementReader.read(parser));
+    }
+    return elements;
+  }
+
+  public static <T> void writeObject(JsonGenerator generator, T value, JsonCodec<T> codec) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      codec.write(generator, value);
+    }
+  }
+
+  public static <T> void writeList(JsonGenerator generator, List<T> values, ValueWriter<T> elementWriter) throws IOException {
+    if (values == null) {
+      generator.writeNull();
+      return;
+    }
+    generator.writeStartArray();
+    for (T value : values) {
+      elementWriter.write(generator, value);
+    }
+    generator.writeEndArray();
+  }
+
+  private static void expectScalar(JsonParser parser) throws IOException {
+    if (!parser.currentToken().isScalarValue()) {
+      throw new JsonParseException(parser, "Expected a scalar value, but found " + parser.currentToken());
+    }
+  }
+
+  @FunctionalInterface
+  public interface ValueReader<T> {
+    T read(JsonParser parser) throws IOException;
+  }
+
+  @FunctionalInterface
+  public interface ValueWriter<T> {
+    void write(JsonGenerator generator, T value) throws IOException;
+  }
+}
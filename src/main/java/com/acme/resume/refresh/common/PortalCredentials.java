@@ -0,0 +1,6 @@
+package com.acme.resume.refresh.common;
+
+import javax.validation.constraints.NotEmpty;
+
+public record PortalCredentials(@NotEmpty String username, @NotEmpty String password) {
+}
@@ -0,0 +1,9 @@
+package com.acme.resume.refresh.common;
+
+import java.time.Duration;
+
+/**
+ * Result of refreshing resume of a single tenant on a single portal
+ */
+public record RefreshOutcome(String tenantId, String portal, boolean success, Duration elapsed, Throwable error) {
+}
@@ -0,0 +1,21 @@
+package com.acme.resume.refresh.common;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.constraints.Min;
+import java.util.Map;
+
+/**
+ * @param parallelism max number of portals refreshed at the same time. `1` gives back the old strictly sequential behaviour
+ * @param order ordering hints keyed by {@link ResumeRefresher#portal()}. Lower value gets subscribed first. Portals without a hint go last
+ */
+@ConfigurationProperties("app.refresh")
+public record RefreshProperties(@DefaultValue("3") @Min(1) int parallelism, Map<String, Integer> order) {
+  public int orderOf(String portal) {
+    if (order == null) {
+      return Integer.MAX_VALUE;
+    }
+    return order.getOrDefault(portal, Integer.MAX_VALUE);
+  }
+}
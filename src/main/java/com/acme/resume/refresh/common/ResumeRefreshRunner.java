@@ -0,0 +1,91 @@
+package com.acme.resume.refresh.common;
+
+import com.acme.resume.refresh.http.FlightRecorder;
+import com.acme.resume.refresh.metrics.RefreshMetrics;
+import com.acme.resume.refresh.resilience.FailureKind;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.step.StepObserver;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs refreshers of each tenant concurrently (bounded by `app.refresh.parallelism`) & reports outcome of each portal separately.
+ * Tenants themselves are refreshed concurrently upto the specified tenant parallelism & failure of one tenant does not affect others
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(RefreshProperties.class)
+public class ResumeRefreshRunner {
+  private final RefreshProperties refreshProperties;
+  private final FlightRecorder flightRecorder;
+  private final RefreshMetrics refreshMetrics;
+
+  public ResumeRefreshRunner(@Valid RefreshProperties refreshProperties, FlightRecorder flightRecorder, RefreshMetrics refreshMetrics) {
+    this.refreshProperties = refreshProperties;
+    this.flightRecorder = flightRecorder;
+    this.refreshMetrics = refreshMetrics;
+  }
+
+  public Mono<Void> refresh(List<Tenant> tenants, int tenantParallelism) {
+    final List<RefreshOutcome> outcomes = Collections.synchronizedList(new ArrayList<>());
+    return Flux.fromIterable(tenants)
+        // errors of a tenant are delayed till every other tenant is done
+        .flatMapDelayError(tenant -> refresh(tenant, outcomes), tenantParallelism, 1)
+        .then()
+        .doFinally(__ -> {
+          logSummary(outcomes);
+          refreshMetrics.export();
+        });
+  }
+
+  private Mono<Void> refresh(Tenant tenant, List<RefreshOutcome> outcomes) {
+    final var orderedRefreshers = new ArrayList<>(tenant.refreshers());
+    orderedRefreshers.sort(Comparator.comparingInt(refresher -> refreshProperties.orderOf(refresher.portal())));
+
+    return Flux.fromIterable(orderedRefreshers)
+        // lets allow refresh of resume to proceed even if we fail to refresh in one of the resume service provider. All errors are collected & propagated once every portal is done
+        .flatMapDelayError(refresher -> refreshAndRecordOutcome(tenant, refresher, outcomes), refreshProperties.parallelism(), 1)
+        .then();
+  }
+
+  private Mono<Void> refreshAndRecordOutcome(Tenant tenant, ResumeRefresher refresher, List<RefreshOutcome> outcomes) {
+    return Mono.defer(() -> {
+      final var startedAt = System.nanoTime();
+      return flightRecorder.record(tenant.id() + "-" + refresher.portal(), refresher.refresh())
+          .doOnSuccess(__ -> {
+            final var elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+            outcomes.add(new RefreshOutcome(tenant.id(), refresher.portal(), true, elapsed, null));
+            refreshMetrics.recordRefresh(refresher.portal(), elapsed, null);
+          })
+          .doOnError(e -> {
+            final var elapsed = Duration.ofNanos(System.nanoTime() - startedAt);
+            outcomes.add(new RefreshOutcome(tenant.id(), refresher.portal(), false, elapsed, e));
+            refreshMetrics.recordRefresh(refresher.portal(), elapsed, e);
+          })
+          .contextWrite(context -> context.put(StepObserver.class, refreshMetrics.stepObserverOf(refresher.portal()))
+              .put(RateLimiterRegistry.TENANT_ID_CONTEXT_KEY, tenant.id()));
+    });
+  }
+
+  private void logSummary(List<RefreshOutcome> outcomes) {
+    synchronized (outcomes) {
+      for (RefreshOutcome outcome : outcomes) {
+        if (outcome.success()) {
+          log.info("Refresh of tenant {} on {} succeeded in {}ms", outcome.tenantId(), outcome.portal(), outcome.elapsed().toMillis());
+        } else {
+          log.error("Refresh of tenant {} on {} failed after {}ms. Failure kind: {}; Reason: {}", outcome.tenantId(), outcome.portal(), outcome.elapsed().toMillis(), FailureKind.of(outcome.error()), outcome.error().toString());
+        }
+      }
+    }
+  }
+}
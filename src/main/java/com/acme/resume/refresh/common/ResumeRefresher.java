@@ -3,5 +3,10 @@ package com.acme.resume.refresh.common;
 import reactor.core.publisher.Mono;
 
 public interface ResumeRefresher {
+  /**
+   * @return short name of the portal. Used as key for portal specific configuration such as `app.refresh.order.<portal>` & in logs
+   */
+  String portal();
+
   Mono<Void> refresh();
 }
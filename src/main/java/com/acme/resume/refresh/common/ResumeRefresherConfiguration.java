@@ -1,5 +1,12 @@
 package com.acme.resume.refresh.common;
 
+import com.acme.resume.refresh.http.ConnectionLogger;
+import com.acme.resume.refresh.http.HostOverridingClientHttpConnector;
+import com.acme.resume.refresh.http.HttpClientProperties;
+import com.acme.resume.refresh.http.NetworkTimingRecorder;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,29 +15,97 @@ import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import reactor.netty.http.Http11SslContextSpec;
 import reactor.netty.http.Http2SslContextSpec;
 import reactor.netty.http.client.HttpClient;
-import reactor.netty.tcp.TcpSslContextSpec;
+import reactor.netty.resources.ConnectionProvider;
 
-import java.util.function.Function;
+import javax.net.ssl.SSLException;
+import java.net.InetSocketAddress;
+import java.util.function.Consumer;
 
 import static io.netty.handler.logging.LogLevel.DEBUG;
 import static io.netty.handler.ssl.SslProtocols.TLS_v1_2;
 import static io.netty.handler.ssl.SslProtocols.TLS_v1_3;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static reactor.netty.http.HttpProtocol.H2;
+import static reactor.netty.http.HttpProtocol.HTTP11;
 import static reactor.netty.transport.logging.AdvancedByteBufFormat.TEXTUAL;
 
+@Log4j2
 @Configuration(proxyBeanMethods = false)
-@EnableConfigurationProperties(ResumeProperties.class)
+@EnableConfigurationProperties({ResumeProperties.class, HttpClientProperties.class})
 public final class ResumeRefresherConfiguration {
+  private static final int DEFAULT_PORT = 443;
+
+  /**
+   * Single pool of connections per portal host shared by all refreshers & tenants, so that TLS connections are reused across them
+   */
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider portalConnectionProvider(HttpClientProperties httpClientProperties) {
+    final var builder = ConnectionProvider.builder("portals");
+    final var pool = httpClientProperties.pool();
+    builder.maxConnections(pool.maxConnections())
+        .maxIdleTime(pool.maxIdleTime())
+        .maxLifeTime(pool.maxLifeTime())
+        .evictInBackground(pool.evictionInterval())
+        .pendingAcquireTimeout(pool.pendingAcquireTimeout());
+    if (httpClientProperties.hosts() != null) {
+      httpClientProperties.hosts().forEach((hostAndPort, hostPool) -> builder.forRemoteHost(remoteAddressOf(hostAndPort), hostSpec -> hostSpec
+          .maxConnections(hostPool.maxConnections())
+          .maxIdleTime(hostPool.maxIdleTime())
+          .maxLifeTime(hostPool.maxLifeTime())
+          .evictInBackground(hostPool.evictionInterval())
+          .pendingAcquireTimeout(hostPool.pendingAcquireTimeout())));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Single ssl context shared by all connections, so that tls sessions (and session tickets) negotiated by one connection to a portal host are resumed by later connections to it (of any refresher/tenant) without a full handshake
+   */
+  @Bean
+  public SslContext portalSslContext(HttpClientProperties httpClientProperties) {
+    final var tls = httpClientProperties.tls();
+    final Consumer<SslContextBuilder> configurer = builder -> builder.protocols(TLS_v1_3, TLS_v1_2)
+        .sessionCacheSize(tls.sessionCacheSize())
+        .sessionTimeout(tls.sessionTimeout().toSeconds());
+    try {
+      // http2 spec additionally offers h2 (falling back to http/1.1) via ALPN & restricts ciphers to the ones http2 permits
+      return httpClientProperties.http2() ? Http2SslContextSpec.forClient().configure(configurer).sslContext() : Http11SslContextSpec.forClient().configure(configurer).sslContext();
+    } catch (SSLException e) {
+      throw new IllegalStateException("Could not create ssl context for portal connections", e);
+    }
+  }
+
+  /**
+   * Shared by all refreshers. Connection pools are keyed by client configuration, so refreshers must not customise this client (for eg. with their own wiretap logger) or they will end up with pools of their own
+   */
   @Bean
-  public Function<String, ClientHttpConnector> loggerNameToClientHttpConnectorMapper() {
-    // lets allow the callers to specify the logger name
-    return loggerName -> {
-      HttpClient reactorHttpClient = HttpClient.create()
-//          .protocol(H2, HTTP11) // even tho http2 is performant, we are disabling it here as reactor netty debugging is not that good for http2
-//          .secure(sslContextSpec -> sslContextSpec.sslContext(Http2SslContextSpec.forClient().configure(builder -> builder.protocols(TLS_v1_3, TLS_v1_2))))
-          .secure(sslContextSpec -> sslContextSpec.sslContext(Http11SslContextSpec.forClient().configure(builder -> builder.protocols(TLS_v1_3, TLS_v1_2))))
-          .wiretap(loggerName, DEBUG, TEXTUAL, UTF_8); // capture messages over wire
-      return new ReactorClientHttpConnector(reactorHttpClient);
-    };
+  public ClientHttpConnector portalClientHttpConnector(ConnectionProvider portalConnectionProvider, SslContext portalSslContext, HttpClientProperties httpClientProperties,
+      NetworkTimingRecorder networkTimingRecorder) {
+    HttpClient reactorHttpClient = HttpClient.create(portalConnectionProvider)
+        .keepAlive(true)
+        .metrics(true, () -> networkTimingRecorder)
+        .secure(sslContextSpec -> sslContextSpec.sslContext(portalSslContext));
+    if (httpClientProperties.http2()) {
+      // protocol is picked per host via ALPN. Plain text hosts (for eg. stub portals) are still talked to over http/1.1
+      reactorHttpClient = reactorHttpClient.protocol(H2, HTTP11);
+    }
+    reactorHttpClient = ConnectionLogger.logged(reactorHttpClient);
+    if (httpClientProperties.wiretap()) {
+      reactorHttpClient = reactorHttpClient.wiretap("com.acme.resume.refresh.wire", DEBUG, TEXTUAL, UTF_8); // capture messages over wire
+    }
+    final var clientHttpConnector = networkTimingRecorder.timed(new ReactorClientHttpConnector(reactorHttpClient));
+    if (httpClientProperties.hostOverrides() == null || httpClientProperties.hostOverrides().isEmpty()) {
+      return clientHttpConnector;
+    }
+    httpClientProperties.hostOverrides().forEach((host, baseUrl) -> log.warn("Requests to {} are sent to {} instead", host, baseUrl));
+    return new HostOverridingClientHttpConnector(httpClientProperties.hostOverrides(), clientHttpConnector);
+  }
+
+  private static InetSocketAddress remoteAddressOf(String hostAndPort) {
+    final var separatorIndex = hostAndPort.lastIndexOf(':');
+    if (separatorIndex < 0) {
+      return InetSocketAddress.createUnresolved(hostAndPort, DEFAULT_PORT);
+    }
+    return InetSocketAddress.createUnresolved(hostAndPort.substring(0, separatorIndex), Integer.parseInt(hostAndPort.substring(separatorIndex + 1)));
   }
 }
@@ -0,0 +1,13 @@
+package com.acme.resume.refresh.common;
+
+/**
+ * Creates {@link ResumeRefresher} for an arbitrary account. Used when a single process refreshes resumes of multiple accounts
+ */
+public interface ResumeRefresherFactory {
+  /**
+   * @return same value as {@link ResumeRefresher#portal()} of the refreshers created by this factory
+   */
+  String portal();
+
+  ResumeRefresher create(PortalCredentials credentials, ResumeProperties resumeProperties);
+}
@@ -0,0 +1,12 @@
+package com.acme.resume.refresh.common;
+
+import java.util.List;
+
+/**
+ * An account holder whose resume needs to be refreshed on all portals represented by `refreshers`
+ *
+ * @param resumePath path of the resume file uploaded by `refreshers`
+ */
+public record Tenant(String id, String resumePath, List<ResumeRefresher> refreshers) {
+  public static final String DEFAULT_TENANT_ID = "default";
+}
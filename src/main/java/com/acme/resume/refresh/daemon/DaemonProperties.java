@@ -0,0 +1,19 @@
+package com.acme.resume.refresh.daemon;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled keeps the application running & refreshes resumes every `interval` instead of refreshing once & exiting
+ * @param interval time between end of one refresh & start of next one
+ * @param jitter upper bound of random delay added to `interval`, so that we don't hit portals at exactly the same time every time
+ * @param shutdownTimeout max time to wait for an in-flight refresh to complete when application is asked to shut down
+ */
+@ConfigurationProperties("app.daemon")
+public record DaemonProperties(boolean enabled,
+                               @DefaultValue("30m") Duration interval,
+                               @DefaultValue("2m") Duration jitter,
+                               @DefaultValue("2m") Duration shutdownTimeout) {
+}
@@ -0,0 +1,202 @@
+package com.acme.resume.refresh.daemon;
+
+import com.acme.resume.refresh.common.Tenant;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps the application running & refreshes tenants right after their resume file changes, rather than on a schedule that mostly uploads unchanged files & still delays real changes.
+ * <p>
+ * Parent directories of the resume files are watched (rather than the files themselves), so that editors that save by writing a temp file & renaming it over the resume are noticed as well.
+ * A changed file is refreshed only once it stops changing (`app.watch.debounce`), reads the same (size & content hash) twice in a row `app.watch.stable-for` apart & its content differs from what was last refreshed.
+ * <p>
+ * On shutdown (SIGTERM/SIGINT), watching stops & an in-flight refresh is given `app.watch.shutdown-timeout` to complete before spring disposes rest of the beans
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(WatchProperties.class)
+public class ResumeFileWatcher implements DisposableBean {
+  private final WatchProperties watchProperties;
+  private final CountDownLatch stopRequested = new CountDownLatch(1);
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private volatile WatchService watchService;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public ResumeFileWatcher(WatchProperties watchProperties) {
+    this.watchProperties = watchProperties;
+  }
+
+  public boolean enabled() {
+    return watchProperties.enabled();
+  }
+
+  /**
+   * Blocks the calling thread, refreshes all `tenants` once & then keeps running `refresh$` for tenants whose resume changed till application is shut down. Failure of a refresh does not stop watching
+   */
+  public void run(List<Tenant> tenants, Function<List<Tenant>, Mono<Void>> refresh$) throws IOException, InterruptedException {
+    final Map<Path, List<Tenant>> pathToTenants = tenants.stream()
+        .collect(Collectors.groupingBy(tenant -> Path.of(tenant.resumePath()).toAbsolutePath().normalize(), LinkedHashMap::new, Collectors.toList()));
+    // content each file had when it was last refreshed successfully
+    final Map<Path, Fingerprint> pathToRefreshed = new HashMap<>();
+    // taken before the full refresh, so that a change made during it is still seen as a change
+    final Map<Path, Fingerprint> pathToInitial = new HashMap<>();
+    for (Path path : pathToTenants.keySet()) {
+      pathToInitial.put(path, fingerprintOf(path));
+    }
+    // changed files along with the time (in nanos) at which they are due to be looked at
+    final Map<Path, Long> pathToDueAt = new HashMap<>();
+    try (var watchService = Path.of("").getFileSystem().newWatchService()) {
+      this.watchService = watchService;
+      for (Path directory : pathToTenants.keySet().stream().map(Path::getParent).distinct().toList()) {
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+      }
+      // lets start with a full refresh, so that changes made while the application was not running are not missed. Changes made during this refresh are picked up as they are already being watched
+      if (refresh(refresh$, tenants)) {
+        pathToRefreshed.putAll(pathToInitial);
+      }
+      log.info("Watching {} resume files for changes", pathToTenants.size());
+      while (stopRequested.getCount() > 0) {
+        final var watchKey = pathToDueAt.isEmpty() ? watchService.take() : watchService.poll(millisTill(pathToDueAt.values().stream().min(Long::compare).orElseThrow()), MILLISECONDS);
+        if (watchKey != null) {
+          collectChanges(watchKey, pathToTenants.keySet(), pathToDueAt);
+        }
+        final var now = System.nanoTime();
+        for (Path path : pathToDueAt.entrySet().stream().filter(entry -> entry.getValue() <= now).map(Map.Entry::getKey).toList()) {
+          pathToDueAt.remove(path);
+          final var fingerprint = stableFingerprintOf(path);
+          if (fingerprint == null) {
+            log.debug("{} is still being written (or is missing). Will look at it again in {}ms", path, watchProperties.debounce().toMillis());
+            pathToDueAt.put(path, System.nanoTime() + watchProperties.debounce().toNanos());
+          } else if (!fingerprint.equals(pathToRefreshed.get(path))) {
+            log.info("{} changed. Refreshing {} tenant(s) using it", path, pathToTenants.get(path).size());
+            // lets record the content only once its refreshed, so that a failed refresh is attempted again on the next change event of the file, even if the content stays the same
+            if (refresh(refresh$, pathToTenants.get(path))) {
+              pathToRefreshed.put(path, fingerprint);
+            }
+          }
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      log.info("Stopped watching resume files as shutdown is requested");
+    } finally {
+      stopped.countDown();
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException, IOException {
+    stopRequested.countDown();
+    if (!enabled()) {
+      return;
+    }
+    final var watchService = this.watchService;
+    if (watchService != null) {
+      // wakes up the watching thread if it is waiting for changes
+      watchService.close();
+    }
+    log.info("Shutdown requested. Waiting upto {}s for in-flight refresh to complete", watchProperties.shutdownTimeout().toSeconds());
+    if (!stopped.await(watchProperties.shutdownTimeout().toMillis(), MILLISECONDS)) {
+      log.warn("In-flight refresh did not complete within {}s. Proceeding with shutdown", watchProperties.shutdownTimeout().toSeconds());
+    }
+  }
+
+  private void collectChanges(WatchKey watchKey, Iterable<Path> watchedPaths, Map<Path, Long> pathToDueAt) {
+    final var directory = (Path) watchKey.watchable();
+    final var dueAt = System.nanoTime() + watchProperties.debounce().toNanos();
+    for (var event : watchKey.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // events got dropped. Lets look at every file under this directory
+        watchedPaths.forEach(path -> {
+          if (directory.equals(path.getParent())) {
+            pathToDueAt.put(path, dueAt);
+          }
+        });
+        continue;
+      }
+      final var path = directory.resolve((Path) event.context());
+      for (Path watchedPath : watchedPaths) {
+        if (watchedPath.equals(path)) {
+          // every further event pushes the file back, so that it is looked at only once writes settle down
+          pathToDueAt.put(path, dueAt);
+        }
+      }
+    }
+    watchKey.reset();
+  }
+
+  /**
+   * @return `true` if the refresh succeeded
+   */
+  private boolean refresh(Function<List<Tenant>, Mono<Void>> refresh$, List<Tenant> tenants) {
+    try {
+      refresh$.apply(tenants).block();
+      return true;
+    } catch (RuntimeException e) {
+      log.error("Refresh failed. Will refresh again on next change event of the resume", e);
+      return false;
+    }
+  }
+
+  /**
+   * @return `null` if the file is missing or its size/content changed in between two reads `app.watch.stable-for` apart
+   */
+  private Fingerprint stableFingerprintOf(Path path) throws InterruptedException, IOException {
+    final var first = fingerprintOf(path);
+    if (first == null || stopRequested.await(watchProperties.stableFor().toMillis(), MILLISECONDS)) {
+      return null;
+    }
+    return Objects.equals(first, fingerprintOf(path)) ? first : null;
+  }
+
+  private static Fingerprint fingerprintOf(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      final var digest = MessageDigest.getInstance("SHA-256");
+      final var buffer = new byte[8192];
+      long size = 0;
+      for (int read; (read = in.read(buffer)) != -1; size += read) {
+        digest.update(buffer, 0, read);
+      }
+      return new Fingerprint(size, HexFormat.of().formatHex(digest.digest()));
+    } catch (NoSuchFileException e) {
+      // being renamed over (or) not created yet
+      return null;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static long millisTill(long nanoTime) {
+    return Math.max(1, (nanoTime - System.nanoTime() + 999_999) / 1_000_000);
+  }
+
+  private record Fingerprint(long size, String contentHash) {
+  }
+}
@@ -0,0 +1,76 @@
+package com.acme.resume.refresh.daemon;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps refreshing resumes on a schedule within the same JVM, so that spring context, web clients, connection pools & JIT compiled code are reused across runs.
+ * <p>
+ * On shutdown (SIGTERM/SIGINT), no new refresh is started & an in-flight refresh is given `app.daemon.shutdown-timeout` to complete before spring disposes rest of the beans
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(DaemonProperties.class)
+public class ResumeRefreshDaemon implements DisposableBean {
+  private final DaemonProperties daemonProperties;
+  private final CountDownLatch stopRequested = new CountDownLatch(1);
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public ResumeRefreshDaemon(DaemonProperties daemonProperties) {
+    this.daemonProperties = daemonProperties;
+  }
+
+  public boolean enabled() {
+    return daemonProperties.enabled();
+  }
+
+  /**
+   * Blocks the calling thread & keeps running `refresh$` till application is shut down. Failure of a run does not stop subsequent runs
+   */
+  public void run(Supplier<Mono<Void>> refresh$) throws InterruptedException {
+    try {
+      while (stopRequested.getCount() > 0) {
+        try {
+          refresh$.get().block();
+        } catch (RuntimeException e) {
+          log.error("Scheduled refresh failed. Will try again in next run", e);
+        }
+        final var delay = nextDelay();
+        log.info("Next refresh is scheduled to run in {}s", delay.toSeconds());
+        if (stopRequested.await(delay.toMillis(), MILLISECONDS)) {
+          log.info("Stopping scheduled refreshes as shutdown is requested");
+        }
+      }
+    } finally {
+      stopped.countDown();
+    }
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    stopRequested.countDown();
+    if (!enabled()) {
+      return;
+    }
+    log.info("Shutdown requested. Waiting upto {}s for in-flight refresh to complete", daemonProperties.shutdownTimeout().toSeconds());
+    if (!stopped.await(daemonProperties.shutdownTimeout().toMillis(), MILLISECONDS)) {
+      log.warn("In-flight refresh did not complete within {}s. Proceeding with shutdown", daemonProperties.shutdownTimeout().toSeconds());
+    }
+  }
+
+  private Duration nextDelay() {
+    final var jitterMillis = daemonProperties.jitter().toMillis();
+    return daemonProperties.interval().plusMillis(jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+  }
+}
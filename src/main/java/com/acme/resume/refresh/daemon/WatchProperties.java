@@ -0,0 +1,19 @@
+package com.acme.resume.refresh.daemon;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param enabled keeps the application running & refreshes tenants as soon as their resume file changes, instead of refreshing once & exiting
+ * @param debounce a changed file is looked at only once it goes this long without further change events, as editors & copies write a file in multiple steps
+ * @param stableFor size & content hash of a changed file must stay the same across two reads this far apart, before it is considered completely written
+ * @param shutdownTimeout max time to wait for an in-flight refresh to complete when application is asked to shut down
+ */
+@ConfigurationProperties("app.watch")
+public record WatchProperties(boolean enabled,
+                              @DefaultValue("2s") Duration debounce,
+                              @DefaultValue("1s") Duration stableFor,
+                              @DefaultValue("2m") Duration shutdownTimeout) {
+}
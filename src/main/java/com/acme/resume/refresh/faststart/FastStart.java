@@ -0,0 +1,109 @@
+package com.acme.resume.refresh.faststart;
+
+import lombok.extern.log4j.Log4j2;
+import org.crac.CheckpointException;
+import org.crac.Core;
+import org.crac.RestoreException;
+import reactor.netty.http.HttpResources;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Launch modes that cut down startup time of the cron launched process, selected by `--app.fast-start.mode`
+ * <ul>
+ *   <li>`training` boots the application with placeholder credentials & exits without refreshing. Run under `-XX:ArchiveClassesAtExit` to create an AppCDS archive of every class needed to boot (see `./gradlew cdsArchive`)</li>
+ *   <li>`checkpoint` does the same warm up & then checkpoints the JVM using CRaC (needs a CRaC enabled JDK & `-XX:CRaCCheckpointTo`). Every `-XX:CRaCRestoreFrom` continues from there & boots the application afresh with the configuration of the restoring process</li>
+ * </ul>
+ * Independently, `--app.fast-start.launcher=functional` registers beans functionally instead of scanning components & applying auto-configuration. Applies to the modes above as well
+ */
+@Log4j2
+public final class FastStart {
+  private static final String MODE_OPTION = "--app.fast-start.mode=";
+  private static final String LAUNCHER_OPTION = "--app.fast-start.launcher=";
+  private static final String[] TRAINING_ARGS = {
+      "--app.fast-start.exit-after-startup=true",
+      // placeholder credentials, so that refreshers of every portal are built (& their classes loaded) as part of the training
+      "--app.resume.path=training.pdf",
+      "--app.resume.filename=training.pdf",
+      "--app.naukri.username=training",
+      "--app.naukri.password=training",
+      "--app.monster.username=training",
+      "--app.monster.password=training",
+      "--app.instahyre.username=training",
+      "--app.instahyre.password=training",
+      // lets not touch files of the real runs
+      "--app.session-cache.secret=",
+      "--app.asset-cache.file=",
+      "--app.journal.file=",
+      "--app.metrics.prometheus-file=",
+      "--app.metrics.port="
+  };
+
+  private FastStart() {
+  }
+
+  public enum Mode {
+    NONE, TRAINING, CHECKPOINT
+  }
+
+  public enum Launcher {
+    /**
+     * Component scanning, auto-configuration & conditions. What a regular spring boot application does
+     */
+    ANNOTATION,
+    /**
+     * Beans are registered by hand. Nothing is scanned, no condition is evaluated & properties are bound without validation
+     */
+    FUNCTIONAL
+  }
+
+  public static Mode modeOf(String[] args) {
+    return optionOf(args, MODE_OPTION, Mode.class, Mode.NONE);
+  }
+
+  public static Launcher launcherOf(String[] args) {
+    return optionOf(args, LAUNCHER_OPTION, Launcher.class, Launcher.ANNOTATION);
+  }
+
+  private static <T extends Enum<T>> T optionOf(String[] args, String option, Class<T> type, T defaultValue) {
+    return Arrays.stream(args)
+        .filter(arg -> arg.startsWith(option))
+        .map(arg -> Enum.valueOf(type, arg.substring(option.length()).toUpperCase(Locale.ROOT)))
+        .reduce((first, second) -> second)
+        .orElse(defaultValue);
+  }
+
+  /**
+   * @param application runs the application with given args & returns once its ready (or done)
+   */
+  public static void train(Function<String[], AutoCloseable> application) {
+    final var startedAt = System.nanoTime();
+    try (final var __ = application.apply(TRAINING_ARGS)) {
+      log.info("Training run started up in {}ms", Duration.ofNanos(System.nanoTime() - startedAt).toMillis());
+    } catch (Exception e) {
+      throw new IllegalStateException("Training run failed", e);
+    }
+  }
+
+  /**
+   * Warms up the JVM with a training run & checkpoints it. Returns only in the restored process
+   *
+   * @return args the application should be run with after restore. Args of the checkpointing process are stale by then, so configuration has to come from environment variables, system properties & config files of the restoring process, all of which are read afresh
+   */
+  public static String[] checkpoint(Function<String[], AutoCloseable> application) {
+    train(application);
+    // netty event loops hold selectors (i.e. open file descriptors) which can not be checkpointed. They are recreated on first use after restore
+    HttpResources.disposeLoopsAndConnectionsLater(Duration.ZERO, Duration.ZERO).block();
+    try {
+      log.info("Checkpointing JVM");
+      Core.checkpointRestore();
+    } catch (CheckpointException | RestoreException | UnsupportedOperationException e) {
+      throw new IllegalStateException("Unable to checkpoint/restore. Make sure you are running a CRaC enabled JDK with -XX:CRaCCheckpointTo=<dir>", e);
+    }
+    log.info("Restored JVM from checkpoint");
+    return new String[0];
+  }
+}
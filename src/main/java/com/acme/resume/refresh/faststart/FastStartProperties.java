@@ -0,0 +1,11 @@
+package com.acme.resume.refresh.faststart;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param exitAfterStartup whether the application exits as soon as it is ready to refresh, without refreshing. Used by training runs & to measure startup
+ */
+@ConfigurationProperties("app.fast-start")
+public record FastStartProperties(@DefaultValue("false") boolean exitAfterStartup) {
+}
@@ -0,0 +1,87 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keeps a copy of leading bytes of a body (upto a limit) as it flows through, without consuming it
+ */
+final class BodyCapture {
+  // json (`"password":"..."`) & form (`password=...`) fields carrying credentials/tokens. `value` fields are included, as sessions are handed out as json cookies (for eg. naukri login responds with
+  // `{"cookies":[{"name":"nauk_at","value":"<jwt>"}]}`). Values cut short by truncation are matched as well
+  private static final Pattern JSON_SECRET_FIELD_PATTERN = Pattern.compile("(?i)(\"(?:[a-z_]*(?:password|passwd|secret|token)[a-z_]*|value)\"\\s*:\\s*\")(?:\\\\.|[^\"\\\\])*");
+  private static final Pattern FORM_SECRET_FIELD_PATTERN = Pattern.compile("(?i)((?:^|&)[a-z_]*(?:password|passwd|secret|token)[a-z_]*=)[^&\\s]*");
+  // json web tokens wherever they appear. Base64 of their `{"` header always starts with `eyJ`
+  private static final Pattern JWT_PATTERN = Pattern.compile("eyJ[A-Za-z0-9_-]*(?:\\.[A-Za-z0-9_-]*){0,2}");
+
+  private final byte[] leadingBytes;
+  private int captured;
+  private long total;
+
+  BodyCapture(int limit) {
+    this.leadingBytes = new byte[limit];
+  }
+
+  synchronized void capture(DataBuffer buffer) {
+    final var readable = buffer.readableByteCount();
+    total += readable;
+    final var length = Math.min(readable, leadingBytes.length - captured);
+    if (length > 0) {
+      buffer.asByteBuffer(buffer.readPosition(), length).get(leadingBytes, captured, length);
+      captured += length;
+    }
+  }
+
+  /**
+   * Same as {@link #capture(DataBuffer)}, for bodies that don't go through webclient. Position of `buffer` is left as is
+   */
+  synchronized void capture(ByteBuffer buffer) {
+    final var readable = buffer.remaining();
+    total += readable;
+    final var length = Math.min(readable, leadingBytes.length - captured);
+    if (length > 0) {
+      buffer.duplicate().get(leadingBytes, captured, length);
+      captured += length;
+    }
+  }
+
+  synchronized String render() {
+    if (total == 0) {
+      return "<empty>";
+    }
+    final var text = redacted(printable(new String(Arrays.copyOf(leadingBytes, captured), UTF_8)));
+    return total > captured ? text + "\n<truncated. Captured " + captured + " of " + total + " bytes>" : text;
+  }
+
+  /**
+   * Values of credential/token fields are dropped, same as values of headers carrying sessions are
+   */
+  private static String redacted(String text) {
+    final var redacted = JSON_SECRET_FIELD_PATTERN.matcher(text).replaceAll("$1<redacted>");
+    return withoutJwts(FORM_SECRET_FIELD_PATTERN.matcher(redacted).replaceAll("$1<redacted>"));
+  }
+
+  /**
+   * Also applied to urls & values of headers that are not redacted as a whole
+   */
+  static String withoutJwts(String text) {
+    return JWT_PATTERN.matcher(text).replaceAll("<redacted>");
+  }
+
+  private static String printable(String text) {
+    final var printable = new StringBuilder(text.length());
+    text.codePoints().forEach(codePoint -> {
+      if (codePoint == '\n' || codePoint == '\r' || codePoint == '\t' || !Character.isISOControl(codePoint)) {
+        printable.appendCodePoint(codePoint);
+      } else {
+        printable.append('.');
+      }
+    });
+    return printable.toString();
+  }
+}
@@ -0,0 +1,74 @@
+package com.acme.resume.refresh.http;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.util.AttributeKey;
+import lombok.experimental.UtilityClass;
+import lombok.extern.log4j.Log4j2;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+
+import static io.netty.handler.ssl.ApplicationProtocolNames.HTTP_1_1;
+
+/**
+ * Logs what got negotiated for each portal connection (application protocol via ALPN, tls version, cipher suite & whether the tls session was resumed) & which connection (and http2 stream) each request goes over.
+ * <p>
+ * Unlike netty wiretap, nothing but these one liners gets logged, so this stays readable with http2 multiplexing many requests over a single connection. Enable using `--logging.level.com.acme.resume.refresh.http.ConnectionLogger=debug` (or `--app.debug`)
+ */
+@Log4j2
+@UtilityClass
+public class ConnectionLogger {
+  private static final AttributeKey<Long> CONNECTING_AT = AttributeKey.valueOf("resume.refresh.connecting-at");
+  private static final AttributeKey<Boolean> LOGGED = AttributeKey.valueOf("resume.refresh.connection-logged");
+
+  /**
+   * @return client with the logging hooks attached, only if debug logging is enabled. Returned client is meant to be shared, as the hooks become part of the configuration the connection pools are keyed by
+   */
+  public HttpClient logged(HttpClient httpClient) {
+    if (!log.isDebugEnabled()) {
+      return httpClient;
+    }
+    return httpClient
+        .doOnChannelInit((observer, channel, remoteAddress) -> connectionOf(channel).attr(CONNECTING_AT).setIfAbsent(System.currentTimeMillis()))
+        .doOnConnected(ConnectionLogger::logConnected)
+        .doOnRequest(ConnectionLogger::logRequest);
+  }
+
+  private static void logConnected(Connection connection) {
+    final var channel = connectionOf(connection.channel());
+    // with http2, we are notified once per stream. Lets log each connection once
+    if (channel.attr(LOGGED).setIfAbsent(true) != null) {
+      return;
+    }
+    final var sslHandler = channel.pipeline().get(SslHandler.class);
+    if (sslHandler == null) {
+      log.debug("{} connected to {} over plain text", channel.id(), channel.remoteAddress());
+      return;
+    }
+    final var session = sslHandler.engine().getSession();
+    final var connectingAt = channel.attr(CONNECTING_AT).get();
+    // a resumed session is the one negotiated by an earlier connection
+    final var resumed = connectingAt != null && session.getCreationTime() < connectingAt;
+    final var applicationProtocol = sslHandler.applicationProtocol() != null ? sslHandler.applicationProtocol() : HTTP_1_1;
+    log.debug("{} connected to {} using {} over {} ({}), tls session {}", channel.id(), channel.remoteAddress(), applicationProtocol, session.getProtocol(),
+        session.getCipherSuite(), resumed ? "resumed" : "negotiated with a full handshake");
+  }
+
+  private static void logRequest(HttpClientRequest request, Connection connection) {
+    final var channel = connection.channel();
+    if (channel instanceof Http2StreamChannel streamChannel) {
+      log.debug("{} {} over stream {} of {}", request.method(), request.resourceUrl(), streamChannel.stream().id(), channel.parent().id());
+    } else {
+      log.debug("{} {} over {}", request.method(), request.resourceUrl(), channel.id());
+    }
+  }
+
+  /**
+   * @return tcp connection, which is the parent of the channel when the channel is a http2 stream
+   */
+  private static Channel connectionOf(Channel channel) {
+    return channel instanceof Http2StreamChannel ? channel.parent() : channel;
+  }
+}
@@ -0,0 +1,89 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.netty.handler.codec.http.cookie.ClientCookieEncoder.STRICT;
+import static org.springframework.http.HttpHeaders.COOKIE;
+
+/**
+ * Remembers cookies set by portals (per host) & sends them back on subsequent requests to the same host, just like a browser would.
+ * <p>
+ * All cookies of a request (remembered ones along with the ones explicitly added to the request) are sent in a single `Cookie` header, as some portals (for eg. instahyre) are not spec compliant & ignore all but the first `Cookie` header. Explicitly added cookies take precedence over remembered ones with the same name
+ * <p>
+ * Each refresher owns its jar, so cookies of a tenant never leak to another tenant
+ */
+public class CookieJar {
+  private final Map<String, Map<String, String>> hostToCookies = new ConcurrentHashMap<>();
+
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> {
+      final var host = request.url().getHost();
+      return next.exchange(withCookies(host, request))
+          .doOnNext(response -> remember(host, response.cookies()));
+    };
+  }
+
+  public Optional<String> cookie(String host, String name) {
+    return Optional.ofNullable(hostToCookies.getOrDefault(host, Map.of()).get(name));
+  }
+
+  private ClientRequest withCookies(String host, ClientRequest request) {
+    final var rememberedCookies = hostToCookies.getOrDefault(host, Map.of());
+    if (rememberedCookies.isEmpty() && request.cookies().isEmpty()) {
+      return request;
+    }
+    final var nameToValue = new LinkedHashMap<>(rememberedCookies);
+    request.cookies().forEach((name, values) -> {
+      if (!values.isEmpty()) {
+        nameToValue.put(name, values.get(values.size() - 1));
+      }
+    });
+    final var cookieHeader = new StringBuilder();
+    final var existingCookieHeader = request.headers().getFirst(COOKIE);
+    if (existingCookieHeader != null) {
+      cookieHeader.append(existingCookieHeader);
+    }
+    nameToValue.forEach((name, value) -> {
+      if (cookieHeader.length() > 0) {
+        cookieHeader.append("; ");
+      }
+      cookieHeader.append(STRICT.encode(name, value));
+    });
+    return ClientRequest.from(request)
+        .cookies(cookies -> cookies.clear())
+        .headers(headers -> headers.set(COOKIE, cookieHeader.toString()))
+        .build();
+  }
+
+  private void remember(String host, MultiValueMap<String, ResponseCookie> nameToCookies) {
+    if (nameToCookies.isEmpty()) {
+      return;
+    }
+    final var cookies = hostToCookies.computeIfAbsent(host, __ -> new ConcurrentHashMap<>());
+    nameToCookies.forEach((name, sameNameCookies) -> {
+      // some portals (for eg. monster) send multiple `set-cookie`s with the same name in a single response, some of which clear the cookie. First one with a value is the one browsers end up using
+      final var liveValue = firstLiveValueOf(sameNameCookies);
+      if (liveValue.isPresent()) {
+        cookies.put(name, liveValue.get());
+      } else {
+        cookies.remove(name);
+      }
+    });
+  }
+
+  private static Optional<String> firstLiveValueOf(List<ResponseCookie> sameNameCookies) {
+    return sameNameCookies.stream()
+        .filter(cookie -> !cookie.getValue().isEmpty() && !cookie.getMaxAge().isZero())
+        .map(ResponseCookie::getValue)
+        .findFirst();
+  }
+}
@@ -0,0 +1,23 @@
+package com.acme.resume.refresh.http;
+
+import java.time.Duration;
+
+/**
+ * Phases of a single request/response exchange needed to derive time to first byte, as reactor netty only reports the total response time
+ */
+final class ExchangeTimings {
+  private volatile Duration requestSent = Duration.ZERO;
+  private volatile Duration responseReceived = Duration.ZERO;
+
+  void add(String phase, Duration time) {
+    if ("request-sent".equals(phase)) {
+      requestSent = time;
+    } else if ("response-received".equals(phase)) {
+      responseReceived = time;
+    }
+  }
+
+  Duration timeToFirstByte(Duration responseTime) {
+    return responseTime.minus(requestSent).minus(responseReceived);
+  }
+}
@@ -0,0 +1,137 @@
+package com.acme.resume.refresh.http;
+
+import lombok.extern.log4j.Log4j2;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
+
+import javax.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keeps last few http exchanges (with truncated bodies) of each refresh in memory & writes them to a file only when that refresh fails.
+ * <p>
+ * Unlike netty wiretap, nothing gets formatted on the success path. Recording a body costs a copy of its first few bytes, irrespective of how big the body is
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(FlightRecorderProperties.class)
+public class FlightRecorder {
+  private static final DateTimeFormatter FILE_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final FlightRecorderProperties flightRecorderProperties;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public FlightRecorder(@Valid FlightRecorderProperties flightRecorderProperties) {
+    this.flightRecorderProperties = flightRecorderProperties;
+  }
+
+  /**
+   * Records exchanges made by `refresh$` (via {@link #filter()}) & dumps them if it fails
+   *
+   * @param name identifies the refresh in the dump. For eg. tenant & portal
+   */
+  public Mono<Void> record(String name, Mono<Void> refresh$) {
+    if (!flightRecorderProperties.enabled()) {
+      return refresh$;
+    }
+    return Mono.defer(() -> {
+      final var recording = new Recording(flightRecorderProperties.maxExchanges(), (int) flightRecorderProperties.maxBodySize().toBytes());
+      return refresh$
+          .onErrorResume(e -> Mono.fromRunnable(() -> dump(name, recording, e))
+              .subscribeOn(Schedulers.boundedElastic())
+              .then(Mono.<Void>error(e)))
+          .contextWrite(context -> context.put(Recording.class, recording));
+    });
+  }
+
+  /**
+   * Should be the last filter of a web client, so that exchanges are recorded exactly as they go over the wire
+   */
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> Mono.deferContextual(context -> {
+      final Optional<Recording> recording = context.getOrEmpty(Recording.class);
+      if (recording.isEmpty()) {
+        return next.exchange(request);
+      }
+      final var exchange = recording.get().start(request);
+      return next.exchange(capturingRequestBody(request, exchange))
+          .map(response -> {
+            exchange.responded(response.rawStatusCode(), response.headers().asHttpHeaders());
+            return response.mutate()
+                .body(body -> body.doOnNext(exchange.responseBody()::capture))
+                .build();
+          })
+          .doOnError(exchange::failed);
+    });
+  }
+
+  /**
+   * Starts recording an exchange that does not go through webclient (for eg. one sent by {@link com.acme.resume.refresh.blocking.BlockingEngine} using jdk http client). Caller reports the rest of the exchange as it happens
+   *
+   * @param context reactor context the refresh was subscribed with. `null` if unknown
+   * @return empty if the refresh is not being recorded
+   */
+  public static Optional<RecordedExchange> start(ContextView context, String method, URI url, HttpHeaders requestHeaders) {
+    return context == null ? Optional.empty() : context.<Recording>getOrEmpty(Recording.class).map(recording -> recording.start(method, url, requestHeaders));
+  }
+
+  private static ClientRequest capturingRequestBody(ClientRequest request, RecordedExchange exchange) {
+    return ClientRequest.from(request)
+        .body((outputMessage, context) -> request.body().insert(new ClientHttpRequestDecorator(outputMessage) {
+          @Override
+          public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(Flux.from(body).doOnNext(exchange.requestBody()::capture));
+          }
+
+          @Override
+          public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk).doOnNext(exchange.requestBody()::capture)));
+          }
+        }, context))
+        .build();
+  }
+
+  private void dump(String name, Recording recording, Throwable error) {
+    final var rendered = "Refresh of " + name + " failed. Reason: " + error + "\n\n" + recording.render();
+    if (flightRecorderProperties.directory() == null) {
+      // recordings are big & still carry personal details (profile, resume names etc), so they are never logged at error level
+      log.error("Refresh of {} failed. Specify `app.flight-recorder.directory` to get a flight recording of its last http exchanges", name);
+      log.debug("Flight recording of failed refresh\n{}", rendered);
+      return;
+    }
+    final var directory = Path.of(flightRecorderProperties.directory());
+    final var file = directory.resolve(LocalDateTime.now().format(FILE_TIMESTAMP_FORMATTER) + "-" + name.replaceAll("[^A-Za-z0-9._-]", "_") + ".log");
+    try {
+      Files.createDirectories(directory);
+      Files.createFile(file);
+      // credentials are redacted, but recordings still carry personal details, so lets not let others read them
+      if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+        Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+      }
+      Files.writeString(file, rendered, UTF_8);
+      log.error("Refresh of {} failed. Flight recording of its last http exchanges is written to {}", name, file);
+    } catch (IOException e) {
+      log.error("Refresh of {} failed. Unable to write flight recording of its last http exchanges to {}. Reason: {}", name, file, e.toString());
+      log.debug("Flight recording of failed refresh\n{}", rendered);
+    }
+  }
+}
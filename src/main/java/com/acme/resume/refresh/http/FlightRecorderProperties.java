@@ -0,0 +1,20 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import javax.validation.constraints.Min;
+
+/**
+ * @param enabled whether last few http exchanges of each refresh are kept in memory & dumped when the refresh fails
+ * @param directory directory where recordings of failed refreshes are written. Recordings are logged at debug level instead if not specified
+ * @param maxExchanges only these many latest exchanges of a refresh are kept. Older ones are dropped
+ * @param maxBodySize only these many leading bytes of each request/response body are kept
+ */
+@ConfigurationProperties("app.flight-recorder")
+public record FlightRecorderProperties(@DefaultValue("true") boolean enabled,
+                                       String directory,
+                                       @DefaultValue("32") @Min(1) int maxExchanges,
+                                       @DefaultValue("4KB") DataSize maxBodySize) {
+}
@@ -0,0 +1,45 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpResponse;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Sends requests meant for some hosts to a different base url (for eg. local stub portals), keeping path & query as is.
+ * <p>
+ * Filters (cookie jar, circuit breaker, flight recorder) still see the original url, so everything above the connector behaves exactly as it would against the real portal
+ */
+public class HostOverridingClientHttpConnector implements ClientHttpConnector {
+  private final Map<String, URI> hostToBaseUrl;
+  private final ClientHttpConnector delegate;
+
+  /**
+   * @param hostToBaseUrl base url (scheme, host & port) that replaces the corresponding host
+   */
+  public HostOverridingClientHttpConnector(Map<String, URI> hostToBaseUrl, ClientHttpConnector delegate) {
+    this.hostToBaseUrl = Map.copyOf(hostToBaseUrl);
+    this.delegate = delegate;
+  }
+
+  @Override
+  public Mono<ClientHttpResponse> connect(HttpMethod method, URI uri, Function<? super ClientHttpRequest, Mono<Void>> requestCallback) {
+    final var baseUrl = hostToBaseUrl.get(uri.getHost());
+    if (baseUrl == null) {
+      return delegate.connect(method, uri, requestCallback);
+    }
+    final var overriddenUri = UriComponentsBuilder.fromUri(uri)
+        .scheme(baseUrl.getScheme())
+        .host(baseUrl.getHost())
+        .port(baseUrl.getPort())
+        .build(true)
+        .toUri();
+    return delegate.connect(method, overriddenUri, requestCallback);
+  }
+}
@@ -0,0 +1,25 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * @param pool connection pool settings applied to each portal host
+ * @param hosts host specific overrides of `pool` keyed by `host` (or) `host:port`. Port defaults to 443
+ * @param http2 whether http2 is offered to portal hosts (via ALPN), so that all requests to a host are multiplexed over a single connection. Hosts that don't support it are talked to over http/1.1 as usual
+ * @param tls tls session resumption settings of the ssl context shared by all connections
+ * @param wiretap whether every byte over the wire is logged by netty. Expensive, as it formats every exchange (resume uploads included). Prefer the flight recorder that captures exchanges only for failed refreshes
+ * @param hostOverrides base url (for eg. `http://127.0.0.1:8081`) to which requests meant for the key host are sent instead. Meant for pointing refreshers at stub portals. Never set this in production
+ */
+@ConfigurationProperties("app.http")
+public record HttpClientProperties(@DefaultValue PoolProperties pool,
+                                   Map<String, PoolProperties> hosts,
+                                   @DefaultValue("false") boolean http2,
+                                   @DefaultValue @Valid TlsProperties tls,
+                                   @DefaultValue("false") boolean wiretap,
+                                   Map<String, URI> hostOverrides) {
+}
@@ -0,0 +1,119 @@
+package com.acme.resume.refresh.http;
+
+import com.acme.resume.refresh.step.PhaseTimings;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.client.ContextAwareHttpClientMetricsRecorder;
+import reactor.util.context.ContextView;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+
+/**
+ * Breaks down time spent in each network call into phases (dns, connect, tls, request-sent, ttfb, response-received) & records them both as a timer per portal host & against the step (if any) that made the call.
+ * <p>
+ * Reactor netty does not report time to first byte directly. Its response time spans from the start of sending the request till the last byte of the response is received, so we derive ttfb by subtracting the time spent sending the request & the time spent receiving the response from it
+ */
+@Component
+public class NetworkTimingRecorder extends ContextAwareHttpClientMetricsRecorder {
+  private static final String PHASE_TIMER_NAME = "http.client.phase";
+
+  private final PrometheusMeterRegistry registry;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public NetworkTimingRecorder(PrometheusMeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * @return connector that gives each exchange its own {@link ExchangeTimings}, so that ttfb can be derived when reactor netty reports the response time
+   */
+  public ClientHttpConnector timed(ClientHttpConnector clientHttpConnector) {
+    return (method, uri, requestCallback) -> clientHttpConnector.connect(method, uri, requestCallback)
+        .contextWrite(context -> context.put(ExchangeTimings.class, new ExchangeTimings()));
+  }
+
+  @Override
+  public void recordResolveAddressTime(ContextView contextView, SocketAddress remoteAddress, Duration time, String status) {
+    record(contextView, remoteAddress, "dns", time);
+  }
+
+  @Override
+  public void recordConnectTime(ContextView contextView, SocketAddress remoteAddress, Duration time, String status) {
+    record(contextView, remoteAddress, "connect", time);
+  }
+
+  @Override
+  public void recordTlsHandshakeTime(ContextView contextView, SocketAddress remoteAddress, Duration time, String status) {
+    record(contextView, remoteAddress, "tls", time);
+  }
+
+  @Override
+  public void recordDataSentTime(ContextView contextView, SocketAddress remoteAddress, String uri, String method, Duration time) {
+    record(contextView, remoteAddress, "request-sent", time);
+  }
+
+  @Override
+  public void recordDataReceivedTime(ContextView contextView, SocketAddress remoteAddress, String uri, String method, String status, Duration time) {
+    record(contextView, remoteAddress, "response-received", time);
+  }
+
+  /**
+   * Reactor netty records response time after data sent & data received times of the same exchange, so both are available on the exchange's timings by now
+   */
+  @Override
+  public void recordResponseTime(ContextView contextView, SocketAddress remoteAddress, String uri, String method, String status, Duration time) {
+    final var exchangeTimings = contextView.<ExchangeTimings>getOrEmpty(ExchangeTimings.class).orElse(null);
+    if (exchangeTimings == null) {
+      return;
+    }
+    final var ttfb = exchangeTimings.timeToFirstByte(time);
+    if (!ttfb.isNegative()) {
+      record(contextView, remoteAddress, "ttfb", ttfb);
+    }
+  }
+
+  // byte counts & error counts are already covered by refresh/step metrics & flight recorder
+
+  @Override
+  public void recordDataReceived(ContextView contextView, SocketAddress remoteAddress, long bytes) {
+  }
+
+  @Override
+  public void recordDataSent(ContextView contextView, SocketAddress remoteAddress, long bytes) {
+  }
+
+  @Override
+  public void incrementErrorsCount(ContextView contextView, SocketAddress remoteAddress) {
+  }
+
+  @Override
+  public void recordDataReceived(ContextView contextView, SocketAddress remoteAddress, String uri, long bytes) {
+  }
+
+  @Override
+  public void recordDataSent(ContextView contextView, SocketAddress remoteAddress, String uri, long bytes) {
+  }
+
+  @Override
+  public void incrementErrorsCount(ContextView contextView, SocketAddress remoteAddress, String uri) {
+  }
+
+  private void record(ContextView contextView, SocketAddress remoteAddress, String phase, Duration time) {
+    Timer.builder(PHASE_TIMER_NAME)
+        .description("Time spent in each phase of a call to a portal")
+        .tag("host", hostOf(remoteAddress))
+        .tag("phase", phase)
+        .register(registry)
+        .record(time);
+    contextView.<PhaseTimings>getOrEmpty(PhaseTimings.class).ifPresent(phaseTimings -> phaseTimings.add(phase, time));
+    contextView.<ExchangeTimings>getOrEmpty(ExchangeTimings.class).ifPresent(exchangeTimings -> exchangeTimings.add(phase, time));
+  }
+
+  private static String hostOf(SocketAddress remoteAddress) {
+    return remoteAddress instanceof InetSocketAddress inetSocketAddress ? inetSocketAddress.getHostString() : String.valueOf(remoteAddress);
+  }
+}
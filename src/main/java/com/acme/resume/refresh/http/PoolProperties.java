@@ -0,0 +1,19 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maxConnections max connections kept open to a single portal host
+ * @param maxIdleTime connections idle for longer than this are closed
+ * @param maxLifeTime connections older than this are closed once they become idle, irrespective of their usage
+ * @param evictionInterval interval at which idle/expired connections are evicted in background
+ * @param pendingAcquireTimeout max time a request waits for a connection when all connections are in use
+ */
+public record PoolProperties(@DefaultValue("16") int maxConnections,
+                             @DefaultValue("30s") Duration maxIdleTime,
+                             @DefaultValue("5m") Duration maxLifeTime,
+                             @DefaultValue("30s") Duration evictionInterval,
+                             @DefaultValue("30s") Duration pendingAcquireTimeout) {
+}
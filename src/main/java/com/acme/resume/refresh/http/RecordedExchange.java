@@ -0,0 +1,111 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.http.HttpHeaders;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.COOKIE;
+import static org.springframework.http.HttpHeaders.SET_COOKIE;
+
+/**
+ * Single request/response pair captured by the {@link FlightRecorder}. Headers are rendered eagerly as they are small, bodies are captured as they flow through.
+ * <p>
+ * Public methods are meant for exchanges that don't go through webclient (see {@link FlightRecorder#start})
+ */
+public final class RecordedExchange {
+  private static final Set<String> SECRET_HEADER_NAMES = Set.of(COOKIE.toLowerCase(), SET_COOKIE.toLowerCase(), AUTHORIZATION.toLowerCase());
+
+  private final Instant startedAt = Instant.now();
+  private final long startedAtNanos = System.nanoTime();
+  private final String request;
+  private final BodyCapture requestBody;
+  private final BodyCapture responseBody;
+  private volatile String response;
+  private volatile Duration elapsed;
+  private volatile Throwable error;
+
+  RecordedExchange(String method, URI url, HttpHeaders requestHeaders, int maxBodyBytes) {
+    this.request = method + " " + BodyCapture.withoutJwts(url.toString()) + "\n" + render(requestHeaders);
+    this.requestBody = new BodyCapture(maxBodyBytes);
+    this.responseBody = new BodyCapture(maxBodyBytes);
+  }
+
+  BodyCapture requestBody() {
+    return requestBody;
+  }
+
+  BodyCapture responseBody() {
+    return responseBody;
+  }
+
+  /**
+   * @param chunk chunk of the request body, as it is being sent. Its position is left as is
+   */
+  public void requestBodySent(ByteBuffer chunk) {
+    requestBody.capture(chunk);
+  }
+
+  /**
+   * @param chunk chunk of the response body, as it is being received. Its position is left as is
+   */
+  public void responseBodyReceived(ByteBuffer chunk) {
+    responseBody.capture(chunk);
+  }
+
+  public void responded(int status, HttpHeaders responseHeaders) {
+    this.elapsed = Duration.ofNanos(System.nanoTime() - startedAtNanos);
+    this.response = status + "\n" + render(responseHeaders);
+  }
+
+  public void failed(Throwable error) {
+    this.elapsed = Duration.ofNanos(System.nanoTime() - startedAtNanos);
+    this.error = error;
+  }
+
+  String render() {
+    final var rendered = new StringBuilder()
+        .append("=== ").append(startedAt).append(elapsed != null ? " (" + elapsed.toMillis() + "ms)" : " (in flight)").append(" ===\n")
+        .append(">>> ").append(request)
+        .append(requestBody.render()).append("\n");
+    if (response != null) {
+      rendered.append("<<< ").append(response).append(responseBody.render()).append("\n");
+    } else {
+      rendered.append("<<< <no response>\n");
+    }
+    if (error != null) {
+      rendered.append("!!! ").append(error).append("\n");
+    }
+    return rendered.toString();
+  }
+
+  /**
+   * Values of headers carrying sessions are dropped (only cookie names are kept) & jwts are dropped from the rest. Bodies still carry personal details, so recordings are not meant to be shared as is
+   */
+  private static String render(HttpHeaders headers) {
+    final var rendered = new StringBuilder();
+    headers.forEach((name, values) -> values.forEach(value -> rendered.append(name).append(": ")
+        .append(SECRET_HEADER_NAMES.contains(name.toLowerCase()) ? redact(name, value) : BodyCapture.withoutJwts(value))
+        .append("\n")));
+    return rendered.toString();
+  }
+
+  private static String redact(String name, String value) {
+    if (name.equalsIgnoreCase(AUTHORIZATION)) {
+      return "<redacted>";
+    }
+    final var redacted = new StringBuilder();
+    for (String cookie : value.split(";")) {
+      final var separatorIndex = cookie.indexOf('=');
+      if (redacted.length() > 0) {
+        redacted.append(";");
+      }
+      redacted.append(separatorIndex < 0 ? cookie : cookie.substring(0, separatorIndex + 1) + "<redacted>");
+    }
+    return redacted.toString();
+  }
+}
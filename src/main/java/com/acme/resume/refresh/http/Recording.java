@@ -0,0 +1,42 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded ring buffer of latest exchanges of a single refresh
+ */
+final class Recording {
+  private final int maxExchanges;
+  private final int maxBodyBytes;
+  private final Deque<RecordedExchange> exchanges;
+
+  Recording(int maxExchanges, int maxBodyBytes) {
+    this.maxExchanges = maxExchanges;
+    this.maxBodyBytes = maxBodyBytes;
+    this.exchanges = new ArrayDeque<>(maxExchanges);
+  }
+
+  RecordedExchange start(ClientRequest request) {
+    return start(request.method().name(), request.url(), request.headers());
+  }
+
+  synchronized RecordedExchange start(String method, URI url, HttpHeaders requestHeaders) {
+    if (exchanges.size() == maxExchanges) {
+      exchanges.removeFirst();
+    }
+    final var exchange = new RecordedExchange(method, url, requestHeaders, maxBodyBytes);
+    exchanges.addLast(exchange);
+    return exchange;
+  }
+
+  synchronized String render() {
+    final var rendered = new StringBuilder();
+    exchanges.forEach(exchange -> rendered.append(exchange.render()).append("\n"));
+    return rendered.toString();
+  }
+}
@@ -0,0 +1,14 @@
+package com.acme.resume.refresh.http;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+/**
+ * @param sessionCacheSize tls sessions (and session tickets) kept for resuming, across all portal hosts
+ * @param sessionTimeout tls sessions older than this are not resumed, but negotiated afresh with a full handshake
+ */
+public record TlsProperties(@DefaultValue("64") @Min(1) int sessionCacheSize,
+                            @DefaultValue("1h") Duration sessionTimeout) {
+}
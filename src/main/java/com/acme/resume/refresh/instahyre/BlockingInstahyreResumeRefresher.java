@@ -0,0 +1,224 @@
+package com.acme.resume.refresh.instahyre;
+
+import com.acme.resume.refresh.blocking.BlockingEngine;
+import com.acme.resume.refresh.codec.JsonCodecs;
+import com.acme.resume.refresh.common.ConditionalOnPropertyNotEmpty;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.instahyre.exchange.CandidateResponseJsonCodec;
+import com.acme.resume.refresh.instahyre.exchange.LoginRequest;
+import com.acme.resume.refresh.instahyre.exchange.LoginRequestJsonCodec;
+import com.acme.resume.refresh.instahyre.exchange.UploadResumeRequest;
+import com.acme.resume.refresh.instahyre.exchange.UploadResumeRequestJsonCodec;
+import com.acme.resume.refresh.resilience.AuthRejectedException;
+import com.acme.resume.refresh.resilience.PortalContractException;
+import com.acme.resume.refresh.session.AuthSession;
+import com.acme.resume.refresh.session.SessionExpiredException;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.store.ResumeStore;
+import com.acme.resume.refresh.store.StoredResume;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.CANDIDATE_ID_PATTERN;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.CHROME_USER_AGENT;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.CSRF_COOKIE_NAME;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.CSRF_HEADER_NAME;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.FILE_CONTENT_PLACEHOLDER;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.MAX_PROFILE_PAGE_SCAN_BYTES;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.PORTAL;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.RESUME_BASE64_FORM;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.SESSION_ID_COOKIE_NAME;
+import static com.acme.resume.refresh.instahyre.InstahyreResumeRefresher.UPLOAD_CHUNK_SIZE;
+import static java.net.http.HttpRequest.BodyPublishers.concat;
+import static java.net.http.HttpRequest.BodyPublishers.ofByteArray;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.COOKIE;
+import static org.springframework.http.HttpHeaders.LOCATION;
+import static org.springframework.http.HttpHeaders.REFERER;
+import static org.springframework.http.HttpHeaders.SET_COOKIE;
+import static org.springframework.http.HttpHeaders.USER_AGENT;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Same refresh as {@link InstahyreResumeRefresher} (see it for curl equivalents of each request), written as straight line blocking code for {@link BlockingEngine}.
+ * <p>
+ * Steps run one after the other, so unlike the reactive refresher, encoding the resume does not overlap with login
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(InstahyreProperties.class)
+@ConditionalOnPropertyNotEmpty({"app.instahyre.username", "app.instahyre.password"})
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "blocking")
+@SuppressWarnings("unused") // since we are dealing with a component
+public class BlockingInstahyreResumeRefresher implements ResumeRefresher {
+  private static final URI BASE_URL = URI.create("https://www.instahyre.com/");
+
+  private final InstahyreProperties instahyreProperties;
+  private final ResumeProperties resumeProperties;
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final BlockingEngine blockingEngine;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public BlockingInstahyreResumeRefresher(@Valid InstahyreProperties instahyreProperties,
+      @Valid ResumeProperties resumeProperties,
+      SessionManager sessionManager,
+      ResumeStore resumeStore,
+      BlockingEngine blockingEngine) {
+    this.instahyreProperties = instahyreProperties;
+    this.resumeProperties = resumeProperties;
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.blockingEngine = blockingEngine;
+  }
+
+  @Override
+  public String portal() {
+    return PORTAL;
+  }
+
+  @Override
+  public Mono<Void> refresh() {
+    return blockingEngine.run(this::refreshNow)
+        .doOnSubscribe(__ -> log.info("Attempting to refresh resume on Instahyre"))
+        .doFinally(signal -> log.info("Finished attempt to refresh resume on Instahyre. Final signal received is {}", signal));
+  }
+
+  private void refreshNow() throws Exception {
+    final var resume = resumeStore.open(Paths.get(resumeProperties.path()));
+    // base64 payload is computed once per distinct resume & reused across tenants. Empty for very big resumes, which are encoded on the fly while uploading instead
+    final var base64EncodedResume = blockingEngine.step("encode-resume", () -> resumeStore.derived(resume, RESUME_BASE64_FORM, InstahyreResumeRefresher::base64EncodedContentOf));
+    sessionManager.withSession(SessionManager.keyOf(PORTAL, instahyreProperties.username()), () -> blockingEngine.step("login", this::login), session -> {
+      final var sessionId = session.token(SESSION_ID_COOKIE_NAME);
+      final var csrfToken = session.token(CSRF_COOKIE_NAME);
+      final var candidateId = blockingEngine.step("candidate-id", () -> fetchCandidateId(sessionId));
+      final var resumeId = blockingEngine.step("resume-id", () -> fetchResumeId(sessionId, candidateId));
+      return blockingEngine.step("upload-resume", () -> uploadResume(sessionId, csrfToken, candidateId, resumeId, resume, base64EncodedResume));
+    });
+  }
+
+  private AuthSession login() throws Exception {
+    final var request = requestTo("/api/v1/user_login")
+        .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+        .POST(ofByteArray(JsonCodecs.writeValueAsBytes(LoginRequestJsonCodec.INSTANCE, new LoginRequest(instahyreProperties.username(), instahyreProperties.password()))))
+        .build();
+    return blockingEngine.attempt(PORTAL + ".login", "fetch session id & csrf token", () -> {
+      final var response = blockingEngine.send(request, BodyHandlers.discarding());
+      final var nameToCookie = new HashMap<String, HttpCookie>();
+      response.headers().allValues(SET_COOKIE).forEach(header -> HttpCookie.parse(header).forEach(cookie -> nameToCookie.put(cookie.getName(), cookie)));
+      final var sessionIdCookie = nameToCookie.get(SESSION_ID_COOKIE_NAME);
+      final var csrfTokenCookie = nameToCookie.get(CSRF_COOKIE_NAME);
+      if (sessionIdCookie == null || csrfTokenCookie == null) {
+        throw new AuthRejectedException("Instahyre did not set " + SESSION_ID_COOKIE_NAME + " & " + CSRF_COOKIE_NAME + " cookies on login. Check credentials");
+      }
+      // max age is negative when server does not specify it
+      final var expiresAt = sessionIdCookie.getMaxAge() <= 0 ? null : Instant.now().plus(Duration.ofSeconds(sessionIdCookie.getMaxAge()));
+      return new AuthSession(Map.of(SESSION_ID_COOKIE_NAME, sessionIdCookie.getValue(), CSRF_COOKIE_NAME, csrfTokenCookie.getValue()), expiresAt);
+    });
+  }
+
+  private String fetchCandidateId(String sessionId) throws Exception {
+    final var request = requestTo("/candidate/profile/")
+        .header(COOKIE, SESSION_ID_COOKIE_NAME + "=" + sessionId)
+        .GET()
+        .build();
+    return blockingEngine.attempt(PORTAL + ".candidate-id", "retrieve candidateId", () -> {
+      final var response = blockingEngine.send(request, BodyHandlers.ofInputStream());
+      // candidateId is at the top of the page. So, lets stop reading the page as soon as we find it
+      try (final var reader = new BufferedReader(new InputStreamReader(response.body(), UTF_8))) {
+        if (response.statusCode() >= 300 && response.statusCode() < 400) {
+          // instahyre redirects to login page when the session is no longer valid
+          throw new SessionExpiredException("Instahyre redirected profile page to " + response.headers().firstValue(LOCATION).orElse(null));
+        }
+        var scannedChars = 0L;
+        String line;
+        while (scannedChars < MAX_PROFILE_PAGE_SCAN_BYTES && (line = reader.readLine()) != null) {
+          final var matcher = CANDIDATE_ID_PATTERN.matcher(line);
+          if (matcher.find()) {
+            return matcher.group("candidateId");
+          }
+          scannedChars += line.length() + 1;
+        }
+      }
+      throw new PortalContractException("Pattern `" + CANDIDATE_ID_PATTERN + "` not found within first " + MAX_PROFILE_PAGE_SCAN_BYTES + " bytes");
+    });
+  }
+
+  private long fetchResumeId(String sessionId, String candidateId) throws Exception {
+    final var request = requestTo("/api/v1/candidate/" + candidateId)
+        .header(COOKIE, SESSION_ID_COOKIE_NAME + "=" + sessionId)
+        .GET()
+        .build();
+    return blockingEngine.attempt(PORTAL + ".resume-id", "retrieve resumeId", () -> {
+      final var response = BlockingEngine.readJson(CandidateResponseJsonCodec.INSTANCE, blockingEngine.send(request, BodyHandlers.ofByteArray()));
+      if (response.resume() == null) {
+        throw new PortalContractException("Expected resume in candidate response, but found none");
+      }
+      return response.resume().id();
+    });
+  }
+
+  private HttpResponse<Void> uploadResume(String sessionId, String csrfToken, String candidateId, long resumeId, StoredResume resume, Optional<ByteBuffer> base64EncodedResume) throws Exception {
+    // lets have the generated codec write the json envelope with a placeholder in place of file content & send the base64 content in place of the placeholder, same as the reactive refresher
+    final var uploadResumeRequestJson = JsonCodecs.writeValueAsString(UploadResumeRequestJsonCodec.INSTANCE, new UploadResumeRequest(
+        "/api/v1/limited_candidate/" + candidateId,
+        "/api/v1/resume/" + resumeId,
+        resumeProperties.filename(),
+        FILE_CONTENT_PLACEHOLDER,
+        true
+    ));
+    final var placeholderStartIndex = uploadResumeRequestJson.indexOf(FILE_CONTENT_PLACEHOLDER);
+    final var jsonBeforeFileContent = uploadResumeRequestJson.substring(0, placeholderStartIndex).getBytes(UTF_8);
+    final var jsonAfterFileContent = uploadResumeRequestJson.substring(placeholderStartIndex + FILE_CONTENT_PLACEHOLDER.length()).getBytes(UTF_8);
+    final var request = requestTo("/api/v1/resume/" + resumeId)
+        // the server is not spec complaint i.e it expects all cookies in a single cookie header
+        .header(COOKIE, SESSION_ID_COOKIE_NAME + "=" + sessionId + "; " + CSRF_COOKIE_NAME + "=" + csrfToken)
+        .header(CSRF_HEADER_NAME, csrfToken)
+        .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+        .PUT(concat(ofByteArray(jsonBeforeFileContent), base64ContentOf(resume, base64EncodedResume), ofByteArray(jsonAfterFileContent)))
+        .build();
+    return blockingEngine.attempt(PORTAL + ".upload-resume", "upload resume", () -> blockingEngine.send(request, BodyHandlers.discarding()));
+  }
+
+  /**
+   * @return publisher of the precomputed base64 payload if there is one, otherwise one that encodes views of the stored resume chunk by chunk. Chunk size is a multiple of 3, so encoded chunks join up to the encoding of the whole resume
+   */
+  private static BodyPublisher base64ContentOf(StoredResume resume, Optional<ByteBuffer> base64EncodedResume) {
+    if (base64EncodedResume.isPresent()) {
+      final var content = base64EncodedResume.get();
+      return BlockingEngine.fromBuffers(Mono.fromSupplier(content::duplicate), content.remaining());
+    }
+    final Flux<ByteBuffer> encodedChunks = resume.content(UPLOAD_CHUNK_SIZE).map(chunk -> Base64.getEncoder().encode(chunk.asByteBuffer()));
+    return BlockingEngine.fromBuffers(encodedChunks, 4 * ((resume.size() + 2) / 3));
+  }
+
+  private HttpRequest.Builder requestTo(String path) {
+    return blockingEngine.request(BASE_URL.resolve(path))
+        .header(USER_AGENT, CHROME_USER_AGENT)
+        .header(REFERER, BASE_URL.toString());
+  }
+}
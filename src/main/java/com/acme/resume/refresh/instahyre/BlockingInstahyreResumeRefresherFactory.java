@@ -0,0 +1,36 @@
+package com.acme.resume.refresh.instahyre;
+
+import com.acme.resume.refresh.blocking.BlockingEngine;
+import com.acme.resume.refresh.common.PortalCredentials;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.common.ResumeRefresherFactory;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.store.ResumeStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "blocking")
+@SuppressWarnings("unused") // since we are dealing with a component
+public class BlockingInstahyreResumeRefresherFactory implements ResumeRefresherFactory {
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final BlockingEngine blockingEngine;
+
+  public BlockingInstahyreResumeRefresherFactory(SessionManager sessionManager, ResumeStore resumeStore, BlockingEngine blockingEngine) {
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.blockingEngine = blockingEngine;
+  }
+
+  @Override
+  public String portal() {
+    return InstahyreResumeRefresher.PORTAL;
+  }
+
+  @Override
+  public ResumeRefresher create(PortalCredentials credentials, ResumeProperties resumeProperties) {
+    return new BlockingInstahyreResumeRefresher(new InstahyreProperties(credentials.username(), credentials.password()), resumeProperties, sessionManager, resumeStore, blockingEngine);
+  }
+}
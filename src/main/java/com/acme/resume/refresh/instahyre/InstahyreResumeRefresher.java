@@ -1,89 +1,156 @@
 package com.acme.resume.refresh.instahyre;
 
+import com.acme.resume.refresh.codec.JsonCodecs;
 import com.acme.resume.refresh.common.ConditionalOnPropertyNotEmpty;
 import com.acme.resume.refresh.common.ResumeProperties;
 import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.http.CookieJar;
+import com.acme.resume.refresh.http.FlightRecorder;
 import com.acme.resume.refresh.instahyre.exchange.CandidateResponse;
 import com.acme.resume.refresh.instahyre.exchange.LoginRequest;
 import com.acme.resume.refresh.instahyre.exchange.SessionIdAndCsrfToken;
 import com.acme.resume.refresh.instahyre.exchange.UploadResumeRequest;
-import com.acme.resume.refresh.util.MiscUtil;
+import com.acme.resume.refresh.instahyre.exchange.UploadResumeRequestJsonCodec;
+import com.acme.resume.refresh.resilience.AuthRejectedException;
+import com.acme.resume.refresh.resilience.CircuitBreakerRegistry;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.resilience.RetryPolicies;
+import com.acme.resume.refresh.session.AuthSession;
+import com.acme.resume.refresh.session.SessionExpiredException;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.step.StepGraph;
+import com.acme.resume.refresh.store.ResumeStore;
+import com.acme.resume.refresh.store.StoredResume;
+import com.acme.resume.refresh.util.StreamingPatternExtractor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.core.annotation.Order;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Paths;
-import java.util.function.Function;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
-import static io.netty.handler.codec.http.cookie.ClientCookieEncoder.STRICT;
-import static java.nio.file.StandardOpenOption.READ;
-import static java.util.Objects.requireNonNull;
-import static org.springframework.core.io.buffer.DataBufferUtils.join;
-import static org.springframework.core.io.buffer.DataBufferUtils.read;
-import static org.springframework.core.io.buffer.DataBufferUtils.release;
-import static org.springframework.http.HttpHeaders.COOKIE;
+import static com.acme.resume.refresh.util.StreamingBase64BodyInserters.fromBase64EncodedContent;
+import static com.acme.resume.refresh.util.StreamingBase64BodyInserters.fromContentAsBase64;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.HttpHeaders.LOCATION;
 import static org.springframework.http.HttpHeaders.REFERER;
 import static org.springframework.http.HttpHeaders.USER_AGENT;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.HttpMethod.PUT;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
-import static org.springframework.util.Base64Utils.encodeToString;
 
 @Log4j2
 @Component
 @EnableConfigurationProperties(InstahyreProperties.class)
 @ConditionalOnPropertyNotEmpty({"app.instahyre.username", "app.instahyre.password"})
-@Order(100) // lets start updating resume here 1st
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "reactor", matchIfMissing = true)
 @SuppressWarnings("unused") // since we are dealing with a component
 public class InstahyreResumeRefresher implements ResumeRefresher {
   //@formatter:off
-  private static final String CSRF_COOKIE_NAME = "csrftoken";
-  private static final String CSRF_HEADER_NAME = "x-csrftoken";
-  private static final String SESSION_ID_COOKIE_NAME = "sessionid";
+  public static final String PORTAL = "instahyre";
+  static final String CSRF_COOKIE_NAME = "csrftoken";
+  static final String CSRF_HEADER_NAME = "x-csrftoken";
+  static final String SESSION_ID_COOKIE_NAME = "sessionid";
+  static final String FILE_CONTENT_PLACEHOLDER = "__FILE_CONTENT__";
+  static final String RESUME_BASE64_FORM = "base64";
+  static final int UPLOAD_CHUNK_SIZE = 48 * 1024;
+  static final String CHROME_USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/104.0.5112.81 Safari/537.36";
+  // candidateId is at the top of the profile page. So, we never scan beyond this
+  static final int MAX_PROFILE_PAGE_SCAN_BYTES = 2 * 1024 * 1024;
+  static final Pattern CANDIDATE_ID_PATTERN = Pattern.compile("candidateId\s*=\s*'(?<candidateId>\\d+)'");
 
   private final InstahyreProperties instahyreProperties;
   private final ResumeProperties resumeProperties;
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final CookieJar cookieJar = new CookieJar();
+  private final RetryPolicies retryPolicies;
   private final WebClient webClient;
 
   @SuppressWarnings("unused") // since we are dealing with a component
   public InstahyreResumeRefresher(@Valid InstahyreProperties instahyreProperties,
       @Valid ResumeProperties resumeProperties,
-      Function<String, ClientHttpConnector> loggerNameToClientHttpConnectorMapper) {
+      ClientHttpConnector clientHttpConnector,
+      SessionManager sessionManager,
+      ResumeStore resumeStore,
+      FlightRecorder flightRecorder,
+      RetryPolicies retryPolicies,
+      CircuitBreakerRegistry circuitBreakerRegistry,
+      RateLimiterRegistry rateLimiterRegistry) {
     this.instahyreProperties = instahyreProperties;
     this.resumeProperties = resumeProperties;
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.retryPolicies = retryPolicies;
     this.webClient =
         WebClient.builder().baseUrl("https://www.instahyre.com/")
-            .clientConnector(loggerNameToClientHttpConnectorMapper.apply(getClass().getCanonicalName()))
+            .clientConnector(clientHttpConnector)
+            .codecs(JsonCodecs::register)
+            .filter(circuitBreakerRegistry.filter())
+            .filter(rateLimiterRegistry.filter())
+            .filter(cookieJar.filter())
+            .filter(flightRecorder.filter())
             .defaultHeaders(httpHeaders -> {
-              httpHeaders.add(USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/104.0.5112.81 Safari/537.36");
+              httpHeaders.add(USER_AGENT, CHROME_USER_AGENT);
               httpHeaders.add(REFERER, "https://www.instahyre.com/");
             })
             .build();
   }
 
+  @Override
+  public String portal() {
+    return PORTAL;
+  }
+
   @Override
   public Mono<Void> refresh() {
-    Mono<SessionIdAndCsrfToken> sessionIdAndCsrfToken$ = buildSessionIdAndCsrfToken$().cache();
-    Mono<String> candidateId$ = buildCandidateId$(sessionIdAndCsrfToken$).cache();
-    Mono<Long> resumeId$ = buildResumeId$(sessionIdAndCsrfToken$, candidateId$);
-    Mono<Void> uploadResume$ = buildUploadResume$(sessionIdAndCsrfToken$, candidateId$, resumeId$);
+    Mono<AuthSession> login$ = buildSessionIdAndCsrfToken$()
+        .map(sessionIdAndCsrfToken -> new AuthSession(Map.of(SESSION_ID_COOKIE_NAME, sessionIdAndCsrfToken.sessionId(), CSRF_COOKIE_NAME, sessionIdAndCsrfToken.csrfToken()), sessionIdAndCsrfToken.expiresAt()));
 
-    return uploadResume$
+    // resume is opened once per refresh, so that the encoded form & the upload always refer to the same snapshot of the file
+    return resumeStore.open$(Paths.get(resumeProperties.path()))
+        .flatMap(resume -> sessionManager.withLazySession(SessionManager.keyOf(PORTAL, instahyreProperties.username()), login$, session$ -> {
+          final var graph = new StepGraph("Instahyre refresh");
+          // encoding is local work, so lets get it done while we login
+          final var base64EncodedResume = graph.step("encode-resume", __ -> buildBase64EncodedResume$(resume));
+          final var sessionIdAndCsrfToken = graph.step("login", __ -> session$.map(session -> new SessionIdAndCsrfToken(session.token(SESSION_ID_COOKIE_NAME), session.token(CSRF_COOKIE_NAME), session.expiresAt())));
+          final var candidateId = graph.step("candidate-id", inputs -> buildCandidateId$(Mono.just(inputs.of(sessionIdAndCsrfToken))), sessionIdAndCsrfToken);
+          final var resumeId = graph.step("resume-id", inputs -> buildResumeId$(Mono.just(inputs.of(sessionIdAndCsrfToken)), Mono.just(inputs.of(candidateId))), sessionIdAndCsrfToken, candidateId);
+          graph.step("upload-resume", inputs -> buildUploadResume$(Mono.just(inputs.of(sessionIdAndCsrfToken)), Mono.just(inputs.of(candidateId)), Mono.just(inputs.of(resumeId)), resume, inputs.of(base64EncodedResume)), sessionIdAndCsrfToken, candidateId, resumeId, base64EncodedResume);
+          return graph.run();
+        }))
         .doOnSubscribe(__ -> log.info("Attempting to refresh resume on Instahyre"))
         .doFinally(signal -> log.info("Finished attempt to refresh resume on Instahyre. Final signal received is {}", signal));
   }
 
-  private Mono<Void> buildUploadResume$(Mono<SessionIdAndCsrfToken> sessionIdAndCsrfToken$, Mono<String> candidateId$, Mono<Long> resumeId$) {
+  /**
+   * @return base64 payload computed once per distinct resume & reused across tenants. Empty for very big resumes, which are encoded on the fly while uploading instead
+   */
+  private Mono<Optional<ByteBuffer>> buildBase64EncodedResume$(StoredResume resume) {
+    return Mono.fromCallable(() -> resumeStore.derived(resume, RESUME_BASE64_FORM, InstahyreResumeRefresher::base64EncodedContentOf))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  static ByteBuffer base64EncodedContentOf(StoredResume resume) {
+    return Base64.getEncoder().encode(resume.content().duplicate()).asReadOnlyBuffer();
+  }
+
+  private Mono<Void> buildUploadResume$(Mono<SessionIdAndCsrfToken> sessionIdAndCsrfToken$, Mono<String> candidateId$, Mono<Long> resumeId$, StoredResume resume, Optional<ByteBuffer> base64EncodedResume) {
     /*
     curl 'https://www.instahyre.com/api/v1/resume/<resumeId>' \
       -X 'PUT' \
@@ -100,40 +167,40 @@ public class InstahyreResumeRefresher implements ResumeRefresher {
           final var resumeId = candidateIdPlusResumeIdPlusSessionIdAndCsrfToken.getT2();
           final var sessionIdAndCsrfToken = candidateIdPlusResumeIdPlusSessionIdAndCsrfToken.getT3();
 
-          var resumePath = Paths.get(resumeProperties.path());
-          var uploadResumeRequest$ = join(read(resumePath, new DefaultDataBufferFactory(), 32 * 1024, READ))
-              .map(aggregateBuffer -> {
-                final var allBytes = new byte[aggregateBuffer.readableByteCount()];
-                aggregateBuffer.read(allBytes);
-                release(aggregateBuffer);
-                return encodeToString(allBytes);
-              })
-              .map(base64FileContent -> {
-                //noinspection CodeBlock2Expr
-                return new UploadResumeRequest(
-                    "/api/v1/limited_candidate/" + candidateId,
-                    "/api/v1/resume/" + resumeId,
-                    resumeProperties.filename(),
-                    base64FileContent,
-                    true
-                );
-              });
+          // lets have the generated codec write the json envelope with a placeholder in place of file content & stream the file in place of the placeholder. This avoids holding whole file (& its base64 form) in memory
+          final String uploadResumeRequestJson;
+          try {
+            uploadResumeRequestJson = JsonCodecs.writeValueAsString(UploadResumeRequestJsonCodec.INSTANCE, new UploadResumeRequest(
+                "/api/v1/limited_candidate/" + candidateId,
+                "/api/v1/resume/" + resumeId,
+                resumeProperties.filename(),
+                FILE_CONTENT_PLACEHOLDER,
+                true
+            ));
+          } catch (IOException e) {
+            return Mono.<Void>error(e);
+          }
+          final var placeholderStartIndex = uploadResumeRequestJson.indexOf(FILE_CONTENT_PLACEHOLDER);
+          final var jsonBeforeFileContent = uploadResumeRequestJson.substring(0, placeholderStartIndex).getBytes(UTF_8);
+          final var jsonAfterFileContent = uploadResumeRequestJson.substring(placeholderStartIndex + FILE_CONTENT_PLACEHOLDER.length()).getBytes(UTF_8);
+
+          final var body = base64EncodedResume
+              .map(base64EncodedResume -> fromBase64EncodedContent(jsonBeforeFileContent, base64EncodedResume, jsonAfterFileContent))
+              .orElseGet(() -> fromContentAsBase64(jsonBeforeFileContent, resume.content(UPLOAD_CHUNK_SIZE), resume.size(), jsonAfterFileContent, UPLOAD_CHUNK_SIZE));
 
           return webClient
               .method(PUT)
               .uri("/api/v1/resume/" + resumeId)
-              .headers(headers -> {
-                // we cant use cookie(name, value).cookie(name, value) as the server is not spec complaint i.e it expects all cookies to be sent in a single cookie rather than multiple cookies
-                final var cookieHeaderValue = STRICT.encode(SESSION_ID_COOKIE_NAME, sessionIdAndCsrfToken.sessionId()) + "; " + STRICT.encode(CSRF_COOKIE_NAME, sessionIdAndCsrfToken.csrfToken());
-                headers.add(COOKIE, cookieHeaderValue);
-              })
-              //              .cookie(SESSION_ID_COOKIE_NAME, sessionIdAndCsrfToken.sessionId())
-              //              .cookie(CSRF_COOKIE_NAME, sessionIdAndCsrfToken.csrfToken())
+              // the server is not spec complaint i.e it expects all cookies in a single cookie header, which the cookie jar takes care of
+              .cookie(SESSION_ID_COOKIE_NAME, sessionIdAndCsrfToken.sessionId())
+              .cookie(CSRF_COOKIE_NAME, sessionIdAndCsrfToken.csrfToken())
               .header(CSRF_HEADER_NAME, sessionIdAndCsrfToken.csrfToken())
-              .body(uploadResumeRequest$, UploadResumeRequest.class)
+              .contentType(APPLICATION_JSON)
+              .body(body)
               .retrieve().bodyToMono(Void.class)
               .doOnSubscribe(__ -> log.info("Attempting to upload resume"))
-              .doFinally(signal -> log.info("Finished attempt to upload resume. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to upload resume. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".upload-resume"));
         });
   }
 
@@ -156,7 +223,8 @@ public class InstahyreResumeRefresher implements ResumeRefresher {
               .bodyToMono(CandidateResponse.class)
               .map(candidateResponse -> candidateResponse.resume().id())
               .doOnSubscribe(__ -> log.info("Attempting to retrieve resumeId"))
-              .doFinally(signal -> log.info("Finished attempt to retrieve resumeId. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to retrieve resumeId. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".resume-id"));
         });
   }
 
@@ -168,7 +236,7 @@ public class InstahyreResumeRefresher implements ResumeRefresher {
 
     get `candidateId = '<\d+>',` from response html
      */
-    final Pattern candidateIdPattern = Pattern.compile("candidateId\s*=\s*'(?<candidateId>\\d+)'");
+    final var candidateIdExtractor = new StreamingPatternExtractor(CANDIDATE_ID_PATTERN, "candidateId", 64, MAX_PROFILE_PAGE_SCAN_BYTES);
     return sessionIdAndCsrfToken$
         .flatMap(sessionIdAndCsrfToken -> {
           //noinspection CodeBlock2Expr
@@ -177,17 +245,16 @@ public class InstahyreResumeRefresher implements ResumeRefresher {
               .uri("/candidate/profile/")
               .cookie(SESSION_ID_COOKIE_NAME, sessionIdAndCsrfToken.sessionId())
               .exchangeToMono(response -> {
-                //noinspection CodeBlock2Expr
-                return response.bodyToFlux(DataBuffer.class).as(MiscUtil::readAllBuffersAsUtf8String);
-              })
-              .map(bodyAsStr -> {
-                final var matcher = candidateIdPattern.matcher(bodyAsStr);
-                // noinspection ResultOfMethodCallIgnored
-                matcher.find();
-                return matcher.group("candidateId");
+                if (response.statusCode().is3xxRedirection()) {
+                  // instahyre redirects to login page when the session is no longer valid
+                  return Mono.<String>error(new SessionExpiredException("Instahyre redirected profile page to " + response.headers().header(LOCATION)));
+                }
+                // candidateId is at the top of the page. So, lets stop reading the page as soon as we find it
+                return response.bodyToFlux(DataBuffer.class).as(candidateIdExtractor::extract);
               })
               .doOnSubscribe(__ -> log.info("Attempting to retrieve candidateId"))
-              .doFinally(signal -> log.info("Finished attempt to retrieve candidateId. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to retrieve candidateId. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".candidate-id"));
         });
   }
 
@@ -206,12 +273,22 @@ public class InstahyreResumeRefresher implements ResumeRefresher {
         .contentType(APPLICATION_JSON)
         .bodyValue(new LoginRequest(instahyreProperties.username(), instahyreProperties.password()))
         .exchangeToMono(response -> {
-          final var sessionId = requireNonNull(response.cookies().getFirst(SESSION_ID_COOKIE_NAME)).getValue();
-          final var csrfToken = requireNonNull(response.cookies().getFirst(CSRF_COOKIE_NAME)).getValue();
-          return Mono.just(new SessionIdAndCsrfToken(sessionId, csrfToken));
+          if (response.rawStatusCode() >= 400) {
+            return response.createException().flatMap(e -> Mono.<SessionIdAndCsrfToken>error(e));
+          }
+          final var sessionIdCookie = response.cookies().getFirst(SESSION_ID_COOKIE_NAME);
+          final var csrfTokenCookie = response.cookies().getFirst(CSRF_COOKIE_NAME);
+          if (sessionIdCookie == null || csrfTokenCookie == null) {
+            return Mono.<SessionIdAndCsrfToken>error(new AuthRejectedException("Instahyre did not set " + SESSION_ID_COOKIE_NAME + " & " + CSRF_COOKIE_NAME + " cookies on login. Check credentials"));
+          }
+          final var csrfToken = csrfTokenCookie.getValue();
+          // max age is negative when server does not specify it
+          final var expiresAt = sessionIdCookie.getMaxAge().isNegative() || sessionIdCookie.getMaxAge().isZero() ? null : Instant.now().plus(sessionIdCookie.getMaxAge());
+          return Mono.just(new SessionIdAndCsrfToken(sessionIdCookie.getValue(), csrfToken, expiresAt));
         })
         .doOnSubscribe(__ -> log.info("Attempting to fetch session id & csrf token"))
-        .doFinally(signal -> log.info("Finished attempt to fetch session id & csrf token. Final signal received is {}", signal));
+        .doFinally(signal -> log.info("Finished attempt to fetch session id & csrf token. Final signal received is {}", signal))
+        .retryWhen(retryPolicies.retryFor(PORTAL + ".login"));
   }
 
   //@formatter:on
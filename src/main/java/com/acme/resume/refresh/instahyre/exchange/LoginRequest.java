@@ -1,6 +1,8 @@
 package com.acme.resume.refresh.instahyre.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@GenerateJsonCodec
 public record LoginRequest(@JsonProperty("email") String username, String password) {
 }
@@ -1,4 +1,7 @@
 package com.acme.resume.refresh.instahyre.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
+
+@GenerateJsonCodec
 public record ResumeResponse(long id) {
 }
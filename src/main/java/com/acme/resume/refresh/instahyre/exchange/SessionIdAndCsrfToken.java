@@ -1,4 +1,6 @@
 package com.acme.resume.refresh.instahyre.exchange;
 
-public record SessionIdAndCsrfToken(String sessionId, String csrfToken) {
+import java.time.Instant;
+
+public record SessionIdAndCsrfToken(String sessionId, String csrfToken, Instant expiresAt) {
 }
@@ -1,8 +1,10 @@
 package com.acme.resume.refresh.instahyre.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 //calculate_opps":true,"candidate":"/api/v1/limited_candidate/<candidateId>","resource_uri":"/api/v1/resume/<resumeId>","file_b64":"data:application/pdf;base64,<base64 content>","title
+@GenerateJsonCodec
 public record UploadResumeRequest(@JsonProperty("candidate") String candidateUri,
                                   @JsonProperty("resource_uri") String resumeUri,
                                   @JsonProperty("title") String filename,
@@ -0,0 +1,65 @@
+package com.acme.resume.refresh.journal;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Completed steps of a single refresh of an account. Obtained from {@link RefreshJournal#checkpoints(String, String)}
+ */
+public final class Checkpoints {
+  private final RefreshJournal refreshJournal;
+  private final String account;
+  private final String resumeHash;
+
+  Checkpoints(RefreshJournal refreshJournal, String account, String resumeHash) {
+    this.refreshJournal = refreshJournal;
+    this.account = account;
+    this.resumeHash = resumeHash;
+  }
+
+  /**
+   * @return output of `step` recorded by an earlier attempt (without subscribing to `step$`) if there is one, otherwise runs `step$` & records its output
+   */
+  public Mono<String> remember(String step, Mono<String> step$) {
+    return refreshJournal.outputOf$(account, resumeHash, step)
+        .flatMap(output -> output.map(Mono::just).orElseGet(() -> step$.flatMap(value -> refreshJournal.record$(account, resumeHash, step, value).thenReturn(value))));
+  }
+
+  /**
+   * Same as {@link #remember(String, Mono)}, but for steps without an output
+   */
+  public Mono<Void> once(String step, Mono<Void> step$) {
+    return remember(step, step$.thenReturn("")).then();
+  }
+
+  /**
+   * Blocking counterpart of {@link #remember(String, Mono)}. Must not be called on an event loop thread
+   */
+  public String remember(String step, Callable<String> work) throws Exception {
+    final var output = refreshJournal.outputOf$(account, resumeHash, step).block();
+    if (output.isPresent()) {
+      return output.get();
+    }
+    final var value = work.call();
+    refreshJournal.record$(account, resumeHash, step, value).block();
+    return value;
+  }
+
+  /**
+   * Blocking counterpart of {@link #once(String, Mono)}
+   */
+  public void once(String step, Callable<?> work) throws Exception {
+    remember(step, () -> {
+      work.call();
+      return "";
+    });
+  }
+
+  /**
+   * Forgets all steps, so that the next refresh starts from scratch. To be called once the whole refresh succeeds
+   */
+  public Mono<Void> complete() {
+    return refreshJournal.forget$(account);
+  }
+}
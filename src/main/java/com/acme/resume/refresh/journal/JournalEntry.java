@@ -0,0 +1,20 @@
+package com.acme.resume.refresh.journal;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Steps of an incomplete refresh of a single account that already succeeded
+ *
+ * @param resumeHash hash of the resume being refreshed. Entry is discarded if the resume changes
+ * @param stepToOutput output of each completed step. Empty string for steps without an output
+ * @param startedAt time the first step of the refresh completed. Entry is discarded once it gets older than `app.journal.ttl`
+ */
+public record JournalEntry(String resumeHash, Map<String, String> stepToOutput, Instant startedAt) {
+  public JournalEntry withStep(String step, String output) {
+    final var newStepToOutput = new HashMap<>(stepToOutput);
+    newStepToOutput.put(step, output);
+    return new JournalEntry(resumeHash, newStepToOutput, startedAt);
+  }
+}
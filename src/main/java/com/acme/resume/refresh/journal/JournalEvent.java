@@ -0,0 +1,26 @@
+package com.acme.resume.refresh.journal;
+
+import java.time.Instant;
+
+/**
+ * Single line of the refresh journal file. Journal is rebuilt by replaying these in order
+ *
+ * @param accountHash hash of the account, so that usernames are not leaked on disk
+ * @param resumeHash hash of the resume being refreshed. `null` when the account is forgotten
+ * @param startedAt time the first step of the refresh completed. Step of a refresh with a different start time belongs to a fresh entry. `null` when the account is forgotten
+ * @param step completed step. `null` when the account is forgotten i.e. its refresh completed
+ * @param output output of the completed step. Empty string for steps without an output
+ */
+public record JournalEvent(String accountHash, String resumeHash, Instant startedAt, String step, String output) {
+  static JournalEvent completed(String accountHash, JournalEntry entry, String step) {
+    return new JournalEvent(accountHash, entry.resumeHash(), entry.startedAt(), step, entry.stepToOutput().get(step));
+  }
+
+  static JournalEvent forgotten(String accountHash) {
+    return new JournalEvent(accountHash, null, null, null, null);
+  }
+
+  boolean isForget() {
+    return step == null;
+  }
+}
@@ -0,0 +1,243 @@
+package com.acme.resume.refresh.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Durable journal of steps completed by incomplete refreshes, keyed by account. When a refresh fails midway (for eg. at naukri advertise step), next attempt (retry of the session (or) next run) continues from the first incomplete step instead of repeating everything, re-uploading the resume included.
+ * <p>
+ * Steps are recorded in memory right away & appended to the file as json lines ({@link JournalEvent}) by a single writer on a bounded elastic thread, which picks up every event recorded since its last write in one go. So recording a step never does file I/O on the calling (event loop) thread & the cost of a write does not grow with the number of accounts.
+ * The file is compacted (rewritten with just the live steps) once most of its lines are stale.
+ * <p>
+ * Accounts are stored as hashes, so usernames are not leaked on disk
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(RefreshJournalProperties.class)
+public class RefreshJournal implements InitializingBean, DisposableBean {
+  // lets not rewrite the file over & over for a handful of stale lines
+  private static final int MIN_EVENTS_TO_COMPACT = 1_000;
+
+  private final RefreshJournalProperties refreshJournalProperties;
+  private final ObjectMapper objectMapper;
+  private final ConcurrentLinkedQueue<JournalEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean writeScheduled = new AtomicBoolean();
+  private final Object writeLock = new Object();
+  // file is read once on a bounded elastic thread. Loading starts as soon as the bean is ready (see afterPropertiesSet), so refreshes usually find it loaded
+  private final Mono<Map<String, JournalEntry>> accountHashToEntry$ = Mono.<Map<String, JournalEntry>>fromCallable(() -> new ConcurrentHashMap<>(load()))
+      .subscribeOn(Schedulers.boundedElastic())
+      .cache();
+  // guarded by writeLock
+  private long eventsInFile;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public RefreshJournal(RefreshJournalProperties refreshJournalProperties, ObjectMapper objectMapper) {
+    this.refreshJournalProperties = refreshJournalProperties;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * @param account account being refreshed. For eg. {@link com.acme.resume.refresh.session.SessionManager#keyOf(String, String)}
+   * @param resumeHash hash of the resume being uploaded, so that steps of a different resume are not reused
+   */
+  public Checkpoints checkpoints(String account, String resumeHash) {
+    return new Checkpoints(this, account, resumeHash);
+  }
+
+  /**
+   * @return empty optional if `step` was not completed by an earlier attempt
+   */
+  Mono<Optional<String>> outputOf$(String account, String resumeHash, String step) {
+    return accountHashToEntry$.map(entries -> {
+      final var output = liveEntryOf(entries.get(hashOf(account)), resumeHash).map(entry -> entry.stepToOutput().get(step));
+      output.ifPresent(__ -> log.info("Skipping {} as it was completed by an earlier attempt", step));
+      return output;
+    });
+  }
+
+  Mono<Void> record$(String account, String resumeHash, String step, String output) {
+    return accountHashToEntry$.doOnNext(entries -> entries.compute(hashOf(account), (accountHash, existing) -> {
+      final var entry = liveEntryOf(existing, resumeHash).orElseGet(() -> new JournalEntry(resumeHash, Map.of(), Instant.now())).withStep(step, output);
+      // enqueued while holding the entry, so that events of an account reach the file in the order they were applied
+      enqueue(JournalEvent.completed(accountHash, entry, step));
+      return entry;
+    })).then();
+  }
+
+  Mono<Void> forget$(String account) {
+    return accountHashToEntry$.doOnNext(entries -> entries.computeIfPresent(hashOf(account), (accountHash, __) -> {
+      enqueue(JournalEvent.forgotten(accountHash));
+      return null;
+    })).then();
+  }
+
+  /**
+   * Starts loading the file right away, so that the first refresh does not wait for it
+   */
+  @Override
+  public void afterPropertiesSet() {
+    accountHashToEntry$.subscribe();
+  }
+
+  /**
+   * Writes events that are yet to be written, so that nothing recorded is lost on shutdown
+   */
+  @Override
+  public void destroy() {
+    write();
+  }
+
+  private Optional<JournalEntry> liveEntryOf(JournalEntry entry, String resumeHash) {
+    return Optional.ofNullable(entry)
+        .filter(it -> it.resumeHash().equals(resumeHash))
+        .filter(it -> it.startedAt().plus(refreshJournalProperties.ttl()).isAfter(Instant.now()));
+  }
+
+  private Map<String, JournalEntry> load() {
+    final var file = persistentFile();
+    if (file == null || !Files.exists(file)) {
+      return Map.of();
+    }
+    final Map<String, JournalEntry> entries = new HashMap<>();
+    try (var lines = Files.lines(file, UTF_8)) {
+      lines.filter(line -> !line.isBlank()).forEach(line -> {
+        eventsInFile++;
+        try {
+          apply(entries, objectMapper.readValue(line, JournalEvent.class));
+        } catch (IOException e) {
+          // for eg. last line of a write cut short by a crash. Other lines are still good
+          log.warn("Skipping unreadable line of refresh journal {}. Reason: {}", file, e.toString());
+        }
+      });
+      return entries;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Unable to read refresh journal from {}. Starting with an empty journal. Reason: {}", file, e.toString());
+      return Map.of();
+    }
+  }
+
+  private static void apply(Map<String, JournalEntry> entries, JournalEvent event) {
+    if (event.isForget()) {
+      entries.remove(event.accountHash());
+      return;
+    }
+    entries.compute(event.accountHash(), (__, existing) -> {
+      final var entry = existing != null && existing.resumeHash().equals(event.resumeHash()) && existing.startedAt().equals(event.startedAt())
+          ? existing : new JournalEntry(event.resumeHash(), Map.of(), event.startedAt());
+      return entry.withStep(event.step(), event.output());
+    });
+  }
+
+  private void enqueue(JournalEvent event) {
+    if (persistentFile() == null) {
+      return;
+    }
+    pendingEvents.add(event);
+    if (writeScheduled.compareAndSet(false, true)) {
+      Schedulers.boundedElastic().schedule(this::write);
+    }
+  }
+
+  private void write() {
+    final var file = persistentFile();
+    if (file == null) {
+      return;
+    }
+    synchronized (writeLock) {
+      // reset before draining, so that an event enqueued while we write schedules a write of its own
+      writeScheduled.set(false);
+      final List<JournalEvent> events = new ArrayList<>();
+      for (var event = pendingEvents.poll(); event != null; event = pendingEvents.poll()) {
+        events.add(event);
+      }
+      if (events.isEmpty()) {
+        return;
+      }
+      try {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.write(file, linesOf(events), CREATE, APPEND);
+        eventsInFile += events.size();
+        compactIfMostlyStale(file);
+      } catch (IOException e) {
+        // not being able to persist is not fatal. Next run will just repeat the steps
+        log.warn("Unable to persist refresh journal to {}. Reason: {}", file, e.toString());
+      }
+    }
+  }
+
+  /**
+   * Rewrites the file with just the live steps. Events enqueued meanwhile are appended after the rewrite, which is fine as replaying an event twice has no effect
+   */
+  private void compactIfMostlyStale(Path file) throws IOException {
+    if (eventsInFile < MIN_EVENTS_TO_COMPACT) {
+      return;
+    }
+    final List<JournalEvent> liveEvents = new ArrayList<>();
+    // writer only runs once events are recorded i.e the file is already loaded by then, so this does not wait
+    accountHashToEntry$.block().forEach((accountHash, entry) -> {
+      if (liveEntryOf(entry, entry.resumeHash()).isPresent()) {
+        entry.stepToOutput().keySet().forEach(step -> liveEvents.add(JournalEvent.completed(accountHash, entry, step)));
+      }
+    });
+    if (eventsInFile < 2L * liveEvents.size()) {
+      return;
+    }
+    final var tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), "journal", ".tmp");
+    Files.write(tempFile, linesOf(liveEvents));
+    Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    log.debug("Compacted refresh journal {} from {} to {} lines", file, eventsInFile, liveEvents.size());
+    eventsInFile = liveEvents.size();
+  }
+
+  private byte[] linesOf(List<JournalEvent> events) throws IOException {
+    final var lines = new ByteArrayOutputStream();
+    for (JournalEvent event : events) {
+      lines.write(objectMapper.writeValueAsBytes(event));
+      lines.write('\n');
+    }
+    return lines.toByteArray();
+  }
+
+  private Path persistentFile() {
+    return hasText(refreshJournalProperties.file()) ? Paths.get(refreshJournalProperties.file()) : null;
+  }
+
+  private static String hashOf(String account) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(account.getBytes(UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
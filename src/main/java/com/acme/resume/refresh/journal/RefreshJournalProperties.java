@@ -0,0 +1,14 @@
+package com.acme.resume.refresh.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param file file where completed steps of incomplete refreshes are persisted across runs. Steps are only remembered in memory if not specified
+ * @param ttl completed steps older than this are not reused, as their outputs (for eg. naukri file key) may no longer be accepted by the portal
+ */
+@ConfigurationProperties("app.journal")
+public record RefreshJournalProperties(String file, @DefaultValue("6h") Duration ttl) {
+}
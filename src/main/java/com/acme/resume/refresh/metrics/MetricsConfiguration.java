@@ -0,0 +1,39 @@
+package com.acme.resume.refresh.metrics;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * We don't pull in actuator (there is no web server to expose its endpoints), so lets setup the registry ourselves
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(MetricsProperties.class)
+public final class MetricsConfiguration {
+  @Bean(destroyMethod = "close")
+  public PrometheusMeterRegistry prometheusMeterRegistry(MetricsProperties metricsProperties) {
+    final var registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    final var percentiles = metricsProperties.percentiles().stream().mapToDouble(Double::doubleValue).toArray();
+    registry.config()
+        .commonTags("application", "resume-refresher")
+        .meterFilter(new MeterFilter() {
+          @Override
+          public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+            if (id.getType() != Meter.Type.TIMER) {
+              return config;
+            }
+            return DistributionStatisticConfig.builder()
+                .percentiles(percentiles)
+                .percentilesHistogram(metricsProperties.percentileHistogram())
+                .build()
+                .merge(config);
+          }
+        });
+    return registry;
+  }
+}
@@ -0,0 +1,19 @@
+package com.acme.resume.refresh.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * @param prometheusFile file to which metrics are written in prometheus text format at the end of every run (for eg. for node exporter's textfile collector). Not written if not specified
+ * @param port port on which metrics are served in prometheus text format under `/metrics` while the application is running (useful in daemon mode). Not served if not specified
+ * @param percentiles latency percentiles published for every timer
+ * @param percentileHistogram whether histogram buckets are published, so that percentiles can be aggregated across runs/instances in prometheus
+ */
+@ConfigurationProperties("app.metrics")
+public record MetricsProperties(String prometheusFile,
+                                Integer port,
+                                @DefaultValue({"0.5", "0.9", "0.99"}) List<Double> percentiles,
+                                @DefaultValue("true") boolean percentileHistogram) {
+}
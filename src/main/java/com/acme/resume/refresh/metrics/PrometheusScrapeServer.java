@@ -0,0 +1,60 @@
+package com.acme.resume.refresh.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serves metrics under `/metrics` on `app.metrics.port` for prometheus to scrape, using the http server that comes with the JDK. Pulling in a reactive server just for this one endpoint is not worth it
+ */
+@Log4j2
+@Component
+public class PrometheusScrapeServer implements InitializingBean, DisposableBean {
+  private final PrometheusMeterRegistry registry;
+  private final MetricsProperties metricsProperties;
+  private HttpServer server;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public PrometheusScrapeServer(PrometheusMeterRegistry registry, MetricsProperties metricsProperties) {
+    this.registry = registry;
+    this.metricsProperties = metricsProperties;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (metricsProperties.port() == null) {
+      return;
+    }
+    try {
+      server = HttpServer.create(new InetSocketAddress(metricsProperties.port()), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to serve metrics on port " + metricsProperties.port(), e);
+    }
+    server.createContext("/metrics", exchange -> {
+      final var body = registry.scrape().getBytes(UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (var responseBody = exchange.getResponseBody()) {
+        responseBody.write(body);
+      }
+    });
+    server.start();
+    log.info("Serving metrics on port {} under /metrics", metricsProperties.port());
+  }
+
+  @Override
+  public void destroy() {
+    if (server != null) {
+      server.stop(0);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.acme.resume.refresh.metrics;
+
+import com.acme.resume.refresh.resilience.FailureKind;
+import com.acme.resume.refresh.step.StepObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Locale;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Latency & outcome of every refresh & each of its steps, tagged by portal, step & outcome. Outcome is either `success` (or) the {@link FailureKind} of the failure
+ */
+@Log4j2
+@Component
+public class RefreshMetrics {
+  private static final String REFRESH_TIMER_NAME = "resume.refresh";
+  private static final String STEP_TIMER_NAME = "resume.refresh.step";
+  private static final String STEP_FAILURES_COUNTER_NAME = "resume.refresh.step.failures";
+  private static final String STEP_PHASE_TIMER_NAME = "resume.refresh.step.phase";
+
+  private final PrometheusMeterRegistry registry;
+  private final MetricsProperties metricsProperties;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public RefreshMetrics(PrometheusMeterRegistry registry, MetricsProperties metricsProperties) {
+    this.registry = registry;
+    this.metricsProperties = metricsProperties;
+  }
+
+  public void recordRefresh(String portal, Duration elapsed, Throwable error) {
+    Timer.builder(REFRESH_TIMER_NAME)
+        .description("Time taken to refresh resume on a portal")
+        .tag("portal", portal)
+        .tag("outcome", outcomeOf(error))
+        .register(registry)
+        .record(elapsed);
+  }
+
+  /**
+   * @return observer that records each step of a refresh on `portal`. To be put in the reactor context of the refresh
+   */
+  public StepObserver stepObserverOf(String portal) {
+    return (step, elapsed, phaseTimings, error) -> {
+      final var outcome = outcomeOf(error);
+      Timer.builder(STEP_TIMER_NAME)
+          .description("Time taken by a single step (login, upload etc) of a refresh")
+          .tag("portal", portal)
+          .tag("step", step)
+          .tag("outcome", outcome)
+          .register(registry)
+          .record(elapsed);
+      phaseTimings.snapshot().forEach((phase, time) -> Timer.builder(STEP_PHASE_TIMER_NAME)
+          .description("Time spent by a step in each phase (dns, connect, tls, ttfb etc) of its network calls")
+          .tag("portal", portal)
+          .tag("step", step)
+          .tag("phase", phase)
+          .register(registry)
+          .record(time));
+      if (error != null) {
+        Counter.builder(STEP_FAILURES_COUNTER_NAME)
+            .description("Failed steps of refreshes by failure kind")
+            .tag("portal", portal)
+            .tag("step", step)
+            .tag("outcome", outcome)
+            .register(registry)
+            .increment();
+      }
+    };
+  }
+
+  /**
+   * Writes all metrics to `app.metrics.prometheus-file` (if specified). File is replaced atomically, so that a collector never reads a partially written file
+   */
+  public void export() {
+    if (!hasText(metricsProperties.prometheusFile())) {
+      return;
+    }
+    final Path file = Paths.get(metricsProperties.prometheusFile());
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      final var tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), "metrics", ".tmp");
+      Files.writeString(tempFile, registry.scrape(), UTF_8);
+      // temp files are private to us (rw-------), but the textfile collector usually runs as a different user
+      if (tempFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+        Files.setPosixFilePermissions(tempFile, PosixFilePermissions.fromString("rw-r--r--"));
+      }
+      Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      log.warn("Unable to export metrics to {}. Reason: {}", file, e.toString());
+    }
+  }
+
+  private static String outcomeOf(Throwable error) {
+    return error == null ? "success" : FailureKind.of(error).name().toLowerCase(Locale.ROOT);
+  }
+}
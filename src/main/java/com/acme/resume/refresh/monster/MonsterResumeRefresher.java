@@ -1,30 +1,43 @@
 package com.acme.resume.refresh.monster;
 
+import com.acme.resume.refresh.asset.StaticAssetCache;
+import com.acme.resume.refresh.codec.JsonCodecs;
 import com.acme.resume.refresh.common.ConditionalOnPropertyNotEmpty;
 import com.acme.resume.refresh.common.ResumeProperties;
 import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.http.CookieJar;
+import com.acme.resume.refresh.http.FlightRecorder;
+import com.acme.resume.refresh.journal.RefreshJournal;
 import com.acme.resume.refresh.monster.exchange.InitialCookieAndRedirectUrl;
 import com.acme.resume.refresh.monster.exchange.LoginResponse;
 import com.acme.resume.refresh.monster.exchange.UploadResponse;
 import com.acme.resume.refresh.monster.exchange.UserProfileResponse;
-import com.acme.resume.refresh.util.MiscUtil;
+import com.acme.resume.refresh.resilience.CircuitBreakerRegistry;
+import com.acme.resume.refresh.resilience.PortalContractException;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.resilience.RetryPolicies;
+import com.acme.resume.refresh.resilience.TransientPortalException;
+import com.acme.resume.refresh.session.AuthSession;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.step.StepGraph;
+import com.acme.resume.refresh.store.ResumeStore;
+import com.acme.resume.refresh.store.StoredResume;
+import com.acme.resume.refresh.util.StreamingPatternExtractor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.core.annotation.Order;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
-import java.util.function.Function;
+import java.net.HttpCookie;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Map;
 import java.util.regex.Pattern;
 
-import static java.util.Objects.requireNonNull;
+import static com.acme.resume.refresh.util.MultipartBodyInserters.fromFieldsAndFile;
 import static org.springframework.http.HttpHeaders.LOCATION;
 import static org.springframework.http.HttpHeaders.REFERER;
 import static org.springframework.http.HttpHeaders.SET_COOKIE;
@@ -34,34 +47,58 @@ import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.MediaType.APPLICATION_FORM_URLENCODED;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_PDF;
-import static org.springframework.http.MediaType.MULTIPART_FORM_DATA;
 import static org.springframework.web.reactive.function.BodyInserters.fromFormData;
 
 @Log4j2
 @Component
 @EnableConfigurationProperties(MonsterProperties.class)
 @ConditionalOnPropertyNotEmpty({"app.monster.username", "app.monster.password"})
-@Order(300) // uploading of resume fails most of the time. Let do this at end
 @SuppressWarnings("unused") // since we are dealing with a component
 public class MonsterResumeRefresher implements ResumeRefresher {
   //@formatter:off
+  public static final String PORTAL = "monster";
   private static final String INITIAL_COOKIE_NAME = "MRE";
   private static final String MAIN_COOKIE_NAME = "MSSOAT";
+  private static final int UPLOAD_CHUNK_SIZE = 64 * 1024;
+  static final Pattern CLIENT_ID_PATTERN = Pattern.compile("client_id=\"(?<clientId>[^\"]+?)\"");
 
   private final MonsterProperties monsterProperties;
   private final ResumeProperties resumeProperties;
+  private final SessionManager sessionManager;
+  private final StaticAssetCache staticAssetCache;
+  private final ResumeStore resumeStore;
+  private final CookieJar cookieJar = new CookieJar();
+  private final RetryPolicies retryPolicies;
+  private final RefreshJournal refreshJournal;
   private final WebClient webClient;
 
   @SuppressWarnings("unused") // since we are dealing with a component
   public MonsterResumeRefresher(@Valid MonsterProperties monsterProperties,
       @Valid ResumeProperties resumeProperties,
       ClientHttpConnector clientHttpConnector,
-      Function<String, ClientHttpConnector> loggerNameToClientHttpConnectorMapper) {
+      SessionManager sessionManager,
+      StaticAssetCache staticAssetCache,
+      ResumeStore resumeStore,
+      FlightRecorder flightRecorder,
+      RetryPolicies retryPolicies,
+      CircuitBreakerRegistry circuitBreakerRegistry,
+      RefreshJournal refreshJournal,
+      RateLimiterRegistry rateLimiterRegistry) {
     this.monsterProperties = monsterProperties;
     this.resumeProperties = resumeProperties;
+    this.sessionManager = sessionManager;
+    this.staticAssetCache = staticAssetCache;
+    this.resumeStore = resumeStore;
+    this.retryPolicies = retryPolicies;
+    this.refreshJournal = refreshJournal;
     this.webClient =
         WebClient.builder().baseUrl("https://www.monsterindia.com")
-            .clientConnector(loggerNameToClientHttpConnectorMapper.apply(getClass().getCanonicalName()))
+            .clientConnector(clientHttpConnector)
+            .codecs(JsonCodecs::register)
+            .filter(circuitBreakerRegistry.filter())
+            .filter(rateLimiterRegistry.filter())
+            .filter(cookieJar.filter())
+            .filter(flightRecorder.filter())
             .defaultHeaders(httpHeaders -> {
               httpHeaders.add(USER_AGENT, "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/104.0.5112.81 Safari/537.36");
               httpHeaders.add(REFERER, "https://www.monsterindia.com/");
@@ -70,21 +107,35 @@ public class MonsterResumeRefresher implements ResumeRefresher {
   }
 
   @Override
-  public Mono<Void> refresh() {
-    Mono<String> mainCookie$ = buildMainCookie$().cache();
-    Mono<String> profileId$ = buildProfileId$(mainCookie$).cache();
-    // monster upload API is quite unstable & fails quite often, even if we retry. If we delete resume & upload fails, teh profile wont have resume till this program run next time. So lets not delete resume.
-//    Mono<Void> deleteResume$ = buildDeleteResume$(mainCookie$);
-    Mono<Void> uploadResumeAndPublishUpdate$ = buildUploadResumeAndPublishUpdate$(mainCookie$, profileId$);
+  public String portal() {
+    return PORTAL;
+  }
 
-    return profileId$
-//        .then(deleteResume$)
-        .then(uploadResumeAndPublishUpdate$)
+  @Override
+  public Mono<Void> refresh() {
+    final var account = SessionManager.keyOf(PORTAL, monsterProperties.username());
+    return resumeStore.open$(Paths.get(resumeProperties.path()))
+        .flatMap(resume -> {
+          // steps completed by an earlier failed attempt are skipped, so that we dont upload the resume again just to publish the update
+          final var checkpoints = refreshJournal.checkpoints(account, resume.contentHash());
+          return sessionManager.withLazySession(account, buildMainCookie$(), session$ -> {
+                final var graph = new StepGraph("Monster refresh");
+                final var mainCookie = graph.step("login", __ -> session$.map(session -> session.token(MAIN_COOKIE_NAME)));
+                final var profileId = graph.step("profile-id", inputs -> buildProfileId$(Mono.just(inputs.of(mainCookie))), mainCookie);
+                // monster upload API is quite unstable & fails quite often, even if we retry. If we delete resume & upload fails, teh profile wont have resume till this program run next time. So lets not delete resume.
+//                final var deleteResume = graph.step("delete-resume", inputs -> buildDeleteResume$(Mono.just(inputs.of(mainCookie))), mainCookie);
+                // upload does not need profile id, so it runs while we fetch it
+                final var uploadResume = graph.step("upload-resume", inputs -> checkpoints.once("upload-resume", buildUploadResume$(Mono.just(inputs.of(mainCookie)), resume)), mainCookie);
+                graph.step("publish-update", inputs -> buildPublishUpdate$(Mono.just(inputs.of(mainCookie)), Mono.just(inputs.of(profileId))), mainCookie, profileId, uploadResume);
+                return graph.run();
+              })
+              .then(checkpoints.complete());
+        })
         .doOnSubscribe(__ -> log.info("Attempting to refresh resume on Monster"))
         .doFinally(signal -> log.info("Finished attempt to refresh resume on Monster. Final signal received is {}", signal));
   }
 
-  private Mono<Void> buildUploadResumeAndPublishUpdate$(Mono<String> mainCookie$, Mono<String> profileId$) {
+  private Mono<Void> buildUploadResume$(Mono<String> mainCookie$, StoredResume resume) {
     /*
     curl 'https://www.monsterindia.com/middleware/upload-resume' \
       -H 'cookie: MSSOAT=<>' \
@@ -94,32 +145,34 @@ public class MonsterResumeRefresher implements ResumeRefresher {
 
       {"uploadResumeStatus":500,"uploadResumeStatusText":"Internal Server Error","uploadResumeResponse":{"appName":"falcon","appVersion":"30.67.2","errorCode":"SERVER_ERROR","errorMessage":"Something went wrong. Please try after sometime.","detailErrorMessage":"failed to update seeker profile resume"}}
      */
-    Mono<Void> uploadResume$ = mainCookie$
+    // resume is the one whose hash the checkpoints are keyed by, so lets upload exactly that instead of opening the file again
+    return mainCookie$
         .flatMap(mainCookie -> {
-          MultipartBodyBuilder multipartBodyBuilder = new MultipartBodyBuilder();
-          Resource resumePdf = new FileSystemResource(resumeProperties.path());
-          multipartBodyBuilder.part("file", resumePdf, APPLICATION_PDF).filename(resumeProperties.filename());
-
           return webClient
               .method(POST)
               .uri("/middleware/upload-resume")
               .cookie(MAIN_COOKIE_NAME, mainCookie)
-              .contentType(MULTIPART_FORM_DATA)
-              .bodyValue(multipartBodyBuilder.build())
+              // resume shared with other portals/tenants is sent straight from the file (or its read-only mapping under tls)
+              .body(fromFieldsAndFile(Map.of(), "file", resumeProperties.filename(), APPLICATION_PDF, resume, UPLOAD_CHUNK_SIZE))
               .exchangeToMono(response -> {
                 final var uploadResponse$ = response.bodyToMono(UploadResponse.class);
                 return uploadResponse$.flatMap(uploadResponse -> {
                   if (uploadResponse.uploadResumeStatus() != 200) {
-                    return Mono.<Void>error(new RuntimeException(String.format("Upload failed. Status code: %d; Status text: %s; Detailed status text: %s", uploadResponse.uploadResumeStatus(), uploadResponse.uploadResumeStatusText(), uploadResponse.additionalDetails().errorMessage() + uploadResponse.additionalDetails().detailErrorMessage())));
+                    final var message = String.format("Upload failed. Status code: %d; Status text: %s; Detailed status text: %s", uploadResponse.uploadResumeStatus(), uploadResponse.uploadResumeStatusText(), uploadResponse.additionalDetails().errorMessage() + uploadResponse.additionalDetails().detailErrorMessage());
+                    // monster wraps its own 5xx inside a 200 response. Those are worth retrying
+                    return Mono.<Void>error(uploadResponse.uploadResumeStatus() >= 500 ? new TransientPortalException(message) : new RuntimeException(message));
                   } else {
                     return Mono.empty();
                   }
                 });
               })
               .doOnSubscribe(__ -> log.info("Attempting to upload new resume"))
-              .doFinally(signal -> log.info("Finished attempt to upload new resume. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to upload new resume. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".upload-resume"));
         });
+  }
 
+  private Mono<Void> buildPublishUpdate$(Mono<String> mainCookie$, Mono<String> profileId$) {
     /*
     curl 'https://www.monsterindia.com/middleware/publish/events/field-level-update' \
       -H 'content-type: application/json; charset=UTF-8' \
@@ -128,7 +181,7 @@ public class MonsterResumeRefresher implements ResumeRefresher {
       -H 'user-agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/104.0.5112.81 Safari/537.36' \
       --data-raw '{"fieldNames":["RESUME_UPLOAD"],"profileId":<>,"tenant":"web"}'
      */
-    Mono<Void> publishUpdate$ = mainCookie$
+    return mainCookie$
         .zipWith(profileId$)
         .flatMap(mainCookieAndProfileId -> {
           return webClient
@@ -140,11 +193,9 @@ public class MonsterResumeRefresher implements ResumeRefresher {
               .retrieve()
               .bodyToMono(Void.class)
               .doOnSubscribe(__ -> log.info("Attempting to publish resume uploaded event"))
-              .doFinally(signal -> log.info("Finished attempt to publish resume uploaded event. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to publish resume uploaded event. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".publish-update"));
         });
-
-    return uploadResume$
-        .thenEmpty(publishUpdate$);
   }
 
   private Mono<Void> buildDeleteResume$(Mono<String> mainCookie$) {
@@ -169,7 +220,8 @@ public class MonsterResumeRefresher implements ResumeRefresher {
               .retrieve()
               .bodyToMono(Void.class)
               .doOnSubscribe(__ -> log.info("Attempting to delete resume"))
-              .doFinally(signal -> log.info("Finished attempt to delete resume. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to delete resume. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".delete-resume"));
         });
   }
 
@@ -193,11 +245,12 @@ public class MonsterResumeRefresher implements ResumeRefresher {
               .bodyToMono(UserProfileResponse.class)
               .map(userProfileResponse -> userProfileResponse.userProfile().personalDetailSection().personalDetails().profileId())
               .doOnSubscribe(__ -> log.info("Attempting to retrieve profile id"))
-              .doFinally(signal -> log.info("Finished attempt to retrieve profile id. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to retrieve profile id. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".profile-id"));
         });
   }
 
-  private Mono<String> buildMainCookie$() {
+  private Mono<AuthSession> buildMainCookie$() {
     Mono<String> clientId$ = buildClientId$();
     Mono<InitialCookieAndRedirectUrl> initialCookieAndRedirectUrl$ = buildInitialCookieAndRedirectUrl$(clientId$).cache();
     Mono<String> oauthCallbackUrl$ = buildOauthCallbackUrl$(initialCookieAndRedirectUrl$);
@@ -222,20 +275,38 @@ public class MonsterResumeRefresher implements ResumeRefresher {
                 // Mono.just(requireNonNull(response.cookies().getFirst(MAIN_COOKIE_NAME)).getValue())
                 var mainCookiePattern = Pattern.compile(MAIN_COOKIE_NAME + "=(?<mainCookie>[^;]+);");
                 String mainCookie = null;
+                Instant mainCookieExpiresAt = null;
                 for (String setCookieHeader : response.headers().header(SET_COOKIE)) {
                   final var matcher = mainCookiePattern.matcher(setCookieHeader);
                   if (matcher.find()) {
                     mainCookie = matcher.group("mainCookie");
+                    mainCookieExpiresAt = expiryOf(setCookieHeader);
                     break;
                   }
                 }
-                return Mono.just(requireNonNull(mainCookie));
+                if (mainCookie == null) {
+                  return Mono.<AuthSession>error(new PortalContractException("Monster did not set " + MAIN_COOKIE_NAME + " cookie on oauth callback"));
+                }
+                return Mono.just(new AuthSession(Map.of(MAIN_COOKIE_NAME, mainCookie), mainCookieExpiresAt));
               })
               .doOnSubscribe(__ -> log.info("Attempting to retrieve main cookie"))
-              .doFinally(signal -> log.info("Finished attempt to retrieve main cookie. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to retrieve main cookie. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".main-cookie"));
         });
   }
 
+  /**
+   * @return expiry as specified by `Max-Age`/`Expires` attribute of the cookie. `null` if the cookie does not have either of them
+   */
+  private static Instant expiryOf(String setCookieHeader) {
+    try {
+      final var maxAgeInSeconds = HttpCookie.parse(setCookieHeader).get(0).getMaxAge();
+      return maxAgeInSeconds > 0 ? Instant.now().plusSeconds(maxAgeInSeconds) : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
   private Mono<String> buildOauthCallbackUrl$(Mono<InitialCookieAndRedirectUrl> initialCookieAndRedirectUrl$) {
     /*
     curl -v 'https://www.monsterindia.com/rio/oauth/authorize?client_id=&scope=all&response_type=code&redirect_uri=http://www.monsterindia.com/rio/login/oauth/callback' \
@@ -255,7 +326,8 @@ public class MonsterResumeRefresher implements ResumeRefresher {
               .cookie(INITIAL_COOKIE_NAME, initialCookieAndRedirectUrl.initialCookie())
               .exchangeToMono(response -> Mono.just(response.headers().header(LOCATION).get(0)))
               .doOnSubscribe(__ -> log.info("Attempting to retrieve initial cookie & redirectUrl"))
-              .doFinally(signal -> log.info("Finished attempt to retrieve initial cookie & redirectUrl call. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to retrieve initial cookie & redirectUrl call. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".oauth-callback"));
         });
   }
 
@@ -285,15 +357,19 @@ public class MonsterResumeRefresher implements ResumeRefresher {
                     .with("client_id", clientId)
               )
               .exchangeToMono(response -> {
-                //noinspection CodeBlock2Expr
+                if (response.rawStatusCode() >= 400) {
+                  return response.createException().flatMap(e -> Mono.<InitialCookieAndRedirectUrl>error(e));
+                }
+                final var targetCookie = response.cookies().getFirst(INITIAL_COOKIE_NAME);
+                if (targetCookie == null) {
+                  return Mono.<InitialCookieAndRedirectUrl>error(new PortalContractException("Monster did not set " + INITIAL_COOKIE_NAME + " cookie on login"));
+                }
                 return response.bodyToMono(LoginResponse.class)
-                    .map(loginResponse -> {
-                      final var targetCookie = requireNonNull(response.cookies().getFirst(INITIAL_COOKIE_NAME)).getValue();
-                      return new InitialCookieAndRedirectUrl(targetCookie, loginResponse.redirectUrl());
-                    });
+                    .map(loginResponse -> new InitialCookieAndRedirectUrl(targetCookie.getValue(), loginResponse.redirectUrl()));
               })
               .doOnSubscribe(__ -> log.info("Attempting to retrieve initial cookie & redirectUrl"))
-              .doFinally(signal -> log.info("Finished attempt to retrieve initial cookie & redirectUrl call. Terminal signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to retrieve initial cookie & redirectUrl call. Terminal signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".login"));
         });
   }
 
@@ -302,22 +378,12 @@ public class MonsterResumeRefresher implements ResumeRefresher {
     This script has `client_id` parameter thats required to upload the file from https://media.monsterindia.com/rio/public/js/login-app-service.js
     We are looking for string of following format `client_id="<>"`
     */
-    final Pattern clientIdPattern = Pattern.compile("client_id=\"(?<clientId>[^\"]+?)\"");
-    return webClient
-        .method(GET)
-        .uri("https://media.monsterindia.com/rio/public/js/login-app-service.js")
-        .exchangeToMono(response -> {
-          //noinspection CodeBlock2Expr
-          return response.bodyToFlux(DataBuffer.class).as(MiscUtil::readAllBuffersAsUtf8String);
-        })
-        .map(bodyAsStr -> {
-          final var matcher = clientIdPattern.matcher(bodyAsStr);
-          // noinspection ResultOfMethodCallIgnored
-          matcher.find();
-          return matcher.group("clientId");
-        })
+    // script rarely changes. So, lets only download it when its changed since we last fetched it
+    final var clientIdExtractor = new StreamingPatternExtractor(CLIENT_ID_PATTERN, "clientId", 256, 4 * 1024 * 1024);
+    return staticAssetCache.lookup(webClient, "https://media.monsterindia.com/rio/public/js/login-app-service.js", "clientId", clientIdExtractor::extract)
         .doOnSubscribe(__ -> log.info("Attempting to retrieve clientId"))
-        .doFinally(signal -> log.info("Finished attempt to retrieve clientId. Terminal signal received is {}", signal));
+        .doFinally(signal -> log.info("Finished attempt to retrieve clientId. Terminal signal received is {}", signal))
+        .retryWhen(retryPolicies.retryFor(PORTAL + ".client-id"));
   }
   //@formatter:on
 }
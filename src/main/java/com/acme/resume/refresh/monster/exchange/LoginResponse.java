@@ -1,8 +1,10 @@
 package com.acme.resume.refresh.monster.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
 import com.acme.resume.refresh.naukri.exchange.Cookie;
 
 import java.util.List;
 
+@GenerateJsonCodec
 public record LoginResponse(String redirectUrl) {
 }
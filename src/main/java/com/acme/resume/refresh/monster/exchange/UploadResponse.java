@@ -1,7 +1,9 @@
 package com.acme.resume.refresh.monster.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
 import com.acme.resume.refresh.monster.exchange.UploadResumeUploadDetailedStatus;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@GenerateJsonCodec
 public record UploadResponse(int uploadResumeStatus, String uploadResumeStatusText, @JsonProperty("uploadResumeResponse") UploadResumeUploadDetailedStatus additionalDetails) {
 }
@@ -1,4 +1,7 @@
 package com.acme.resume.refresh.monster.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
+
+@GenerateJsonCodec
 public record UserProfile(PersonalDetailSection personalDetailSection) {
 }
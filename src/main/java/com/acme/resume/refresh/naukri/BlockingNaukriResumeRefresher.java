@@ -0,0 +1,217 @@
+package com.acme.resume.refresh.naukri;
+
+import com.acme.resume.refresh.blocking.BlockingEngine;
+import com.acme.resume.refresh.codec.JsonCodecs;
+import com.acme.resume.refresh.common.ConditionalOnPropertyNotEmpty;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.journal.RefreshJournal;
+import com.acme.resume.refresh.naukri.exchange.AdvertiseResumeRequest;
+import com.acme.resume.refresh.naukri.exchange.AdvertiseResumeRequestJsonCodec;
+import com.acme.resume.refresh.naukri.exchange.Cookie;
+import com.acme.resume.refresh.naukri.exchange.DashboardResponseJsonCodec;
+import com.acme.resume.refresh.naukri.exchange.LoginRequest;
+import com.acme.resume.refresh.naukri.exchange.LoginRequestJsonCodec;
+import com.acme.resume.refresh.naukri.exchange.LoginResponseJsonCodec;
+import com.acme.resume.refresh.naukri.exchange.TextCv;
+import com.acme.resume.refresh.resilience.PortalContractException;
+import com.acme.resume.refresh.session.AuthSession;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.store.ResumeStore;
+import com.acme.resume.refresh.store.StoredResume;
+import com.acme.resume.refresh.util.JwtUtil;
+import com.acme.resume.refresh.util.MultipartBodyInserters;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.acme.resume.refresh.naukri.NaukriResumeRefresher.ANDROID_USER_AGENT;
+import static com.acme.resume.refresh.naukri.NaukriResumeRefresher.BEARER_JWT_COOKIE_NAME;
+import static com.acme.resume.refresh.naukri.NaukriResumeRefresher.FORM_KEY;
+import static com.acme.resume.refresh.naukri.NaukriResumeRefresher.PORTAL;
+import static com.acme.resume.refresh.naukri.NaukriResumeRefresher.UPLOAD_CHUNK_SIZE;
+import static com.acme.resume.refresh.naukri.NaukriResumeRefresher.generateRandomFileKey;
+import static java.net.http.HttpRequest.BodyPublishers.concat;
+import static java.net.http.HttpRequest.BodyPublishers.noBody;
+import static java.net.http.HttpRequest.BodyPublishers.ofByteArray;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.USER_AGENT;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_PDF;
+import static org.springframework.http.MediaType.MULTIPART_FORM_DATA;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Same refresh as {@link NaukriResumeRefresher} (see it for curl equivalents of each request), written as straight line blocking code for {@link BlockingEngine}.
+ * <p>
+ * Steps run one after the other, so unlike the reactive refresher, upload does not overlap with login
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(NaukriProperties.class)
+@ConditionalOnPropertyNotEmpty({"app.naukri.username", "app.naukri.password"})
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "blocking")
+@SuppressWarnings("unused") // since we are dealing with a component
+public class BlockingNaukriResumeRefresher implements ResumeRefresher {
+  private static final URI BASE_URL = URI.create("https://www.nma.mobi");
+  private static final URI UPLOAD_URL = URI.create("https://filevalidation.naukri.com/file");
+  private static final String PROFILES_PATH = "/apigateway/servicegateway-mynaukri/resman-aggregator-services/v0/users/self/profiles/";
+
+  private final NaukriProperties naukriProperties;
+  private final ResumeProperties resumeProperties;
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final RefreshJournal refreshJournal;
+  private final BlockingEngine blockingEngine;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public BlockingNaukriResumeRefresher(@Valid NaukriProperties naukriProperties,
+      @Valid ResumeProperties resumeProperties,
+      SessionManager sessionManager,
+      ResumeStore resumeStore,
+      RefreshJournal refreshJournal,
+      BlockingEngine blockingEngine) {
+    this.naukriProperties = naukriProperties;
+    this.resumeProperties = resumeProperties;
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.refreshJournal = refreshJournal;
+    this.blockingEngine = blockingEngine;
+  }
+
+  @Override
+  public String portal() {
+    return PORTAL;
+  }
+
+  @Override
+  public Mono<Void> refresh() {
+    return blockingEngine.run(this::refreshNow)
+        .doOnSubscribe(__ -> log.info("Attempting to refresh resume on Naukri"))
+        .doFinally(signal -> log.info("Finished attempt to refresh resume on Naukri. Final signal received is {}", signal));
+  }
+
+  private void refreshNow() throws Exception {
+    final var account = SessionManager.keyOf(PORTAL, naukriProperties.username());
+    final var resume = resumeStore.open(Paths.get(resumeProperties.path()));
+    // steps completed by an earlier failed attempt are skipped, so that we dont upload the resume again just to advertise it
+    final var checkpoints = refreshJournal.checkpoints(account, resume.contentHash());
+    sessionManager.withSession(account, () -> blockingEngine.step("login", this::login), session -> {
+      final var bearerToken = session.token(BEARER_JWT_COOKIE_NAME);
+      final var fileKey = blockingEngine.step("upload-resume", () -> checkpoints.remember("upload-resume", () -> {
+        final var generatedFileKey = generateRandomFileKey();
+        uploadResume(resume, generatedFileKey);
+        return generatedFileKey;
+      }));
+      final var profileId = blockingEngine.step("profile-id", () -> fetchProfileId(bearerToken));
+      // lets delete the existing resume only after new one is uploaded, so that the profile is never left without a resume if upload fails
+      blockingEngine.step("delete-resume", () -> checkpoints.once("delete-resume", () -> deleteResume(bearerToken, profileId)));
+      return blockingEngine.step("advertise-resume", () -> advertiseResume(bearerToken, profileId, fileKey));
+    });
+    checkpoints.complete().block();
+  }
+
+  private AuthSession login() throws Exception {
+    final var request = blockingEngine.request(BASE_URL.resolve("/central-login-services/v1/login"))
+        .header(USER_AGENT, ANDROID_USER_AGENT)
+        .header("appid", "103")
+        .header("systemid", "jobseeker")
+        .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+        .POST(ofByteArray(JsonCodecs.writeValueAsBytes(LoginRequestJsonCodec.INSTANCE, new LoginRequest(naukriProperties.username(), naukriProperties.password(), true))))
+        .build();
+    final var bearerToken = blockingEngine.attemptNonIdempotent(PORTAL + ".login", "fetch bearer token", () -> {
+      final var response = BlockingEngine.readJson(LoginResponseJsonCodec.INSTANCE, blockingEngine.send(request, BodyHandlers.ofByteArray()));
+      if (response.cookies() == null) {
+        throw new PortalContractException("Expected cookies in login response, but found none");
+      }
+      final var bearerTokens = response.cookies().stream()
+          .filter(cookie -> cookie.name().equals(BEARER_JWT_COOKIE_NAME))
+          .map(Cookie::value)
+          .toList();
+      if (bearerTokens.size() != 1) {
+        throw new PortalContractException("Expected a single " + BEARER_JWT_COOKIE_NAME + " cookie in login response, but found " + bearerTokens.size());
+      }
+      return bearerTokens.get(0);
+    });
+    return new AuthSession(Map.of(BEARER_JWT_COOKIE_NAME, bearerToken), JwtUtil.expiryOf(bearerToken).orElse(null));
+  }
+
+  private void uploadResume(StoredResume resume, String fileKey) throws Exception {
+    final var fields = new LinkedHashMap<String, String>();
+    fields.put("formKey", FORM_KEY);
+    fields.put("fileKey", fileKey);
+    fields.put("fileName", resumeProperties.filename());
+    fields.put("uploadCallback", "true");
+    final var boundary = new String(MimeTypeUtils.generateMultipartBoundary(), US_ASCII);
+    final var head = MultipartBodyInserters.headOf(boundary, fields, "file", resumeProperties.filename(), APPLICATION_PDF);
+    final var tail = MultipartBodyInserters.tailOf(boundary);
+    blockingEngine.attempt(PORTAL + ".upload-resume", "upload resume", () -> blockingEngine.send(blockingEngine.request(UPLOAD_URL)
+        .header(USER_AGENT, ANDROID_USER_AGENT)
+        .header("appid", "105")
+        .header("systemid", "fileupload")
+        .header(CONTENT_TYPE, new MediaType(MULTIPART_FORM_DATA, Map.of("boundary", boundary)).toString())
+        // resume is written from read-only views of its stored content, same as the reactive refresher does under tls
+        .POST(concat(ofByteArray(head), BlockingEngine.fromBuffers(resume.content(UPLOAD_CHUNK_SIZE).map(DataBuffer::asByteBuffer), resume.size()), ofByteArray(tail)))
+        .build(), BodyHandlers.discarding()));
+  }
+
+  private String fetchProfileId(String bearerToken) throws Exception {
+    final var request = blockingEngine.request(BASE_URL.resolve("/apigateway/servicegateway-mynaukri/resman-aggregator-services/v0/users/self/dashboard"))
+        .header(USER_AGENT, ANDROID_USER_AGENT)
+        .header("appid", "105")
+        .header("systemid", "Naukri")
+        .header(AUTHORIZATION, "Bearer " + bearerToken)
+        .header(ACCEPT, APPLICATION_JSON_VALUE)
+        .GET()
+        .build();
+    return blockingEngine.attempt(PORTAL + ".profile-id", "fetch profile id", () -> {
+      final var response = BlockingEngine.readJson(DashboardResponseJsonCodec.INSTANCE, blockingEngine.send(request, BodyHandlers.ofByteArray()));
+      if (response.dashboard() == null || !hasText(response.dashboard().profileId())) {
+        throw new PortalContractException("Expected profileId within dashBoard of dashboard response, but found none");
+      }
+      return response.dashboard().profileId();
+    });
+  }
+
+  private HttpResponse<Void> deleteResume(String bearerToken, String profileId) throws Exception {
+    final var request = blockingEngine.request(BASE_URL.resolve(PROFILES_PATH + profileId + "/deleteResume"))
+        .header(USER_AGENT, ANDROID_USER_AGENT)
+        .header("appid", "105")
+        .header("systemid", "105")
+        .header(AUTHORIZATION, "Bearer " + bearerToken)
+        .header("x-http-method-override", "DELETE")
+        // jdk http client sends `content-length: 0` for an empty body by itself
+        .POST(noBody())
+        .build();
+    return blockingEngine.attemptNonIdempotent(PORTAL + ".delete-resume", "delete resume", () -> blockingEngine.send(request, BodyHandlers.discarding()));
+  }
+
+  private HttpResponse<Void> advertiseResume(String bearerToken, String profileId, String fileKey) throws Exception {
+    final var request = blockingEngine.request(BASE_URL.resolve(PROFILES_PATH + profileId + "/advResume"))
+        .header(USER_AGENT, ANDROID_USER_AGENT)
+        .header("appid", "105")
+        .header("systemid", "105")
+        .header(AUTHORIZATION, "Bearer " + bearerToken)
+        .header("x-http-method-override", "PUT")
+        .header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+        .POST(ofByteArray(JsonCodecs.writeValueAsBytes(AdvertiseResumeRequestJsonCodec.INSTANCE, new AdvertiseResumeRequest(new TextCv(FORM_KEY, fileKey, null)))))
+        .build();
+    return blockingEngine.attempt(PORTAL + ".advertise-resume", "advertise uploaded resume", () -> blockingEngine.send(request, BodyHandlers.discarding()));
+  }
+}
@@ -0,0 +1,39 @@
+package com.acme.resume.refresh.naukri;
+
+import com.acme.resume.refresh.blocking.BlockingEngine;
+import com.acme.resume.refresh.common.PortalCredentials;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.common.ResumeRefresherFactory;
+import com.acme.resume.refresh.journal.RefreshJournal;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.store.ResumeStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "blocking")
+@SuppressWarnings("unused") // since we are dealing with a component
+public class BlockingNaukriResumeRefresherFactory implements ResumeRefresherFactory {
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final RefreshJournal refreshJournal;
+  private final BlockingEngine blockingEngine;
+
+  public BlockingNaukriResumeRefresherFactory(SessionManager sessionManager, ResumeStore resumeStore, RefreshJournal refreshJournal, BlockingEngine blockingEngine) {
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.refreshJournal = refreshJournal;
+    this.blockingEngine = blockingEngine;
+  }
+
+  @Override
+  public String portal() {
+    return NaukriResumeRefresher.PORTAL;
+  }
+
+  @Override
+  public ResumeRefresher create(PortalCredentials credentials, ResumeProperties resumeProperties) {
+    return new BlockingNaukriResumeRefresher(new NaukriProperties(credentials.username(), credentials.password()), resumeProperties, sessionManager, resumeStore, refreshJournal, blockingEngine);
+  }
+}
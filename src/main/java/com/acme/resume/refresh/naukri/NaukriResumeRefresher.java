@@ -1,22 +1,31 @@
 package com.acme.resume.refresh.naukri;
 
+import com.acme.resume.refresh.codec.JsonCodecs;
 import com.acme.resume.refresh.common.ResumeProperties;
 import com.acme.resume.refresh.common.ResumeRefresher;
 import com.acme.resume.refresh.common.ConditionalOnPropertyNotEmpty;
+import com.acme.resume.refresh.http.CookieJar;
+import com.acme.resume.refresh.http.FlightRecorder;
+import com.acme.resume.refresh.journal.RefreshJournal;
 import com.acme.resume.refresh.naukri.exchange.AdvertiseResumeRequest;
 import com.acme.resume.refresh.naukri.exchange.Cookie;
 import com.acme.resume.refresh.naukri.exchange.DashboardResponse;
 import com.acme.resume.refresh.naukri.exchange.LoginRequest;
 import com.acme.resume.refresh.naukri.exchange.LoginResponse;
 import com.acme.resume.refresh.naukri.exchange.TextCv;
+import com.acme.resume.refresh.resilience.CircuitBreakerRegistry;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.resilience.RetryPolicies;
+import com.acme.resume.refresh.session.AuthSession;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.step.StepGraph;
+import com.acme.resume.refresh.store.ResumeStore;
+import com.acme.resume.refresh.store.StoredResume;
+import com.acme.resume.refresh.util.JwtUtil;
 import com.acme.resume.refresh.util.MiscUtil;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
-import org.springframework.core.annotation.Order;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -24,40 +33,88 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
-import java.util.function.Function;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
+import static com.acme.resume.refresh.util.MultipartBodyInserters.fromFieldsAndFile;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.HttpHeaders.USER_AGENT;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.http.HttpMethod.POST;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.http.MediaType.APPLICATION_PDF;
-import static org.springframework.http.MediaType.MULTIPART_FORM_DATA;
 import static org.springframework.util.Assert.isTrue;
 
 @Log4j2
 @Component
 @EnableConfigurationProperties(NaukriProperties.class)
 @ConditionalOnPropertyNotEmpty({"app.naukri.username", "app.naukri.password"})
-@Order(200) // lets do this before monster one
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "reactor", matchIfMissing = true)
 @SuppressWarnings("unused") // since we are dealing with a component
 public class NaukriResumeRefresher implements ResumeRefresher {
   //@formatter:off
-  private static final String BEARER_JWT_COOKIE_NAME = "nauk_at";
+  public static final String PORTAL = "naukri";
+  static final String BEARER_JWT_COOKIE_NAME = "nauk_at";
+  static final String ANDROID_USER_AGENT = "Dalvik/2.1.0 (Linux; U; Android 5.1.1; Android SDK built for x86_64 Build/LMY48X";
+  /**
+   *  This value is hardcoded in apk & same value is also available if we can navigate to `naukri.com/nlogin/login`, but this url is kept behind Akamai bot blocker & its blocking us access. Since its already hardcoded in app, lets also hardcoded it.
+   *  <p>
+   *  Here is how you can get latest value from naukri APK
+   *  <ol>
+   *  <li>Download the naukri apk</li>
+   *  <li>Decompile apk using apktool</li>
+   *  <li>Search for the following regex (case sensitive) <pre>F[0-9a-f]{12}</pre></li>
+   *  </ol>
+   *  It searches for values that start with capital `F` followed by 12 hex chars. Thats the secret number used for `formKey`. Also you can search for `formKey` aswell till you find something thats assigned to it. It will be of the format
+   *  <p>
+   *  You will see something of the format. Copy the value
+   *  <pre>
+   *     const-string v9, "formKey"
+   *
+   *     const-string v10, "F51f8e7e54e205"
+   *
+   *         .line 15
+   *     invoke-virtual {v7, v9, v10}, Lc2/c0$a;->a(Ljava/lang/String;Ljava/lang/String;)Lc2/c0$a;
+   *  <pre>
+   */
+  static final String FORM_KEY = "F51f8e7e54e205";
+  static final int UPLOAD_CHUNK_SIZE = 64 * 1024;
 
   private final NaukriProperties naukriProperties;
   private final ResumeProperties resumeProperties;
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final CookieJar cookieJar = new CookieJar();
+  private final RetryPolicies retryPolicies;
+  private final RefreshJournal refreshJournal;
   private final WebClient webClient;
 
   @SuppressWarnings("unused") // since we are dealing with a component
   public NaukriResumeRefresher(@Valid NaukriProperties naukriProperties,
       @Valid ResumeProperties resumeProperties,
-      Function<String, ClientHttpConnector> loggerNameToClientHttpConnectorMapper) {
+      ClientHttpConnector clientHttpConnector,
+      SessionManager sessionManager,
+      ResumeStore resumeStore,
+      FlightRecorder flightRecorder,
+      RetryPolicies retryPolicies,
+      CircuitBreakerRegistry circuitBreakerRegistry,
+      RefreshJournal refreshJournal,
+      RateLimiterRegistry rateLimiterRegistry) {
     this.naukriProperties = naukriProperties;
     this.resumeProperties = resumeProperties;
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.retryPolicies = retryPolicies;
+    this.refreshJournal = refreshJournal;
     this.webClient = WebClient.builder().baseUrl("https://www.nma.mobi")
-        .clientConnector(loggerNameToClientHttpConnectorMapper.apply(getClass().getCanonicalName()))
+        .clientConnector(clientHttpConnector)
+        .codecs(JsonCodecs::register)
+        .filter(circuitBreakerRegistry.filter())
+        .filter(rateLimiterRegistry.filter())
+        .filter(cookieJar.filter())
+        .filter(flightRecorder.filter())
         .defaultHeaders(httpHeaders -> {
           //  TODO: Naukri moved its login page behind Akamai bot blocker recently
           // Akamai is blocking even get calls & considering us to be a bot. Is it because it is expecting certain headers to be there/expecting HTTP2 to be used when its a browser?
@@ -66,28 +123,50 @@ public class NaukriResumeRefresher implements ResumeRefresher {
           // Some reading: https://www.zenrows.com/blog/bypass-akamai#conclusion
           //              httpHeaders.add(USER_AGENT, "Dalvik/2.1.0 (Linux; U; Android 5.1.1; Android SDK built for x86_64 Build/LMY48X");
           // lets make calls as Android client to bypass Akamai bot
-          httpHeaders.add(USER_AGENT, "Dalvik/2.1.0 (Linux; U; Android 5.1.1; Android SDK built for x86_64 Build/LMY48X");
+          httpHeaders.add(USER_AGENT, ANDROID_USER_AGENT);
         }).build();
   }
 
+  @Override
+  public String portal() {
+    return PORTAL;
+  }
+
   @Override
   public Mono<Void> refresh() {
-    Mono<String> bearerToken$ = buildBearerToken$().cache();
-    Mono<String> profileId$ = buildProfileId$(bearerToken$).cache();
-    Mono<Void> deleteResume$ = buildDeleteResume$(bearerToken$, profileId$);
-    Mono<String> formKey$ = buildFormKey$().cache();
-    Mono<Void> uploadAndAdvertiseResume$ = buildUploadAndAdvertiseResume$(formKey$, bearerToken$, profileId$);
+    Mono<AuthSession> login$ = buildBearerToken$()
+        .map(bearerToken -> new AuthSession(Map.of(BEARER_JWT_COOKIE_NAME, bearerToken), JwtUtil.expiryOf(bearerToken).orElse(null)));
 
-    // formKey$ often gives errors. Lets first fetch that before deleting resume to be on the safe side
-    return formKey$
-        .then(deleteResume$)
-        .then(uploadAndAdvertiseResume$)
+    final var account = SessionManager.keyOf(PORTAL, naukriProperties.username());
+    return resumeStore.open$(Paths.get(resumeProperties.path()))
+        .flatMap(resume -> {
+          // steps completed by an earlier failed attempt are skipped, so that we dont upload the resume again just to advertise it
+          final var checkpoints = refreshJournal.checkpoints(account, resume.contentHash());
+          // upload goes to file validation service which does not need the session, so it runs while we login. Uploaded file is referred by its key while advertising. Lets remember the key, so that a failed advertise can be retried without uploading again.
+          // Its built outside the work below & cached, so that if the cached session is rejected, the retried work reuses this upload (in flight or finished) instead of uploading again under a different key
+          final var fileKey$ = checkpoints.remember("upload-resume", Mono.defer(() -> {
+                final var generatedFileKey = generateRandomFileKey();
+                return buildUploadResume$(Mono.just(FORM_KEY), generatedFileKey, resume).thenReturn(generatedFileKey);
+              }))
+              .cache();
+          return sessionManager.withLazySession(account, login$, session$ -> {
+                final var graph = new StepGraph("Naukri refresh");
+                final var fileKey = graph.step("upload-resume", __ -> fileKey$);
+                final var bearerToken = graph.step("login", __ -> session$.map(session -> session.token(BEARER_JWT_COOKIE_NAME)));
+                final var profileId = graph.step("profile-id", inputs -> buildProfileId$(Mono.just(inputs.of(bearerToken))), bearerToken);
+                // lets delete the existing resume only after new one is uploaded, so that the profile is never left without a resume if upload fails
+                final var deleteResume = graph.step("delete-resume", inputs -> checkpoints.once("delete-resume", buildDeleteResume$(Mono.just(inputs.of(bearerToken)), Mono.just(inputs.of(profileId)))), bearerToken, profileId, fileKey);
+                // form key used for upload must be used to advertise it as well
+                graph.step("advertise-resume", inputs -> buildAdvertiseResume$(Mono.just(inputs.of(bearerToken)), Mono.just(inputs.of(profileId)), Mono.just(FORM_KEY), Mono.just(inputs.of(fileKey))), bearerToken, profileId, fileKey, deleteResume);
+                return graph.run();
+              })
+              .then(checkpoints.complete());
+        })
         .doOnSubscribe(__ -> log.info("Attempting to refresh resume on Naukri"))
         .doFinally(signal -> log.info("Finished attempt to refresh resume on Naukri. Final signal received is {}", signal));
   }
 
-  private Mono<Void> buildUploadAndAdvertiseResume$(Mono<String> formKey$,
-      Mono<String> bearerToken$, Mono<String> profileId$) {
+  private Mono<Void> buildUploadResume$(Mono<String> formKey$, String fileKey, StoredResume resume) {
     /*
     curl -v 'https://filevalidation.nma.mobi/file' \
       -H 'user-agent: Dalvik/2.1.0 (Linux; U; Android 5.1.1; Android SDK built for x86_64 Build/LMY48X' \
@@ -99,16 +178,14 @@ public class NaukriResumeRefresher implements ResumeRefresher {
       -F uploadCallback=true \
       -F file='@<full path>'
      */
-    final var fileKey = generateRandomFileKey();
-    Mono<Void> uploadResume$ = formKey$
+    // resume is the one whose hash the checkpoints are keyed by, so lets upload exactly that instead of opening the file again
+    return formKey$
         .flatMap(formKey -> {
-          MultipartBodyBuilder multipartBodyBuilder = new MultipartBodyBuilder();
-          multipartBodyBuilder.part("formKey", formKey);
-          multipartBodyBuilder.part("fileKey", fileKey);
-          multipartBodyBuilder.part("fileName", resumeProperties.filename());
-          multipartBodyBuilder.part("uploadCallback", "true");
-          Resource resumePdf = new FileSystemResource(resumeProperties.path());
-          multipartBodyBuilder.part("file", resumePdf, APPLICATION_PDF).filename(resumeProperties.filename());
+          final var fields = new LinkedHashMap<String, String>();
+          fields.put("formKey", formKey);
+          fields.put("fileKey", fileKey);
+          fields.put("fileName", resumeProperties.filename());
+          fields.put("uploadCallback", "true");
 
           return webClient
               .method(POST)
@@ -117,15 +194,18 @@ public class NaukriResumeRefresher implements ResumeRefresher {
                 httpHeaders.add("appid", "105");
                 httpHeaders.add("systemid", "fileupload");
               })
-              .contentType(MULTIPART_FORM_DATA)
-              .bodyValue(multipartBodyBuilder.build())
+              // resume shared with other portals/tenants is sent straight from the file (or its read-only mapping under tls)
+              .body(fromFieldsAndFile(fields, "file", resumeProperties.filename(), APPLICATION_PDF, resume, UPLOAD_CHUNK_SIZE))
               .retrieve()
               .toBodilessEntity()
               .then()
               .doOnSubscribe(__ -> log.info("Attempting to upload resume"))
-              .doFinally(signal -> log.info("Finished attempt to upload resume. Final signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to upload resume. Final signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".upload-resume"));
         });
+  }
 
+  private Mono<Void> buildAdvertiseResume$(Mono<String> bearerToken$, Mono<String> profileId$, Mono<String> formKey$, Mono<String> fileKey$) {
     /*
      *  curl 'https://www.nma.mobi/apigateway/servicegateway-mynaukri/resman-aggregator-services/v0/users/self/profiles/<>/advResume' \
      *   -H 'user-agent: Dalvik/2.1.0 (Linux; U; Android 5.1.1; Android SDK built for x86_64 Build/LMY48X' \
@@ -136,28 +216,26 @@ public class NaukriResumeRefresher implements ResumeRefresher {
      *   -H 'x-http-method-override: PUT' \
      *   --data-raw '{"textCV":{"formKey":"<>","fileKey":"<>","textCvContent":null}}'
      */
-    Mono<Void> advertiseResume$ = Mono.zip(bearerToken$, profileId$, formKey$)
-        .flatMap(bearerTokenAndProfileIdAndFormKey -> {
+    return Mono.zip(bearerToken$, profileId$, formKey$, fileKey$)
+        .flatMap(bearerTokenAndProfileIdAndFormKeyAndFileKey -> {
           //noinspection CodeBlock2Expr
           return webClient
               .method(POST)
-              .uri("/apigateway/servicegateway-mynaukri/resman-aggregator-services/v0/users/self/profiles/" + bearerTokenAndProfileIdAndFormKey.getT2() + "/advResume")
+              .uri("/apigateway/servicegateway-mynaukri/resman-aggregator-services/v0/users/self/profiles/" + bearerTokenAndProfileIdAndFormKeyAndFileKey.getT2() + "/advResume")
               .headers(httpHeaders -> {
                 httpHeaders.add("appid", "105");
                 httpHeaders.add("systemid", "105");
-                httpHeaders.add(AUTHORIZATION, "Bearer " + bearerTokenAndProfileIdAndFormKey.getT1());
+                httpHeaders.add(AUTHORIZATION, "Bearer " + bearerTokenAndProfileIdAndFormKeyAndFileKey.getT1());
                 httpHeaders.add("x-http-method-override", "PUT");
               })
               .contentType(APPLICATION_JSON)
-              .bodyValue(new AdvertiseResumeRequest(new TextCv(bearerTokenAndProfileIdAndFormKey.getT3(), fileKey, null)))
+              .bodyValue(new AdvertiseResumeRequest(new TextCv(bearerTokenAndProfileIdAndFormKeyAndFileKey.getT3(), bearerTokenAndProfileIdAndFormKeyAndFileKey.getT4(), null)))
               .retrieve()
               .bodyToMono(Void.class)
               .doOnSubscribe(__ -> log.info("Attempting to advertise uploaded resume"))
-              .doFinally(signal -> log.info("Finished attempt to advertise uploaded resume. Final signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to advertise uploaded resume. Final signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".advertise-resume"));
         });
-
-    return uploadResume$
-        .then(advertiseResume$);
   }
 
   private Mono<Void> buildDeleteResume$(Mono<String> bearerToken$, Mono<String> profileId$) {
@@ -187,7 +265,8 @@ public class NaukriResumeRefresher implements ResumeRefresher {
               .retrieve()
               .bodyToMono(Void.class)
               .doOnSubscribe(__ -> log.info("Attempting to delete resume"))
-              .doFinally(signal -> log.info("Finished attempt to delete resume. Final signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to delete resume. Final signal received is {}", signal))
+              .retryWhen(retryPolicies.retryNonIdempotentFor(PORTAL + ".delete-resume"));
         });
 
     return deleteResume$;
@@ -218,36 +297,11 @@ public class NaukriResumeRefresher implements ResumeRefresher {
               .bodyToMono(DashboardResponse.class)
               .map(response -> response.dashboard().profileId())
               .doOnSubscribe(__ -> log.info("Attempting to fetch profile id"))
-              .doFinally(signal -> log.info("Finished attempt to fetch profile id. Final signal received is {}", signal));
+              .doFinally(signal -> log.info("Finished attempt to fetch profile id. Final signal received is {}", signal))
+              .retryWhen(retryPolicies.retryFor(PORTAL + ".profile-id"));
         });
   }
 
-  /**
-   *  This value is hardcoded in apk & same value is also available if we can navigate to `naukri.com/nlogin/login`, but this url is kept behind Akamai bot blocker & its blocking us access. Since its already hardcoded in app, lets also hardcoded it.
-   *  <p>
-   *  Here is how you can get latest value from naukri APK
-   *  <ol>
-   *  <li>Download the naukri apk</li>
-   *  <li>Decompile apk using apktool</li>
-   *  <li>Search for the following regex (case sensitive) <pre>F[0-9a-f]{12}</pre></li>
-   *  </ol>
-   *  It searches for values that start with capital `F` followed by 12 hex chars. Thats the secret number used for `formKey`. Also you can search for `formKey` aswell till you find something thats assigned to it. It will be of the format
-   *  <p>
-   *  You will see something of the format. Copy the value
-   *  <pre>
-   *     const-string v9, "formKey"
-   *
-   *     const-string v10, "F51f8e7e54e205"
-   *
-   *         .line 15
-   *     invoke-virtual {v7, v9, v10}, Lc2/c0$a;->a(Ljava/lang/String;Ljava/lang/String;)Lc2/c0$a;
-   *  <pre>
-   * @return publisher that contains formKey
-   */
-  private Mono<String> buildFormKey$() {
-    return Mono.just("F51f8e7e54e205");
-  }
-
   Mono<String> buildBearerToken$() {
     // login
     /*
@@ -276,7 +330,8 @@ public class NaukriResumeRefresher implements ResumeRefresher {
               .map(Cookie::value).single();
         })
         .doOnSubscribe(__ -> log.info("Attempting to fetch bearer token"))
-        .doFinally(signal -> log.info("Finished attempt to fetch bearer token. Final signal received is {}", signal));
+        .doFinally(signal -> log.info("Finished attempt to fetch bearer token. Final signal received is {}", signal))
+        .retryWhen(retryPolicies.retryNonIdempotentFor(PORTAL + ".login"));
   }
 
   /**
@@ -331,7 +386,7 @@ public class NaukriResumeRefresher implements ResumeRefresher {
    * </code>
    * </pre>
    */
-  private String generateRandomFileKey() {
+  static String generateRandomFileKey() {
     /*
     function(a) {
         for (var b = "", c = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ", d = a; d > 0; --d)
@@ -0,0 +1,51 @@
+package com.acme.resume.refresh.naukri;
+
+import com.acme.resume.refresh.common.PortalCredentials;
+import com.acme.resume.refresh.common.ResumeProperties;
+import com.acme.resume.refresh.common.ResumeRefresher;
+import com.acme.resume.refresh.common.ResumeRefresherFactory;
+import com.acme.resume.refresh.http.FlightRecorder;
+import com.acme.resume.refresh.journal.RefreshJournal;
+import com.acme.resume.refresh.resilience.CircuitBreakerRegistry;
+import com.acme.resume.refresh.resilience.RateLimiterRegistry;
+import com.acme.resume.refresh.resilience.RetryPolicies;
+import com.acme.resume.refresh.session.SessionManager;
+import com.acme.resume.refresh.store.ResumeStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "app.engine.type", havingValue = "reactor", matchIfMissing = true)
+@SuppressWarnings("unused") // since we are dealing with a component
+public class NaukriResumeRefresherFactory implements ResumeRefresherFactory {
+  private final ClientHttpConnector clientHttpConnector;
+  private final SessionManager sessionManager;
+  private final ResumeStore resumeStore;
+  private final FlightRecorder flightRecorder;
+  private final RetryPolicies retryPolicies;
+  private final CircuitBreakerRegistry circuitBreakerRegistry;
+  private final RefreshJournal refreshJournal;
+  private final RateLimiterRegistry rateLimiterRegistry;
+
+  public NaukriResumeRefresherFactory(ClientHttpConnector clientHttpConnector, SessionManager sessionManager, ResumeStore resumeStore, FlightRecorder flightRecorder, RetryPolicies retryPolicies, CircuitBreakerRegistry circuitBreakerRegistry, RefreshJournal refreshJournal, RateLimiterRegistry rateLimiterRegistry) {
+    this.clientHttpConnector = clientHttpConnector;
+    this.sessionManager = sessionManager;
+    this.resumeStore = resumeStore;
+    this.flightRecorder = flightRecorder;
+    this.retryPolicies = retryPolicies;
+    this.circuitBreakerRegistry = circuitBreakerRegistry;
+    this.refreshJournal = refreshJournal;
+    this.rateLimiterRegistry = rateLimiterRegistry;
+  }
+
+  @Override
+  public String portal() {
+    return NaukriResumeRefresher.PORTAL;
+  }
+
+  @Override
+  public ResumeRefresher create(PortalCredentials credentials, ResumeProperties resumeProperties) {
+    return new NaukriResumeRefresher(new NaukriProperties(credentials.username(), credentials.password()), resumeProperties, clientHttpConnector, sessionManager, resumeStore, flightRecorder, retryPolicies, circuitBreakerRegistry, refreshJournal, rateLimiterRegistry);
+  }
+}
@@ -1,6 +1,8 @@
 package com.acme.resume.refresh.naukri.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+@GenerateJsonCodec
 public record DashboardResponse(@JsonProperty("dashBoard") Dashboard dashboard) {
 }
@@ -1,6 +1,8 @@
 package com.acme.resume.refresh.naukri.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
 import java.util.List;
 
+@GenerateJsonCodec
 public record LoginResponse(List<Cookie> cookies) {
 }
@@ -1,4 +1,7 @@
 package com.acme.resume.refresh.naukri.exchange;
 
+import com.acme.resume.refresh.codec.GenerateJsonCodec;
+
+@GenerateJsonCodec
 public record TextCv(String formKey, String fileKey, String textCvContent) {
 }
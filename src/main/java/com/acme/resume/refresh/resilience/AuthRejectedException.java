@@ -0,0 +1,10 @@
+package com.acme.resume.refresh.resilience;
+
+/**
+ * Thrown when a portal rejects our credentials (or) session. Retrying with the same credentials/session is pointless
+ */
+public class AuthRejectedException extends RuntimeException {
+  public AuthRejectedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,66 @@
+package com.acme.resume.refresh.resilience;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Consecutive failure based circuit breaker of a single portal host.
+ * <p>
+ * Closed: every request is let through. Opens after `failureThreshold` consecutive failures.
+ * Open: every request fails fast till `openFor` elapses, after which a single probe request is let through (half open).
+ * Success of the probe closes the circuit, failure opens it again
+ */
+final class CircuitBreaker {
+  private final int failureThreshold;
+  private final Duration openFor;
+  private int consecutiveFailures;
+  private Instant openUntil;
+  private boolean probeInFlight;
+
+  CircuitBreaker(int failureThreshold, Duration openFor) {
+    this.failureThreshold = failureThreshold;
+    this.openFor = openFor;
+  }
+
+  synchronized boolean tryAcquire(Instant now) {
+    if (openUntil == null) {
+      return true;
+    }
+    if (now.isBefore(openUntil) || probeInFlight) {
+      return false;
+    }
+    probeInFlight = true;
+    return true;
+  }
+
+  synchronized void onSuccess() {
+    consecutiveFailures = 0;
+    openUntil = null;
+    probeInFlight = false;
+  }
+
+  /**
+   * @return `true` if this failure opened the circuit
+   */
+  synchronized boolean onFailure(Instant now) {
+    consecutiveFailures++;
+    final var wasProbe = probeInFlight;
+    probeInFlight = false;
+    if (wasProbe || (openUntil == null && consecutiveFailures >= failureThreshold)) {
+      openUntil = now.plus(openFor);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Request was let through, but did not complete either way (for eg. cancelled)
+   */
+  synchronized void onIgnored() {
+    probeInFlight = false;
+  }
+
+  synchronized Instant openUntil() {
+    return openUntil;
+  }
+}
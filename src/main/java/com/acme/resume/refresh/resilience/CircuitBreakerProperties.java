@@ -0,0 +1,14 @@
+package com.acme.resume.refresh.resilience;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+/**
+ * @param failureThreshold circuit of a portal host opens after these many consecutive transient failures
+ * @param openFor all requests to the host fail fast for this long once the circuit opens. A single probe request is allowed after that
+ */
+public record CircuitBreakerProperties(@DefaultValue("5") @Min(1) int failureThreshold,
+                                       @DefaultValue("1m") Duration openFor) {
+}
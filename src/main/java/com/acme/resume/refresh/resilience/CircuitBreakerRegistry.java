@@ -0,0 +1,105 @@
+package com.acme.resume.refresh.resilience;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.http.HttpResponse;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Circuit breakers keyed by portal host, shared by all refreshers & tenants. Once a portal is down, pending work of every tenant on that portal fails fast with {@link PortalUnavailableException} instead of burning time & connections on attempts that are doomed to fail
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class CircuitBreakerRegistry {
+  private final ResilienceProperties resilienceProperties;
+  private final ConcurrentMap<String, CircuitBreaker> hostToCircuitBreaker = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public CircuitBreakerRegistry(ResilienceProperties resilienceProperties) {
+    this.resilienceProperties = resilienceProperties;
+  }
+
+  /**
+   * Only transient failures (network failures, timeouts & 5xx/429 responses) count towards opening the circuit. Every other response proves the portal is up
+   */
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> Mono.defer(() -> {
+      final var host = request.url().getHost();
+      final var circuitBreaker = circuitBreakerOf(host);
+      if (!circuitBreaker.tryAcquire(Instant.now())) {
+        return Mono.error(new PortalUnavailableException("Circuit of " + host + " is open till " + circuitBreaker.openUntil() + " as it failed repeatedly"));
+      }
+      final var completed = new AtomicBoolean();
+      return next.exchange(request)
+          .doOnNext(response -> {
+            completed.set(true);
+            onResponse(host, circuitBreaker, response.rawStatusCode());
+          })
+          .doOnError(e -> {
+            completed.set(true);
+            onError(host, circuitBreaker, e);
+          })
+          .doOnCancel(() -> {
+            if (!completed.get()) {
+              circuitBreaker.onIgnored();
+            }
+          });
+    });
+  }
+
+  /**
+   * Blocking counterpart of {@link #filter()}, for requests sent using the jdk http client (see {@link com.acme.resume.refresh.blocking.BlockingEngine})
+   */
+  public <T> HttpResponse<T> send(String host, Callable<HttpResponse<T>> exchange) throws Exception {
+    final var circuitBreaker = circuitBreakerOf(host);
+    if (!circuitBreaker.tryAcquire(Instant.now())) {
+      throw new PortalUnavailableException("Circuit of " + host + " is open till " + circuitBreaker.openUntil() + " as it failed repeatedly");
+    }
+    final HttpResponse<T> response;
+    try {
+      response = exchange.call();
+    } catch (Exception e) {
+      onError(host, circuitBreaker, e);
+      throw e;
+    }
+    onResponse(host, circuitBreaker, response.statusCode());
+    return response;
+  }
+
+  private CircuitBreaker circuitBreakerOf(String host) {
+    return hostToCircuitBreaker.computeIfAbsent(host, __ -> new CircuitBreaker(resilienceProperties.circuitBreaker().failureThreshold(), resilienceProperties.circuitBreaker().openFor()));
+  }
+
+  private static void onResponse(String host, CircuitBreaker circuitBreaker, int status) {
+    if (status >= 500 || status == TOO_MANY_REQUESTS.value()) {
+      onFailure(host, circuitBreaker);
+    } else {
+      circuitBreaker.onSuccess();
+    }
+  }
+
+  private static void onError(String host, CircuitBreaker circuitBreaker, Throwable e) {
+    if (FailureKind.isTransient(e)) {
+      onFailure(host, circuitBreaker);
+    } else {
+      circuitBreaker.onIgnored();
+    }
+  }
+
+  private static void onFailure(String host, CircuitBreaker circuitBreaker) {
+    if (circuitBreaker.onFailure(Instant.now())) {
+      log.warn("Opened circuit of {} till {} as it failed repeatedly", host, circuitBreaker.openUntil());
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.acme.resume.refresh.resilience;
+
+import org.springframework.core.codec.DecodingException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.HttpStatus.UNAUTHORIZED;
+
+public enum FailureKind {
+  /**
+   * Portal rejected our credentials/session
+   */
+  AUTH_REJECTED,
+  /**
+   * Network failures, timeouts & 5xx/429 responses. Likely to go away on retry
+   */
+  TRANSIENT,
+  /**
+   * Portal responded in a shape we don't understand anymore
+   */
+  CONTRACT_CHANGED,
+  /**
+   * Portal circuit is open (or the portal throttled us so much that a request could not be sent in time), so nothing was sent
+   */
+  PORTAL_UNAVAILABLE,
+  UNKNOWN;
+
+  public static FailureKind of(Throwable e) {
+    final var failure = Exceptions.unwrap(e);
+    if (failure instanceof AuthRejectedException) {
+      return AUTH_REJECTED;
+    } else if (failure instanceof TransientPortalException) {
+      return TRANSIENT;
+    } else if (failure instanceof PortalContractException || failure instanceof DecodingException) {
+      return CONTRACT_CHANGED;
+    } else if (failure instanceof PortalUnavailableException) {
+      return PORTAL_UNAVAILABLE;
+    } else if (failure instanceof WebClientResponseException responseException) {
+      final var status = responseException.getRawStatusCode();
+      if (status == UNAUTHORIZED.value() || status == FORBIDDEN.value()) {
+        return AUTH_REJECTED;
+      }
+      return status >= 500 || status == TOO_MANY_REQUESTS.value() ? TRANSIENT : UNKNOWN;
+    } else if (failure instanceof WebClientRequestException || failure instanceof IOException || failure instanceof TimeoutException) {
+      return TRANSIENT;
+    }
+    return UNKNOWN;
+  }
+
+  public static boolean isTransient(Throwable e) {
+    return of(e) == TRANSIENT;
+  }
+
+  /**
+   * @return `true` only if the failure happened while connecting (connection refused/timed out, unknown host, tls handshake), so that the request surely never reached the portal. A connection closed after that (for eg. reactor netty's `PrematureCloseException`) may have come after the portal got the request, so its `false` for those
+   */
+  public static boolean isBeforeSend(Throwable e) {
+    for (var cause = Exceptions.unwrap(e); cause != null; cause = cause.getCause()) {
+      if (cause instanceof ConnectException || cause instanceof UnknownHostException || cause instanceof HttpConnectTimeoutException || cause instanceof SSLHandshakeException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,14 @@
+package com.acme.resume.refresh.resilience;
+
+/**
+ * Thrown when a portal responds in a shape we don't understand anymore (for eg. a pattern/cookie we look for is missing), which usually means the portal changed & the refresher needs to be updated. Retrying does not help
+ */
+public class PortalContractException extends RuntimeException {
+  public PortalContractException(String message) {
+    super(message);
+  }
+
+  public PortalContractException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,10 @@
+package com.acme.resume.refresh.resilience;
+
+/**
+ * Thrown without contacting the portal when its circuit is open i.e the portal failed repeatedly in the recent past (or) when its rate limiter could not let the request through within `app.resilience.rate-limiter.max-wait`
+ */
+public class PortalUnavailableException extends RuntimeException {
+  public PortalUnavailableException(String message) {
+    super(message);
+  }
+}
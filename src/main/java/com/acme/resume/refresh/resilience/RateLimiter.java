@@ -0,0 +1,169 @@
+package com.acme.resume.refresh.resilience;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Token bucket of a single portal host whose refill rate adapts to how the host responds (AIMD).
+ * <p>
+ * Every successful response adds `increase` to the rate, every throttled (403/429/5xx) response multiplies it by `decreaseFactor` (at most once per `decreaseInterval`).
+ * Requests that can't be sent right away are queued per tenant & permits are handed out round robin across tenants, so that a tenant with a lot of pending work can't starve others
+ */
+final class RateLimiter {
+  private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+  private final RateLimiterProperties properties;
+  private final Scheduler drainScheduler;
+  private final LongSupplier nanoTime;
+  // tenants with queued requests, in the order they get their next permit
+  private final Map<String, Deque<Waiter>> tenantToWaiters = new LinkedHashMap<>();
+  private double rate;
+  private double tokens;
+  private long refilledAt;
+  private long decreasedAt;
+  private boolean drainScheduled;
+
+  RateLimiter(RateLimiterProperties properties) {
+    this(properties, Schedulers.parallel(), System::nanoTime);
+  }
+
+  /**
+   * @param drainScheduler queued requests are let through on this scheduler
+   * @param nanoTime source of monotonic time. Tests pass virtual time along with a virtual time scheduler
+   */
+  RateLimiter(RateLimiterProperties properties, Scheduler drainScheduler, LongSupplier nanoTime) {
+    this.properties = properties;
+    this.drainScheduler = drainScheduler;
+    this.nanoTime = nanoTime;
+    this.rate = properties.initialRate();
+    this.tokens = properties.burst();
+    this.refilledAt = nanoTime.getAsLong();
+    this.decreasedAt = refilledAt - properties.decreaseInterval().toNanos();
+  }
+
+  /**
+   * @return completes once the request of the tenant can be sent
+   */
+  Mono<Void> acquire(String tenantId) {
+    return Mono.create(sink -> {
+      synchronized (this) {
+        refill(nanoTime.getAsLong());
+        if (tenantToWaiters.isEmpty() && tokens >= 1) {
+          tokens--;
+        } else {
+          final var waiter = new Waiter(sink, new AtomicBoolean());
+          tenantToWaiters.computeIfAbsent(tenantId, __ -> new ArrayDeque<>()).addLast(waiter);
+          sink.onCancel(() -> cancel(tenantId, waiter));
+          scheduleDrain();
+          return;
+        }
+      }
+      sink.success();
+    });
+  }
+
+  synchronized double rate() {
+    return rate;
+  }
+
+  synchronized void onSuccess() {
+    refill(nanoTime.getAsLong());
+    rate = Math.min(properties.maxRate(), rate + properties.increase());
+  }
+
+  /**
+   * @return `true` if the rate was decreased
+   */
+  synchronized boolean onThrottled() {
+    final var now = nanoTime.getAsLong();
+    if (now - decreasedAt < properties.decreaseInterval().toNanos()) {
+      return false;
+    }
+    refill(now);
+    rate = Math.max(properties.minRate(), rate * properties.decreaseFactor());
+    decreasedAt = now;
+    return true;
+  }
+
+  private void cancel(String tenantId, Waiter waiter) {
+    if (!waiter.settled().compareAndSet(false, true)) {
+      // permit was already handed out
+      return;
+    }
+    synchronized (this) {
+      final var waiters = tenantToWaiters.get(tenantId);
+      if (waiters != null && waiters.remove(waiter) && waiters.isEmpty()) {
+        tenantToWaiters.remove(tenantId);
+      }
+    }
+  }
+
+  private void drain() {
+    final List<Waiter> granted = new ArrayList<>();
+    synchronized (this) {
+      drainScheduled = false;
+      refill(nanoTime.getAsLong());
+      while (tokens >= 1 && !tenantToWaiters.isEmpty()) {
+        final var next = tenantToWaiters.entrySet().iterator().next();
+        final var tenantId = next.getKey();
+        final var waiters = next.getValue();
+        granted.add(waiters.removeFirst());
+        tokens--;
+        // lets move the tenant to the back of the line
+        tenantToWaiters.remove(tenantId);
+        if (!waiters.isEmpty()) {
+          tenantToWaiters.put(tenantId, waiters);
+        }
+      }
+      scheduleDrain();
+    }
+    // lets not run subscribers of the request (i.e. the exchange itself) while holding the lock
+    for (Waiter waiter : granted) {
+      if (waiter.settled().compareAndSet(false, true)) {
+        waiter.sink().success();
+      } else {
+        // request got cancelled (for eg. timed out) after we took a token for it, but before we could let it through. Lets give the token to the next one in line
+        giveBack();
+      }
+    }
+  }
+
+  private synchronized void giveBack() {
+    refill(nanoTime.getAsLong());
+    tokens = Math.min(properties.burst(), tokens + 1);
+    scheduleDrain();
+  }
+
+  private void scheduleDrain() {
+    if (drainScheduled || tenantToWaiters.isEmpty()) {
+      return;
+    }
+    drainScheduled = true;
+    final var delay = (long) (Math.max(0, 1 - tokens) / rate * NANOS_PER_SECOND);
+    drainScheduler.schedule(this::drain, delay, NANOSECONDS);
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(properties.burst(), tokens + (now - refilledAt) / NANOS_PER_SECOND * rate);
+    refilledAt = now;
+  }
+
+  /**
+   * @param settled set by whichever comes first, letting the request through or its cancellation, so that a token taken for a request that is cancelled meanwhile is not lost
+   */
+  private record Waiter(MonoSink<Void> sink, AtomicBoolean settled) {
+  }
+}
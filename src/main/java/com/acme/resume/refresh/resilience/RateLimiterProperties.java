@@ -0,0 +1,30 @@
+package com.acme.resume.refresh.resilience;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+/**
+ * @param enabled whether requests to a portal host are rate limited at all
+ * @param initialRate requests per second sent to a host to begin with
+ * @param minRate request rate never drops below this
+ * @param maxRate request rate never grows beyond this
+ * @param increase requests per second added to the rate of a host on every successful response (additive increase)
+ * @param decreaseFactor rate of a host is multiplied by this when it responds with 403/429/5xx (multiplicative decrease)
+ * @param decreaseInterval rate is decreased at most once in this interval, so that a burst of throttled responses to requests that were already in flight counts only once
+ * @param burst requests that can be sent back to back to a host that was idle (capacity of the token bucket)
+ * @param maxWait request fails with {@link PortalUnavailableException} without being sent, if it could not be sent within this long
+ */
+public record RateLimiterProperties(@DefaultValue("true") boolean enabled,
+                                    @DefaultValue("5") @DecimalMin(value = "0", inclusive = false) double initialRate,
+                                    @DefaultValue("0.5") @DecimalMin(value = "0", inclusive = false) double minRate,
+                                    @DefaultValue("50") @DecimalMin(value = "0", inclusive = false) double maxRate,
+                                    @DefaultValue("0.2") @DecimalMin("0") double increase,
+                                    @DefaultValue("0.5") @DecimalMin(value = "0", inclusive = false) @DecimalMax("1") double decreaseFactor,
+                                    @DefaultValue("1s") Duration decreaseInterval,
+                                    @DefaultValue("10") @Min(1) int burst,
+                                    @DefaultValue("2m") Duration maxWait) {
+}
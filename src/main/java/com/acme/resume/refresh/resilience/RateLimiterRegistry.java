@@ -0,0 +1,95 @@
+package com.acme.resume.refresh.resilience;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.http.HttpResponse;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.springframework.http.HttpStatus.FORBIDDEN;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+
+/**
+ * Adaptive rate limiters keyed by portal host, shared by all refreshers & tenants. Holds each host at the highest request rate it tolerates, instead of bursting requests of every tenant at it & tripping its bot defenses
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class RateLimiterRegistry {
+  /**
+   * Reactor context key of the id of the tenant a request is sent on behalf of. Queued requests are served fairly across tenants
+   */
+  public static final String TENANT_ID_CONTEXT_KEY = "resume.refresh.tenant-id";
+  private static final String UNKNOWN_TENANT_ID = "";
+
+  private final ResilienceProperties resilienceProperties;
+  private final ConcurrentMap<String, RateLimiter> hostToRateLimiter = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public RateLimiterRegistry(ResilienceProperties resilienceProperties) {
+    this.resilienceProperties = resilienceProperties;
+  }
+
+  /**
+   * 403, 429 & 5xx responses lower the rate of the host, every other 2xx/3xx response raises it. Failures without a response (network failures, timeouts) leave it as is
+   */
+  public ExchangeFilterFunction filter() {
+    return (request, next) -> {
+      if (!resilienceProperties.rateLimiter().enabled()) {
+        return next.exchange(request);
+      }
+      return Mono.deferContextual(context -> {
+        final var host = request.url().getHost();
+        final var rateLimiter = rateLimiterOf(host);
+        return acquire$(host, rateLimiter, context.getOrDefault(TENANT_ID_CONTEXT_KEY, UNKNOWN_TENANT_ID))
+            .then(Mono.defer(() -> next.exchange(request)))
+            .doOnNext(response -> onResponse(host, rateLimiter, response.rawStatusCode()));
+      });
+    };
+  }
+
+  /**
+   * Blocking counterpart of {@link #filter()}, for requests sent using the jdk http client (see {@link com.acme.resume.refresh.blocking.BlockingEngine}). Calling thread waits for its turn
+   *
+   * @param tenantId id of the tenant the request is sent on behalf of. `null` if unknown
+   */
+  public <T> HttpResponse<T> send(String host, String tenantId, Callable<HttpResponse<T>> exchange) throws Exception {
+    if (!resilienceProperties.rateLimiter().enabled()) {
+      return exchange.call();
+    }
+    final var rateLimiter = rateLimiterOf(host);
+    acquire$(host, rateLimiter, tenantId != null ? tenantId : UNKNOWN_TENANT_ID).block();
+    final var response = exchange.call();
+    onResponse(host, rateLimiter, response.statusCode());
+    return response;
+  }
+
+  private Mono<Void> acquire$(String host, RateLimiter rateLimiter, String tenantId) {
+    final var maxWait = resilienceProperties.rateLimiter().maxWait();
+    return rateLimiter.acquire(tenantId)
+        .timeout(maxWait, Mono.error(() -> new PortalUnavailableException("Could not send request to " + host + " within " + maxWait + " as it is throttling us down to " + rateOf(rateLimiter) + " requests/s")));
+  }
+
+  private static void onResponse(String host, RateLimiter rateLimiter, int status) {
+    if (status >= 500 || status == TOO_MANY_REQUESTS.value() || status == FORBIDDEN.value()) {
+      if (rateLimiter.onThrottled()) {
+        log.info("{} responded with {}. Lowered request rate to {} requests/s", host, status, rateOf(rateLimiter));
+      }
+    } else if (status < 400) {
+      rateLimiter.onSuccess();
+    }
+  }
+
+  private RateLimiter rateLimiterOf(String host) {
+    return hostToRateLimiter.computeIfAbsent(host, __ -> new RateLimiter(resilienceProperties.rateLimiter()));
+  }
+
+  private static String rateOf(RateLimiter rateLimiter) {
+    return String.format("%.2f", rateLimiter.rate());
+  }
+}
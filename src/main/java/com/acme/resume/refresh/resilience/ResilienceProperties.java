@@ -0,0 +1,23 @@
+package com.acme.resume.refresh.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.Valid;
+import java.util.Map;
+
+/**
+ * @param retry retry policy of every step, unless overridden in `steps`
+ * @param steps step specific retry policies keyed by `portal.step` (for eg. `monster.upload-resume`)
+ * @param circuitBreaker circuit breaker applied to each portal host
+ * @param rateLimiter adaptive rate limiter applied to each portal host
+ */
+@ConfigurationProperties("app.resilience")
+public record ResilienceProperties(@DefaultValue @Valid RetryPolicyProperties retry,
+                                   Map<String, @Valid RetryPolicyProperties> steps,
+                                   @DefaultValue @Valid CircuitBreakerProperties circuitBreaker,
+                                   @DefaultValue @Valid RateLimiterProperties rateLimiter) {
+  public RetryPolicyProperties retryOf(String step) {
+    return steps != null ? steps.getOrDefault(step, retry) : retry;
+  }
+}
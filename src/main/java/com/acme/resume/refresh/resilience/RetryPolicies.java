@@ -0,0 +1,95 @@
+package com.acme.resume.refresh.resilience;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.util.retry.Retry;
+
+import javax.validation.Valid;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Retries transient failures (see {@link FailureKind#TRANSIENT}) of a single step with jittered exponential backoff. Other failures are propagated right away, as retrying them is pointless
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class RetryPolicies {
+  private final ResilienceProperties resilienceProperties;
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public RetryPolicies(@Valid ResilienceProperties resilienceProperties) {
+    this.resilienceProperties = resilienceProperties;
+  }
+
+  /**
+   * @param step `portal.step` (for eg. `monster.upload-resume`). Used to lookup step specific policy
+   * @return retry spec to be applied using `retryWhen` to the publisher of a single step. The publisher must be cold, so that each retry re-sends the request
+   */
+  public Retry retryFor(String step) {
+    return retryFor(step, FailureKind::isTransient);
+  }
+
+  /**
+   * Same as {@link #retryFor(String)}, but for requests that must not reach the portal twice (for eg. login, delete). Only failures that happened before the request was sent (see {@link FailureKind#isBeforeSend}) are retried
+   */
+  public Retry retryNonIdempotentFor(String step) {
+    return retryFor(step, failure -> FailureKind.isTransient(failure) && FailureKind.isBeforeSend(failure));
+  }
+
+  private Retry retryFor(String step, Predicate<Throwable> retryable) {
+    final var policy = resilienceProperties.retryOf(step);
+    return Retry.backoff(policy.maxAttempts() - 1, policy.minBackoff())
+        .maxBackoff(policy.maxBackoff())
+        .jitter(policy.jitter())
+        .filter(retryable)
+        .doBeforeRetry(signal -> log.warn("Retrying {} (retry {} of {}). Reason: {}", step, signal.totalRetries() + 1, policy.maxAttempts() - 1, signal.failure().toString()))
+        // lets propagate the actual failure rather than reactor's retry exhausted wrapper, so that it can still be classified
+        .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+  }
+
+  /**
+   * Blocking counterpart of {@link #retryFor(String)} i.e same policy, backoff & jitter, except that the calling thread sleeps between attempts. Meant for steps run on virtual threads (see {@link com.acme.resume.refresh.blocking.BlockingEngine})
+   *
+   * @param attempt sends the request afresh each time its called
+   */
+  public <T> T call(String step, Callable<T> attempt) throws Exception {
+    return call(step, FailureKind::isTransient, attempt);
+  }
+
+  /**
+   * Blocking counterpart of {@link #retryNonIdempotentFor(String)}
+   */
+  public <T> T callNonIdempotent(String step, Callable<T> attempt) throws Exception {
+    return call(step, failure -> FailureKind.isTransient(failure) && FailureKind.isBeforeSend(failure), attempt);
+  }
+
+  private <T> T call(String step, Predicate<Throwable> retryable, Callable<T> attempt) throws Exception {
+    final var policy = resilienceProperties.retryOf(step);
+    for (int retry = 1; ; retry++) {
+      try {
+        return attempt.call();
+      } catch (Exception e) {
+        if (retry >= policy.maxAttempts() || !retryable.test(e)) {
+          throw e;
+        }
+        log.warn("Retrying {} (retry {} of {}). Reason: {}", step, retry, policy.maxAttempts() - 1, e.toString());
+        Thread.sleep(backoffOf(policy, retry).toMillis());
+      }
+    }
+  }
+
+  /**
+   * Same as what reactor's backoff spec computes i.e `minBackoff * 2^(retry - 1)` capped at `maxBackoff`, give or take `jitter` times of it
+   */
+  private static Duration backoffOf(RetryPolicyProperties policy, int retry) {
+    final var backoff = policy.minBackoff().multipliedBy(1L << Math.min(retry - 1, 30));
+    final var cappedBackoff = backoff.compareTo(policy.maxBackoff()) > 0 ? policy.maxBackoff() : backoff;
+    final var jitterMillis = (long) (cappedBackoff.toMillis() * policy.jitter());
+    final var jitteredMillis = cappedBackoff.toMillis() + (jitterMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(-jitterMillis, jitterMillis + 1));
+    return Duration.ofMillis(Math.max(policy.minBackoff().toMillis(), Math.min(policy.maxBackoff().toMillis(), jitteredMillis)));
+  }
+}
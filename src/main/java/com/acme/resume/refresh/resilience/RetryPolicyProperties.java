@@ -0,0 +1,20 @@
+package com.acme.resume.refresh.resilience;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import java.time.Duration;
+
+/**
+ * @param maxAttempts total attempts of a step (first attempt included). `1` disables retries
+ * @param minBackoff delay before the first retry. Doubles with every subsequent retry
+ * @param maxBackoff upper bound of the delay between retries
+ * @param jitter fraction of the delay that is randomised, so that concurrent refreshes don't retry in lock step
+ */
+public record RetryPolicyProperties(@DefaultValue("3") @Min(1) int maxAttempts,
+                                    @DefaultValue("500ms") Duration minBackoff,
+                                    @DefaultValue("5s") Duration maxBackoff,
+                                    @DefaultValue("0.5") @DecimalMin("0") @DecimalMax("1") double jitter) {
+}
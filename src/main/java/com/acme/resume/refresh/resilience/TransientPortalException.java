@@ -0,0 +1,10 @@
+package com.acme.resume.refresh.resilience;
+
+/**
+ * Thrown when a portal fails in a way that is likely to go away on its own (for eg. a 5xx disguised as a 200 response). Such failures are retried
+ */
+public class TransientPortalException extends RuntimeException {
+  public TransientPortalException(String message) {
+    super(message);
+  }
+}
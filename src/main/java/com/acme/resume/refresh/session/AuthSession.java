@@ -0,0 +1,24 @@
+package com.acme.resume.refresh.session;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Authentication tokens (cookies/bearer tokens) obtained by logging into a portal
+ *
+ * @param tokens token name to value
+ * @param expiresAt instant after which portal is expected to reject these tokens. `null` if portal did not tell us, in which case {@link SessionManager} applies `app.session-cache.default-ttl`
+ */
+public record AuthSession(Map<String, String> tokens, Instant expiresAt) {
+  public String token(String name) {
+    return tokens.get(name);
+  }
+
+  public AuthSession withExpiresAt(Instant expiresAt) {
+    return new AuthSession(tokens, expiresAt);
+  }
+
+  public boolean isValidAt(Instant instant) {
+    return expiresAt != null && instant.isBefore(expiresAt);
+  }
+}
@@ -0,0 +1,130 @@
+package com.acme.resume.refresh.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Stores each session in its own file, encrypted using AES-GCM with a key derived from `app.session-cache.secret`.
+ * <p>
+ * File names are hashes of the cache key, so usernames are not leaked on disk. Cache key is also bound to the ciphertext as associated data, so a session file cannot be swapped for a different account
+ */
+@Log4j2
+public class EncryptedFileSessionCache implements SessionCache {
+  private static final String CIPHER_TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_LENGTH_BYTES = 12;
+  private static final int AUTHENTICATION_TAG_LENGTH_BITS = 128;
+  private static final byte[] KEY_DERIVATION_SALT = "resume-refresher-session-cache".getBytes(UTF_8);
+  private static final int KEY_DERIVATION_ITERATIONS = 210_000;
+
+  private final Path directory;
+  private final SecretKey secretKey;
+  private final ObjectMapper objectMapper;
+  private final SecureRandom secureRandom = new SecureRandom();
+
+  public EncryptedFileSessionCache(Path directory, String secret, ObjectMapper objectMapper) {
+    this.directory = directory;
+    this.secretKey = deriveKey(secret);
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public Optional<AuthSession> get(String key) {
+    final var file = fileOf(key);
+    if (!Files.exists(file)) {
+      return Optional.empty();
+    }
+    try {
+      final var ivAndCipherText = ByteBuffer.wrap(Files.readAllBytes(file));
+      final var iv = new byte[IV_LENGTH_BYTES];
+      ivAndCipherText.get(iv);
+      final var cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+      cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(AUTHENTICATION_TAG_LENGTH_BITS, iv));
+      cipher.updateAAD(key.getBytes(UTF_8));
+      final var plainText = new byte[cipher.getOutputSize(ivAndCipherText.remaining())];
+      final var plainTextLength = cipher.doFinal(ivAndCipherText, ByteBuffer.wrap(plainText));
+      return Optional.of(objectMapper.readValue(plainText, 0, plainTextLength, AuthSession.class));
+    } catch (IOException | GeneralSecurityException | RuntimeException e) {
+      // secret might have changed (or) file is corrupt. Either way, its of no use to us
+      log.warn("Unable to read cached session from {}. Discarding it. Reason: {}", file, e.toString());
+      evict(key);
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public void put(String key, AuthSession session) {
+    final var file = fileOf(key);
+    try {
+      final var iv = new byte[IV_LENGTH_BYTES];
+      secureRandom.nextBytes(iv);
+      final var cipher = Cipher.getInstance(CIPHER_TRANSFORMATION);
+      cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(AUTHENTICATION_TAG_LENGTH_BITS, iv));
+      cipher.updateAAD(key.getBytes(UTF_8));
+      final var cipherText = cipher.doFinal(objectMapper.writeValueAsBytes(session));
+
+      Files.createDirectories(directory);
+      final var tempFile = Files.createTempFile(directory, "session", ".tmp");
+      restrictToOwner(tempFile);
+      Files.write(tempFile, ByteBuffer.allocate(iv.length + cipherText.length).put(iv).put(cipherText).array());
+      Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException | GeneralSecurityException e) {
+      // not being able to cache a session is not fatal. We will just login again next time
+      log.warn("Unable to cache session in {}. Reason: {}", file, e.toString());
+    }
+  }
+
+  @Override
+  public void evict(String key) {
+    try {
+      Files.deleteIfExists(fileOf(key));
+    } catch (IOException e) {
+      log.warn("Unable to evict cached session. Reason: {}", e.toString());
+    }
+  }
+
+  private Path fileOf(String key) {
+    try {
+      final var digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(UTF_8));
+      return directory.resolve(HexFormat.of().formatHex(digest) + ".session");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void restrictToOwner(Path file) throws IOException {
+    if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+    }
+  }
+
+  private static SecretKey deriveKey(String secret) {
+    try {
+      final var keySpec = new PBEKeySpec(secret.toCharArray(), KEY_DERIVATION_SALT, KEY_DERIVATION_ITERATIONS, 256);
+      final var derivedKey = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(keySpec).getEncoded();
+      return new SecretKeySpec(derivedKey, "AES");
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Unable to derive session cache encryption key", e);
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.acme.resume.refresh.session;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sessions live only as long as the process. Only useful when the application runs as a daemon (or) when multiple tenants share an account
+ */
+public class InMemorySessionCache implements SessionCache {
+  private final Map<String, AuthSession> keyToSession = new ConcurrentHashMap<>();
+
+  @Override
+  public Optional<AuthSession> get(String key) {
+    return Optional.ofNullable(keyToSession.get(key));
+  }
+
+  @Override
+  public void put(String key, AuthSession session) {
+    keyToSession.put(key, session);
+  }
+
+  @Override
+  public void evict(String key) {
+    keyToSession.remove(key);
+  }
+}
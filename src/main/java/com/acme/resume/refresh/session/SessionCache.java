@@ -0,0 +1,14 @@
+package com.acme.resume.refresh.session;
+
+import java.util.Optional;
+
+/**
+ * Storage for {@link AuthSession}s. Define a bean of this type to replace the default implementation
+ */
+public interface SessionCache {
+  Optional<AuthSession> get(String key);
+
+  void put(String key, AuthSession session);
+
+  void evict(String key);
+}
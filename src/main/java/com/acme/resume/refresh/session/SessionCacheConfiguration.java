@@ -0,0 +1,27 @@
+package com.acme.resume.refresh.session;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+import static org.springframework.util.StringUtils.hasText;
+
+@Log4j2
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SessionCacheProperties.class)
+public class SessionCacheConfiguration {
+  @Bean
+  @ConditionalOnMissingBean(SessionCache.class)
+  public SessionCache sessionCache(SessionCacheProperties sessionCacheProperties, ObjectMapper objectMapper) {
+    if (hasText(sessionCacheProperties.secret()) && hasText(sessionCacheProperties.directory())) {
+      return new EncryptedFileSessionCache(Paths.get(sessionCacheProperties.directory()), sessionCacheProperties.secret(), objectMapper);
+    }
+    log.debug("app.session-cache.secret is not specified. Sessions will only be cached in memory");
+    return new InMemorySessionCache();
+  }
+}
@@ -0,0 +1,19 @@
+package com.acme.resume.refresh.session;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param directory directory where encrypted sessions are stored
+ * @param secret secret used to encrypt sessions on disk. If not specified, sessions are only cached in memory
+ * @param defaultTtl how long a session is considered valid when portal does not tell us its expiry
+ * @param expiryMargin sessions are considered expired this much time before their actual expiry, so that they don't expire mid refresh
+ */
+@ConfigurationProperties("app.session-cache")
+public record SessionCacheProperties(String directory,
+                                     String secret,
+                                     @DefaultValue("1h") Duration defaultTtl,
+                                     @DefaultValue("2m") Duration expiryMargin) {
+}
@@ -0,0 +1,12 @@
+package com.acme.resume.refresh.session;
+
+import com.acme.resume.refresh.resilience.AuthRejectedException;
+
+/**
+ * Thrown when a portal does not accept the session we sent (for eg. redirects us to login page)
+ */
+public class SessionExpiredException extends AuthRejectedException {
+  public SessionExpiredException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,104 @@
+package com.acme.resume.refresh.session;
+
+import com.acme.resume.refresh.resilience.FailureKind;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Reuses sessions from {@link SessionCache} till they expire (or) portal rejects them & makes sure concurrent refreshes of the same account share a single in-flight login
+ */
+@Log4j2
+@Component
+public class SessionManager {
+  private final SessionCache sessionCache;
+  private final SessionCacheProperties sessionCacheProperties;
+  private final ConcurrentMap<String, Mono<AuthSession>> keyToInFlightLogin = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public SessionManager(SessionCache sessionCache, SessionCacheProperties sessionCacheProperties) {
+    this.sessionCache = sessionCache;
+    this.sessionCacheProperties = sessionCacheProperties;
+  }
+
+  public static String keyOf(String portal, String username) {
+    return portal + ":" + username;
+  }
+
+  /**
+   * Runs `work` with a cached session if one is available & is not expired, otherwise logs in using `login$`. If the portal rejects a cached session, it is evicted & `work` is retried once with a fresh session
+   */
+  public <T> Mono<T> withSession(String key, Mono<AuthSession> login$, Function<AuthSession, Mono<T>> work) {
+    return withLazySession(key, login$, session$ -> session$.flatMap(work));
+  }
+
+  /**
+   * Same as {@link #withSession(String, Mono, Function)}, except that `work` gets the session as a publisher, so that it can start steps that don't need the session while login is still in progress.
+   * <p>
+   * `work` is applied again if the cached session is rejected, so side effects that don't need the session (for eg. an upload) must be built (& cached) outside `work` to happen only once
+   */
+  public <T> Mono<T> withLazySession(String key, Mono<AuthSession> login$, Function<Mono<AuthSession>, Mono<T>> work) {
+    return Mono.defer(() -> {
+      final var cachedSession = sessionCache.get(key)
+          .filter(session -> session.isValidAt(Instant.now().plus(sessionCacheProperties.expiryMargin())));
+      if (cachedSession.isEmpty()) {
+        return work.apply(login(key, login$));
+      }
+      log.debug("Reusing cached session");
+      return work.apply(Mono.just(cachedSession.get()))
+          .onErrorResume(SessionManager::isSessionRejected, e -> {
+            log.info("Portal rejected cached session. Logging in again. Reason: {}", e.toString());
+            sessionCache.evict(key);
+            return work.apply(login(key, login$));
+          });
+    });
+  }
+
+  /**
+   * Blocking counterpart of {@link #withSession(String, Mono, Function)}. Logins still go through the same in-flight login, so a reactive & a blocking refresh of the same account never login twice
+   */
+  public <T> T withSession(String key, Callable<AuthSession> login, SessionWork<T> work) throws Exception {
+    final var cachedSession = sessionCache.get(key)
+        .filter(session -> session.isValidAt(Instant.now().plus(sessionCacheProperties.expiryMargin())));
+    if (cachedSession.isEmpty()) {
+      return work.apply(login(key, Mono.fromCallable(login)).block());
+    }
+    log.debug("Reusing cached session");
+    try {
+      return work.apply(cachedSession.get());
+    } catch (Exception e) {
+      if (!isSessionRejected(e)) {
+        throw e;
+      }
+      log.info("Portal rejected cached session. Logging in again. Reason: {}", e.toString());
+      sessionCache.evict(key);
+      return work.apply(login(key, Mono.fromCallable(login)).block());
+    }
+  }
+
+  private Mono<AuthSession> login(String key, Mono<AuthSession> login$) {
+    return keyToInFlightLogin.computeIfAbsent(key, __ -> login$
+        .map(session -> session.expiresAt() != null ? session : session.withExpiresAt(Instant.now().plus(sessionCacheProperties.defaultTtl())))
+        .doOnNext(session -> sessionCache.put(key, session))
+        .doFinally(___ -> keyToInFlightLogin.remove(key))
+        .cache());
+  }
+
+  private static boolean isSessionRejected(Throwable e) {
+    return FailureKind.of(e) == FailureKind.AUTH_REJECTED;
+  }
+
+  /**
+   * Work done with a session by {@link #withSession(String, Callable, SessionWork)}
+   */
+  @FunctionalInterface
+  public interface SessionWork<T> {
+    T apply(AuthSession session) throws Exception;
+  }
+}
@@ -0,0 +1,30 @@
+package com.acme.resume.refresh.step;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Time spent by a step in each phase of its network calls (dns, connect, tls, request upload, waiting for response etc), summed across all calls (retries included) of the step.
+ * <p>
+ * Available to whoever makes the calls via reactor context of the step, so that the http client can attribute its timings to the step that triggered them
+ */
+public final class PhaseTimings {
+  private final Map<String, Duration> phaseToDuration = new LinkedHashMap<>();
+
+  public synchronized void add(String phase, Duration duration) {
+    phaseToDuration.merge(phase, duration, Duration::plus);
+  }
+
+  public synchronized Map<String, Duration> snapshot() {
+    return Map.copyOf(phaseToDuration);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return phaseToDuration.entrySet().stream()
+        .map(phaseAndDuration -> phaseAndDuration.getKey() + " " + phaseAndDuration.getValue().toMillis() + "ms")
+        .collect(Collectors.joining(", "));
+  }
+}
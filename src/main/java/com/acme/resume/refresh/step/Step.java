@@ -0,0 +1,102 @@
+package com.acme.resume.refresh.step;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Single node of a {@link StepGraph}. Also acts as a key to read its output from {@link Inputs} of the steps that depend on it
+ *
+ * @param <T> output of the step. Steps with type {@link Void} have `null` output
+ */
+public final class Step<T> {
+  private final String name;
+  private final List<Step<?>> dependencies;
+  private final Mono<Optional<T>> result$;
+  private final PhaseTimings phaseTimings = new PhaseTimings();
+  private volatile Optional<T> output;
+  private volatile long startedAtNanos;
+  private volatile long finishedAtNanos;
+
+  /**
+   * @param stopped step is cancelled (& completes empty) if this emits before the step finishes
+   */
+  Step(String name, List<Step<?>> dependencies, Function<Inputs, Mono<T>> work, Mono<?> stopped) {
+    this.name = name;
+    this.dependencies = dependencies;
+    this.result$ = Mono.when(dependencies.stream().map(Step::result$).toList())
+        .then(Mono.defer(() -> {
+          startedAtNanos = System.nanoTime();
+          // lets not let empty publishers (for eg. Mono<Void>) short circuit steps that depend on this step
+          return work.apply(new Inputs(this))
+              .map(Optional::of)
+              .defaultIfEmpty(Optional.empty())
+              .contextWrite(context -> context.put(PhaseTimings.class, phaseTimings))
+              .doOnEach(signal -> {
+                if (signal.isOnNext() || signal.isOnError()) {
+                  signal.getContextView().<StepObserver>getOrEmpty(StepObserver.class)
+                      .ifPresent(observer -> observer.onStepFinished(name, Duration.ofNanos(System.nanoTime() - startedAtNanos), phaseTimings, signal.getThrowable()));
+                }
+              });
+        }))
+        .doOnNext(result -> {
+          output = result;
+          finishedAtNanos = System.nanoTime();
+        })
+        .takeUntilOther(stopped)
+        .cache();
+  }
+
+  public String name() {
+    return name;
+  }
+
+  List<Step<?>> dependencies() {
+    return dependencies;
+  }
+
+  Mono<Optional<T>> result$() {
+    return result$;
+  }
+
+  T output() {
+    return output.orElse(null);
+  }
+
+  boolean isFinished() {
+    return output != null;
+  }
+
+  long startedAtNanos() {
+    return startedAtNanos;
+  }
+
+  long finishedAtNanos() {
+    return finishedAtNanos;
+  }
+
+  PhaseTimings phaseTimings() {
+    return phaseTimings;
+  }
+
+  /**
+   * Outputs of dependencies of a step, available once all of them finish
+   */
+  public static final class Inputs {
+    private final Step<?> step;
+
+    private Inputs(Step<?> step) {
+      this.step = step;
+    }
+
+    public <I> I of(Step<I> dependency) {
+      if (!step.dependencies.contains(dependency)) {
+        throw new IllegalArgumentException("`" + dependency.name + "` is not declared as a dependency of `" + step.name + "`");
+      }
+      return dependency.output();
+    }
+  }
+}
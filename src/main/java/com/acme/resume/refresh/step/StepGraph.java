@@ -0,0 +1,82 @@
+package com.acme.resume.refresh.step;
+
+import com.acme.resume.refresh.step.Step.Inputs;
+import lombok.extern.log4j.Log4j2;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs steps of a refresh as early as their inputs allow, instead of hand wiring them using `cache()`, `then()` & `zip()`.
+ * <p>
+ * Each step declares the steps whose output it needs. Steps without pending dependencies start right away, so local work (for eg. encoding the resume) & network calls that don't need a session overlap with login. Dependencies must be declared before the steps that need them, so cycles are not possible.
+ * <p>
+ * Once the graph finishes, its critical path (chain of steps that determined the total time) is logged, so that we know which step to optimise next. Each step is also reported to the {@link StepObserver} in the reactor context (if any)
+ */
+@Log4j2
+public final class StepGraph {
+  private final String name;
+  private final List<Step<?>> steps = new ArrayList<>();
+  private final Sinks.One<Boolean> stopped = Sinks.one();
+
+  public StepGraph(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @param work publisher of the output of this step. Invoked only once all `dependencies` finish. Outputs of dependencies are available via {@link Inputs#of(Step)}
+   */
+  public <T> Step<T> step(String stepName, Function<Inputs, Mono<T>> work, Step<?>... dependencies) {
+    final var step = new Step<>(stepName, List.of(dependencies), work, stopped.asMono());
+    steps.add(step);
+    return step;
+  }
+
+  /**
+   * @return publisher that runs every step & completes once all of them finish (or) fails as soon as any of them fails. Steps still in flight are cancelled when it fails (or) is cancelled. Its meant to be subscribed only once
+   */
+  public Mono<Void> run() {
+    return Mono.defer(() -> {
+      final var startedAtNanos = System.nanoTime();
+      return Mono.when(steps.stream().map(Step::result$).toList())
+          .doOnSuccess(__ -> log.info("Critical path of {} is {}", name, criticalPathOf(startedAtNanos)))
+          // steps are cached, so cancelling our subscription does not reach a step that is still in flight. Lets stop them before the failure reaches downstream, so that a retry (for eg. with a fresh session) does not race with steps of this run
+          .doOnError(__ -> stop())
+          .doOnCancel(this::stop);
+    });
+  }
+
+  private void stop() {
+    stopped.tryEmitValue(true);
+  }
+
+  /**
+   * Walks back from the step that finished last, each time picking the dependency that finished last i.e the one the step had to wait for
+   */
+  private String criticalPathOf(long startedAtNanos) {
+    final Comparator<Step<?>> byFinishedAt = Comparator.comparingLong(Step::finishedAtNanos);
+    final var criticalPath = new LinkedList<Step<?>>();
+    var step = steps.stream().filter(Step::isFinished).max(byFinishedAt).orElse(null);
+    if (step == null) {
+      return "empty";
+    }
+    final var finishedAtNanos = step.finishedAtNanos();
+    while (step != null) {
+      criticalPath.addFirst(step);
+      step = step.dependencies().stream().max(byFinishedAt).orElse(null);
+    }
+    return criticalPath.stream()
+        .map(criticalStep -> {
+          final var phaseTimings = criticalStep.phaseTimings().toString();
+          return criticalStep.name() + " (" + Duration.ofNanos(criticalStep.finishedAtNanos() - criticalStep.startedAtNanos()).toMillis() + "ms" + (phaseTimings.isEmpty() ? "" : ": " + phaseTimings) + ")";
+        })
+        .collect(Collectors.joining(" -> ", "", ". Total " + Duration.ofNanos(finishedAtNanos - startedAtNanos).toMillis() + "ms"));
+  }
+}
@@ -0,0 +1,15 @@
+package com.acme.resume.refresh.step;
+
+import java.time.Duration;
+
+/**
+ * Notified when a step of a {@link StepGraph} finishes. Picked up from the reactor context the graph is run in, so that whoever runs the refresh (rather than the refresher) decides how steps are observed
+ */
+@FunctionalInterface
+public interface StepObserver {
+  /**
+   * @param phaseTimings breakdown of time spent in network calls of the step
+   * @param error `null` if the step succeeded
+   */
+  void onStepFinished(String step, Duration elapsed, PhaseTimings phaseTimings, Throwable error);
+}
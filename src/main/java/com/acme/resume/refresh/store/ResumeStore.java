@@ -0,0 +1,127 @@
+package com.acme.resume.refresh.store;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reads each distinct resume file once into an off heap buffer & hands out read-only views of it to all portals/tenants.
+ * <p>
+ * Content is copied rather than memory mapped, as resume files are edited in place by users & truncating a mapped file crashes whoever reads the mapping (SIGBUS). Resumes are a few MB at most, so a copy is cheap.
+ * <p>
+ * Files are identified by their content hash, so the same resume referred via different paths (for eg. by multiple tenants) is held in memory only once. Derived forms (such as base64 payload) are cached by content hash & last modified time, so they are computed once no matter how many portals/tenants upload the same file.
+ * <p>
+ * A file is read again only when its size/last modified time changes
+ */
+@Log4j2
+@Component
+@EnableConfigurationProperties(ResumeStoreProperties.class)
+public class ResumeStore {
+  private final ResumeStoreProperties resumeStoreProperties;
+  private final ConcurrentMap<Path, StoredResume> pathToResume = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, StoredResume> hashToResume = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Object> keyToDerived = new ConcurrentHashMap<>();
+
+  @SuppressWarnings("unused") // since we are dealing with a component
+  public ResumeStore(ResumeStoreProperties resumeStoreProperties) {
+    this.resumeStoreProperties = resumeStoreProperties;
+  }
+
+  public Mono<StoredResume> open$(Path path) {
+    // hashing & copying the file is blocking work, which must not run on the event loop
+    return Mono.fromCallable(() -> open(path))
+        .subscribeOn(Schedulers.boundedElastic());
+  }
+
+  public StoredResume open(Path path) throws IOException {
+    final var normalisedPath = path.toAbsolutePath().normalize();
+    final var attributes = Files.readAttributes(normalisedPath, BasicFileAttributes.class);
+    try {
+      return pathToResume.compute(normalisedPath, (__, existing) -> {
+        if (existing != null && existing.size() == attributes.size() && existing.lastModified().equals(attributes.lastModifiedTime())) {
+          return existing;
+        }
+        if (existing != null) {
+          log.info("{} changed since it was last read. Reading it again", normalisedPath);
+          evictIfUnreferenced(existing);
+        }
+        return load(normalisedPath, attributes);
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @param name name of the derived form. Each derived form of a resume is computed only once
+   * @return empty if the file is bigger than `app.resume-store.max-derived-size`. Callers are expected to derive it on the fly in that case
+   */
+  @SuppressWarnings("unchecked")
+  public <T> Optional<T> derived(StoredResume resume, String name, Function<StoredResume, T> derivation) {
+    if (resume.size() > resumeStoreProperties.maxDerivedSize().toBytes()) {
+      return Optional.empty();
+    }
+    final var key = derivedKeyPrefixOf(resume) + name;
+    return Optional.of((T) keyToDerived.computeIfAbsent(key, __ -> derivation.apply(resume)));
+  }
+
+  private StoredResume load(Path path, BasicFileAttributes attributes) {
+    try (var channel = FileChannel.open(path, READ)) {
+      final var content = ByteBuffer.allocateDirect(Math.toIntExact(attributes.size()));
+      // file could have been truncated since its attributes were read. Lets go with whatever could be read
+      while (content.hasRemaining()) {
+        if (channel.read(content) < 0) {
+          break;
+        }
+      }
+      content.flip();
+      final var digest = MessageDigest.getInstance("SHA-256");
+      digest.update(content.duplicate());
+      final var contentHash = HexFormat.of().formatHex(digest.digest());
+      final var sameContentResume = hashToResume.get(contentHash);
+      // same content is already read via a different path. Its copy is immutable, so lets share it
+      final var sharedContent = sameContentResume != null ? sameContentResume.content() : content.asReadOnlyBuffer();
+      final var resume = new StoredResume(path, contentHash, sharedContent.remaining(), attributes.lastModifiedTime(), sharedContent);
+      hashToResume.putIfAbsent(contentHash, resume);
+      log.debug("Read {} ({} bytes) with content hash {}", path, resume.size(), contentHash);
+      return resume;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void evictIfUnreferenced(StoredResume staleResume) {
+    final var stillReferenced = pathToResume.values().stream()
+        .anyMatch(resume -> resume != staleResume && resume.contentHash().equals(staleResume.contentHash()));
+    if (!stillReferenced) {
+      hashToResume.remove(staleResume.contentHash());
+    }
+    final var derivedKeyPrefix = derivedKeyPrefixOf(staleResume);
+    keyToDerived.keySet().removeIf(key -> key.startsWith(derivedKeyPrefix));
+  }
+
+  private static String derivedKeyPrefixOf(StoredResume resume) {
+    return resume.contentHash() + ":" + resume.lastModified().toMillis() + ":";
+  }
+}
@@ -0,0 +1,12 @@
+package com.acme.resume.refresh.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @param maxDerivedSize derived forms (such as base64 payload) are cached only for files upto this size. Bigger files are encoded on the fly for every upload so that memory usage stays bounded
+ */
+@ConfigurationProperties("app.resume-store")
+public record ResumeStoreProperties(@DefaultValue("8MB") DataSize maxDerivedSize) {
+}
@@ -0,0 +1,35 @@
+package com.acme.resume.refresh.store;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Resume file read into memory by {@link ResumeStore}
+ *
+ * @param contentHash hex encoded sha-256 of the content
+ * @param content read-only (off heap) copy of the file's content. Use {@link #content(int)} to get independent views
+ */
+public record StoredResume(Path path, String contentHash, long size, FileTime lastModified, ByteBuffer content) {
+  /**
+   * @return read-only views of the content, each of size `chunkSize` (except for the last one). Views share memory with the stored copy, so no bytes are copied
+   */
+  public Flux<DataBuffer> content(int chunkSize) {
+    return Flux.defer(() -> {
+      final var view = content.duplicate();
+      return Flux.<DataBuffer>generate(sink -> {
+        if (!view.hasRemaining()) {
+          sink.complete();
+          return;
+        }
+        final var chunk = view.slice().limit(Math.min(chunkSize, view.remaining()));
+        view.position(view.position() + chunk.remaining());
+        sink.next(DefaultDataBufferFactory.sharedInstance.wrap(chunk));
+      });
+    });
+  }
+}
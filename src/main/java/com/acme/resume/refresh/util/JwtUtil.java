@@ -0,0 +1,33 @@
+package com.acme.resume.refresh.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+@UtilityClass
+public class JwtUtil {
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * Reads `exp` claim from the payload of the JWT without verifying its signature. We are only interested in knowing when the portal will stop accepting the token
+   */
+  public static Optional<Instant> expiryOf(String jwt) {
+    final var parts = jwt.split("\\.");
+    if (parts.length < 2) {
+      return Optional.empty();
+    }
+    try {
+      final var expiry = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1])).get("exp");
+      if (expiry == null || !expiry.canConvertToLong()) {
+        return Optional.empty();
+      }
+      return Optional.of(Instant.ofEpochSecond(expiry.asLong()));
+    } catch (IOException | IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package com.acme.resume.refresh.util;
+
+import com.acme.resume.refresh.store.StoredResume;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.ssl.SslHandler;
+import lombok.experimental.UtilityClass;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.BodyInserter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.Connection;
+import reactor.netty.NettyOutbound;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.MediaType.MULTIPART_FORM_DATA;
+
+@Log4j2
+@UtilityClass
+public class MultipartBodyInserters {
+  private static final String CRLF = "\r\n";
+
+  /**
+   * Writes a `multipart/form-data` body made of text `fields` followed by `resume` as the file part (same as `curl -F field=value -F file=@resume`).
+   * <p>
+   * Part headers are written as a single byte array built upfront, instead of going through a message writer per part. Resume itself is sent straight from the file using a zero-copy file region (sendfile) when the connection is plain & the file is unchanged since it was read,
+   * so its bytes never reach user space. Under tls (or when the output message is not backed by a reactor netty connection), read-only views of the resume held by the resume store are written instead, so its bytes are only read by the ssl engine but never copied into intermediate buffers
+   *
+   * @param fields text parts, in the order they are to be written
+   * @param chunkSize size of each view of the resume, when it can't be sent from the file
+   */
+  public static BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> fromFieldsAndFile(Map<String, String> fields, String fileField, String filename, MediaType fileContentType,
+      StoredResume resume, int chunkSize) {
+    return (outputMessage, context) -> {
+      final var boundary = new String(MimeTypeUtils.generateMultipartBoundary(), US_ASCII);
+      final var head = headOf(boundary, fields, fileField, filename, fileContentType);
+      final var tail = tailOf(boundary);
+      outputMessage.getHeaders().setContentType(new MediaType(MULTIPART_FORM_DATA, Map.of("boundary", boundary)));
+      // lets tell the server exact size upfront rather than resorting to chunked transfer encoding
+      outputMessage.getHeaders().setContentLength(head.length + resume.size() + tail.length);
+
+      final var bufferFactory = outputMessage.bufferFactory();
+      final var outbound = plainOutboundOf(outputMessage);
+      if (outbound == null) {
+        return writeFromContent(outputMessage, head, resume, chunkSize, tail);
+      }
+      // lets make sure the file still is what was read into the store (& checkpointed by its hash), as sendfile reads it afresh from disk
+      return Mono.fromCallable(() -> isUnchangedOnDisk(resume))
+          .subscribeOn(Schedulers.boundedElastic())
+          .flatMap(unchanged -> {
+            if (!unchanged) {
+              log.info("{} changed since it was read. Sending the content that was read instead of the file", resume.path());
+              return writeFromContent(outputMessage, head, resume, chunkSize, tail);
+            }
+            // head goes through the output message, so that headers are committed (and the flight recorder sees the head) as usual. It must not be a Mono, as reactor netty treats
+            // a Mono body as the whole request & ends the request right after it, before the file & tail are written
+            return outputMessage.writeWith(Flux.defer(() -> Flux.just(bufferFactory.wrap(head))))
+                .then(Mono.defer(() -> outbound.sendFile(resume.path(), 0, resume.size())
+                    .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(tail)))
+                    .then()))
+                .doOnSuccess(__ -> log.debug("Sent {} ({} bytes) using sendfile. Copied {} bytes through user space", resume.path(), resume.size(), head.length + tail.length));
+          });
+    };
+  }
+
+  private static Mono<Void> writeFromContent(ReactiveHttpOutputMessage outputMessage, byte[] head, StoredResume resume, int chunkSize, byte[] tail) {
+    final var bufferFactory = outputMessage.bufferFactory();
+    final var body = Flux.concat(
+        Mono.fromSupplier(() -> bufferFactory.wrap(head)),
+        resume.content(chunkSize),
+        Mono.fromSupplier(() -> bufferFactory.wrap(tail)));
+    return outputMessage.writeWith(body)
+        .doOnSuccess(__ -> log.debug("Sent {} ({} bytes) from its in memory content. Copied {} bytes through user space", resume.path(), resume.size(),
+            head.length + resume.size() + tail.length));
+  }
+
+  /**
+   * File could still change between this check & sendfile. A truncation then fails the upload (body falls short of content length) rather than sending different content silently
+   */
+  private static boolean isUnchangedOnDisk(StoredResume resume) {
+    try {
+      final var attributes = Files.readAttributes(resume.path(), BasicFileAttributes.class);
+      return attributes.size() == resume.size() && attributes.lastModifiedTime().equals(resume.lastModified());
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @return `null` if the output message is not backed by a plain (non tls, non http2) reactor netty connection, as a file region can only be written to a plain socket
+   */
+  private static NettyOutbound plainOutboundOf(ReactiveHttpOutputMessage outputMessage) {
+    if (outputMessage instanceof ClientHttpRequest request && request.<Object>getNativeRequest() instanceof Connection connection && connection instanceof NettyOutbound outbound) {
+      final var channel = connection.channel();
+      // http2 streams are children of the tcp connection
+      return channel.parent() == null && channel.pipeline().get(SslHandler.class) == null ? outbound : null;
+    }
+    return null;
+  }
+
+  /**
+   * @return text `fields` followed by headers of the file part, i.e everything that precedes the file content in a `multipart/form-data` body. Also used by the blocking engine that writes the body using jdk http client
+   */
+  public static byte[] headOf(String boundary, Map<String, String> fields, String fileField, String filename, MediaType fileContentType) {
+    final var head = new StringBuilder(256);
+    fields.forEach((name, value) -> head.append("--").append(boundary).append(CRLF)
+        .append("Content-Disposition: form-data; name=\"").append(escape(name)).append('"').append(CRLF)
+        .append(CRLF)
+        .append(value).append(CRLF));
+    head.append("--").append(boundary).append(CRLF)
+        .append("Content-Disposition: form-data; name=\"").append(escape(fileField)).append("\"; filename=\"").append(escape(filename)).append('"').append(CRLF)
+        .append("Content-Type: ").append(fileContentType).append(CRLF)
+        .append(CRLF);
+    return head.toString().getBytes(UTF_8);
+  }
+
+  /**
+   * @return everything that follows the file content
+   */
+  public static byte[] tailOf(String boundary) {
+    return (CRLF + "--" + boundary + "--" + CRLF).getBytes(US_ASCII);
+  }
+
+  /**
+   * Same as what browsers do to quotes & line breaks in names of parts & files
+   */
+  private static String escape(String value) {
+    return value.replace("\"", "%22").replace("\r", "%0D").replace("\n", "%0A");
+  }
+}
@@ -0,0 +1,135 @@
+package com.acme.resume.refresh.util;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.web.reactive.function.BodyInserter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.springframework.core.io.buffer.DataBufferUtils.release;
+
+@UtilityClass
+public class StreamingBase64BodyInserters {
+  /**
+   * Writes `bodyBeforeContent`, followed by base64 encoded `content`, followed by `bodyAfterContent`.
+   * <p>
+   * Content is encoded chunk by chunk into buffers obtained from the request's buffer factory (pooled in case of reactor netty), so memory used per upload stays the same irrespective of content size. No intermediate copy of the whole content (or its encoded form) is ever made
+   *
+   * @param bodyBeforeContent for eg. json envelope upto & including opening quote of the field that holds the content
+   * @param contentSize total number of bytes `content` emits
+   * @param bodyAfterContent for eg. closing quote of the field that holds the content & rest of the json envelope
+   * @param chunkSize max number of content bytes copied into the encoder at a time
+   */
+  public static BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> fromContentAsBase64(byte[] bodyBeforeContent, Flux<DataBuffer> content, long contentSize, byte[] bodyAfterContent, int chunkSize) {
+    return (outputMessage, context) -> {
+      // lets tell the server exact size upfront rather than resorting to chunked transfer encoding
+      outputMessage.getHeaders().setContentLength(bodyBeforeContent.length + base64LengthOf(contentSize) + bodyAfterContent.length);
+
+      final var bufferFactory = outputMessage.bufferFactory();
+      final var body = Flux.concat(
+          Mono.fromSupplier(() -> bufferFactory.wrap(bodyBeforeContent)),
+          encodeAsBase64(content, bufferFactory, chunkSize),
+          Mono.fromSupplier(() -> bufferFactory.wrap(bodyAfterContent)));
+      return outputMessage.writeWith(body);
+    };
+  }
+
+  /**
+   * Same as {@link #fromContentAsBase64} but for content that is already base64 encoded. Encoded content is written as is without copying it
+   */
+  public static BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> fromBase64EncodedContent(byte[] bodyBeforeContent, ByteBuffer encodedContent, byte[] bodyAfterContent) {
+    return (outputMessage, context) -> {
+      outputMessage.getHeaders().setContentLength(bodyBeforeContent.length + encodedContent.remaining() + bodyAfterContent.length);
+
+      final var bufferFactory = outputMessage.bufferFactory();
+      final var body = Flux.concat(
+          Mono.fromSupplier(() -> bufferFactory.wrap(bodyBeforeContent)),
+          Mono.fromSupplier(() -> bufferFactory.wrap(encodedContent.duplicate())),
+          Mono.fromSupplier(() -> bufferFactory.wrap(bodyAfterContent)));
+      return outputMessage.writeWith(body);
+    };
+  }
+
+  public static long base64LengthOf(long size) {
+    return 4 * ((size + 2) / 3);
+  }
+
+  private static Flux<DataBuffer> encodeAsBase64(Flux<DataBuffer> source, DataBufferFactory bufferFactory, int chunkSize) {
+    return Flux.defer(() -> {
+      final var encoder = new ChunkEncoder(bufferFactory, chunkSize);
+      return source
+          .map(encoder::encode)
+          .concatWith(Mono.fromSupplier(encoder::finish))
+          .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    });
+  }
+
+  /**
+   * Base64 encodes 3 bytes at a time. Upto 2 bytes of a chunk that dont fit into a 3 byte group are held back by the encoding stream & are prepended to next chunk
+   */
+  private static class ChunkEncoder {
+    private final DataBufferFactory bufferFactory;
+    private final byte[] scratch;
+    private final RetargetableOutputStream target = new RetargetableOutputStream();
+    private final OutputStream encodingStream = Base64.getEncoder().wrap(target);
+
+    ChunkEncoder(DataBufferFactory bufferFactory, int chunkSize) {
+      this.bufferFactory = bufferFactory;
+      this.scratch = new byte[chunkSize];
+    }
+
+    DataBuffer encode(DataBuffer chunk) {
+      final var encoded = bufferFactory.allocateBuffer((int) base64LengthOf(chunk.readableByteCount() + 2));
+      target.buffer = encoded;
+      try {
+        while (chunk.readableByteCount() > 0) {
+          final var length = Math.min(scratch.length, chunk.readableByteCount());
+          chunk.read(scratch, 0, length);
+          encodingStream.write(scratch, 0, length);
+        }
+        return encoded;
+      } catch (IOException | RuntimeException e) {
+        release(encoded);
+        throw e instanceof IOException ioException ? new UncheckedIOException(ioException) : (RuntimeException) e;
+      } finally {
+        release(chunk);
+      }
+    }
+
+    DataBuffer finish() {
+      final var encoded = bufferFactory.allocateBuffer(4);
+      target.buffer = encoded;
+      try {
+        // flushes held back bytes along with padding
+        encodingStream.close();
+        return encoded;
+      } catch (IOException e) {
+        release(encoded);
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static class RetargetableOutputStream extends OutputStream {
+    private DataBuffer buffer;
+
+    @Override
+    public void write(int b) {
+      buffer.write((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+      buffer.write(bytes, offset, length);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.acme.resume.refresh.util;
+
+import com.acme.resume.refresh.resilience.PortalContractException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.core.io.buffer.DataBufferUtils.release;
+
+/**
+ * Scans utf-8 body chunk by chunk for the first match of a pattern without joining the whole body into a single String.
+ * <p>
+ * Only last `maxMatchLength` chars of already scanned content is retained between chunks, so that matches spanning chunk boundaries are still found. As soon as a match is found, the body is cancelled (i.e. rest of the body is not read)
+ * <p>
+ * Pattern must have explicit terminators (for eg. closing quote) so that a match found at the end of a chunk is not mistaken for a complete match when more chars could extend it. Such matches are confirmed only once more content arrives
+ */
+public class StreamingPatternExtractor {
+  private final Pattern pattern;
+  private final String groupName;
+  private final int maxMatchLength;
+  private final long maxScanBytes;
+
+  /**
+   * @param groupName named group whose value is extracted
+   * @param maxMatchLength max length (in chars) of the whole match
+   * @param maxScanBytes extraction fails if pattern is not found within these many bytes
+   */
+  public StreamingPatternExtractor(Pattern pattern, String groupName, int maxMatchLength, long maxScanBytes) {
+    this.pattern = pattern;
+    this.groupName = groupName;
+    this.maxMatchLength = maxMatchLength;
+    this.maxScanBytes = maxScanBytes;
+  }
+
+  public Mono<String> extract(Flux<DataBuffer> source) {
+    return Mono.defer(() -> {
+      final var scanner = new Scanner();
+      return source
+          .<String>handle((buffer, sink) -> {
+            final String match;
+            try {
+              match = scanner.scan(buffer);
+            } finally {
+              release(buffer);
+            }
+            if (match != null) {
+              sink.next(match);
+            } else if (scanner.scannedBytes > maxScanBytes) {
+              sink.error(new PortalContractException("Pattern `" + pattern + "` not found within first " + maxScanBytes + " bytes"));
+            }
+          })
+          .concatWith(Mono.fromSupplier(scanner::finish))
+          .next() // cancels rest of the body as soon as we have a match
+          .switchIfEmpty(Mono.error(() -> new PortalContractException("Pattern `" + pattern + "` not found in the body")))
+          .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+    });
+  }
+
+  private class Scanner {
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder window = new StringBuilder();
+    // bytes of an incomplete multi byte char at the end of previous chunk
+    private ByteBuffer leftover = ByteBuffer.allocate(0);
+    private long scannedBytes;
+
+    String scan(DataBuffer buffer) {
+      scannedBytes += buffer.readableByteCount();
+      var input = buffer.asByteBuffer();
+      if (leftover.hasRemaining()) {
+        input = ByteBuffer.allocate(leftover.remaining() + input.remaining()).put(leftover).put(input).flip();
+      }
+      final var output = CharBuffer.allocate((int) (input.remaining() * decoder.maxCharsPerByte()) + 1);
+      decoder.decode(input, output, false);
+      leftover = input.hasRemaining() ? ByteBuffer.allocate(input.remaining()).put(input).flip() : ByteBuffer.allocate(0);
+      window.append(output.flip());
+      return find(false);
+    }
+
+    /**
+     * @return match that ends exactly at end of the body. `null` if there is no such match. {@link Mono#fromSupplier} treats `null` as empty
+     */
+    String finish() {
+      return find(true);
+    }
+
+    private String find(boolean endOfInput) {
+      final var matcher = pattern.matcher(window);
+      // hitting the end means more input could have resulted in a different match
+      if (matcher.find() && (endOfInput || !matcher.hitEnd())) {
+        return matcher.group(groupName);
+      }
+      if (window.length() > maxMatchLength) {
+        window.delete(0, window.length() - maxMatchLength);
+      }
+      return null;
+    }
+  }
+}
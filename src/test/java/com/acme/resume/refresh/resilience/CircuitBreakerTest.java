@@ -0,0 +1,88 @@
+package com.acme.resume.refresh.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+  private static final Duration OPEN_FOR = Duration.ofMinutes(1);
+  private static final Instant START = Instant.parse("2022-07-01T00:00:00Z");
+
+  @Test
+  void opensOnlyAfterThresholdConsecutiveFailures() {
+    final var circuitBreaker = new CircuitBreaker(3, OPEN_FOR);
+    assertThat(circuitBreaker.onFailure(START)).isFalse();
+    assertThat(circuitBreaker.onFailure(START)).isFalse();
+    circuitBreaker.onSuccess();
+    assertThat(circuitBreaker.onFailure(START)).isFalse();
+    assertThat(circuitBreaker.onFailure(START)).isFalse();
+    assertThat(circuitBreaker.tryAcquire(START)).isTrue();
+
+    assertThat(circuitBreaker.onFailure(START)).isTrue();
+    assertThat(circuitBreaker.openUntil()).isEqualTo(START.plus(OPEN_FOR));
+  }
+
+  @Test
+  void failsFastWhileOpen() {
+    final var circuitBreaker = openedAt(START);
+    assertThat(circuitBreaker.tryAcquire(START)).isFalse();
+    assertThat(circuitBreaker.tryAcquire(START.plus(OPEN_FOR).minusMillis(1))).isFalse();
+  }
+
+  @Test
+  void letsThroughSingleProbeOnceOpenForElapses() {
+    final var circuitBreaker = openedAt(START);
+    final var halfOpenAt = START.plus(OPEN_FOR);
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+    // probe is still in flight
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isFalse();
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt.plus(OPEN_FOR))).isFalse();
+  }
+
+  @Test
+  void closesWhenProbeSucceeds() {
+    final var circuitBreaker = openedAt(START);
+    final var halfOpenAt = START.plus(OPEN_FOR);
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+    circuitBreaker.onSuccess();
+
+    assertThat(circuitBreaker.openUntil()).isNull();
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+    // consecutive failures start afresh
+    assertThat(circuitBreaker.onFailure(halfOpenAt)).isFalse();
+  }
+
+  @Test
+  void opensAgainRightAwayWhenProbeFails() {
+    final var circuitBreaker = openedAt(START);
+    final var halfOpenAt = START.plus(OPEN_FOR);
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+
+    assertThat(circuitBreaker.onFailure(halfOpenAt)).isTrue();
+    assertThat(circuitBreaker.openUntil()).isEqualTo(halfOpenAt.plus(OPEN_FOR));
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt.plus(OPEN_FOR).minusMillis(1))).isFalse();
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt.plus(OPEN_FOR))).isTrue();
+  }
+
+  @Test
+  void letsThroughAnotherProbeWhenProbeIsIgnored() {
+    final var circuitBreaker = openedAt(START);
+    final var halfOpenAt = START.plus(OPEN_FOR);
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+    circuitBreaker.onIgnored();
+
+    assertThat(circuitBreaker.openUntil()).isEqualTo(START.plus(OPEN_FOR));
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isTrue();
+    assertThat(circuitBreaker.tryAcquire(halfOpenAt)).isFalse();
+  }
+
+  private static CircuitBreaker openedAt(Instant now) {
+    final var circuitBreaker = new CircuitBreaker(1, OPEN_FOR);
+    assertThat(circuitBreaker.onFailure(now)).isTrue();
+    return circuitBreaker;
+  }
+}
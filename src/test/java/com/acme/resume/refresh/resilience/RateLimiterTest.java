@@ -0,0 +1,142 @@
+package com.acme.resume.refresh.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterTest {
+  private static final Duration DECREASE_INTERVAL = Duration.ofSeconds(1);
+  private static final ClientRequest REQUEST = ClientRequest.create(HttpMethod.GET, URI.create("https://portal.example.com/profile")).build();
+  private static final ExchangeFunction OK = request -> Mono.just(ClientResponse.create(HttpStatus.OK).build());
+
+  @Test
+  void decreasesRateAtMostOncePerDecreaseInterval() {
+    final var scheduler = VirtualTimeScheduler.create();
+    final var rateLimiter = rateLimiterOn(scheduler, properties(8, 10, 0, Duration.ofMinutes(1)));
+
+    assertThat(rateLimiter.onThrottled()).isTrue();
+    assertThat(rateLimiter.rate()).isEqualTo(4);
+    // rest of the burst of throttled responses to requests that were already in flight
+    assertThat(rateLimiter.onThrottled()).isFalse();
+    scheduler.advanceTimeBy(DECREASE_INTERVAL.minusMillis(1));
+    assertThat(rateLimiter.onThrottled()).isFalse();
+    assertThat(rateLimiter.rate()).isEqualTo(4);
+
+    scheduler.advanceTimeBy(Duration.ofMillis(1));
+    assertThat(rateLimiter.onThrottled()).isTrue();
+    assertThat(rateLimiter.rate()).isEqualTo(2);
+  }
+
+  @Test
+  void keepsRateWithinMinAndMaxRate() {
+    final var scheduler = VirtualTimeScheduler.create();
+    final var rateLimiter = rateLimiterOn(scheduler, properties(1, 10, 0.2, Duration.ofMinutes(1)));
+    for (int i = 0; i < 5; i++) {
+      rateLimiter.onThrottled();
+      scheduler.advanceTimeBy(DECREASE_INTERVAL);
+    }
+    assertThat(rateLimiter.rate()).isEqualTo(0.5);
+
+    for (int i = 0; i < 1000; i++) {
+      rateLimiter.onSuccess();
+    }
+    assertThat(rateLimiter.rate()).isEqualTo(50);
+  }
+
+  @Test
+  void servesQueuedRequestsRoundRobinAcrossTenants() {
+    final var scheduler = VirtualTimeScheduler.create();
+    final var rateLimiter = rateLimiterOn(scheduler, properties(1, 1, 0, Duration.ofMinutes(1)));
+    final List<String> sent = new ArrayList<>();
+    // uses up the burst, so that rest get queued
+    rateLimiter.acquire("a").subscribe(__ -> {}, e -> {}, () -> sent.add("a0"));
+    for (var request : List.of("a1", "a2", "a3", "b1", "c1", "b2")) {
+      rateLimiter.acquire(request.substring(0, 1)).subscribe(__ -> {}, e -> {}, () -> sent.add(request));
+    }
+    assertThat(sent).containsExactly("a0");
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+    assertThat(sent).containsExactly("a0", "a1");
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(5));
+    assertThat(sent).containsExactly("a0", "a1", "b1", "c1", "a2", "b2", "a3");
+  }
+
+  @Test
+  void dropsCancelledRequestsFromTheQueue() {
+    final var scheduler = VirtualTimeScheduler.create();
+    final var rateLimiter = rateLimiterOn(scheduler, properties(1, 1, 0, Duration.ofMinutes(1)));
+    final List<String> sent = new ArrayList<>();
+    rateLimiter.acquire("a").subscribe(__ -> {}, e -> {}, () -> sent.add("a0"));
+    final var cancelled = rateLimiter.acquire("a").subscribe(__ -> {}, e -> {}, () -> sent.add("a1"));
+    rateLimiter.acquire("b").subscribe(__ -> {}, e -> {}, () -> sent.add("b1"));
+    cancelled.dispose();
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+    assertThat(sent).containsExactly("a0", "b1");
+  }
+
+  @Test
+  void givesBackPermitOfRequestCancelledWhileBeingLetThrough() {
+    final var scheduler = VirtualTimeScheduler.create();
+    final var rateLimiter = rateLimiterOn(scheduler, properties(1, 2, 1, Duration.ofMinutes(1)));
+    final List<String> sent = new ArrayList<>();
+    // uses up the burst, so that rest get queued
+    rateLimiter.acquire("a").subscribe(__ -> {}, e -> {}, () -> sent.add("a0"));
+    rateLimiter.acquire("a").subscribe(__ -> {}, e -> {}, () -> sent.add("a1"));
+    final var cancelled = new AtomicReference<Disposable>();
+    // letting a2 through cancels b1 (for eg. its timeout firing at the same moment), after the drain took a token for b1 as well
+    rateLimiter.acquire("a").subscribe(__ -> {}, e -> {}, () -> {
+      sent.add("a2");
+      cancelled.get().dispose();
+    });
+    cancelled.set(rateLimiter.acquire("b").subscribe(__ -> {}, e -> {}, () -> sent.add("b1")));
+    rateLimiter.acquire("c").subscribe(__ -> {}, e -> {}, () -> sent.add("c1"));
+    // rate goes up to 2/s, so that the drain due in a second finds tokens for both a2 & b1
+    rateLimiter.onSuccess();
+
+    scheduler.advanceTimeBy(Duration.ofSeconds(1));
+    // c1 gets the token b1 could not use right away, instead of waiting for the next refill
+    assertThat(sent).containsExactly("a0", "a1", "a2", "c1");
+  }
+
+  @Test
+  void failsRequestThatCouldNotBeSentWithinMaxWait() {
+    final var maxWait = Duration.ofSeconds(5);
+    // second request gets its permit only after 10s
+    final var properties = properties(0.1, 1, 0, maxWait);
+    StepVerifier.withVirtualTime(() -> {
+          final var filter = new RateLimiterRegistry(new ResilienceProperties(null, null, null, properties)).filter();
+          return filter.filter(REQUEST, OK).then(filter.filter(REQUEST, OK));
+        })
+        .expectSubscription()
+        .expectNoEvent(maxWait.minusMillis(1))
+        .thenAwait(Duration.ofMillis(1))
+        .expectError(PortalUnavailableException.class)
+        .verify();
+  }
+
+  private static RateLimiter rateLimiterOn(VirtualTimeScheduler scheduler, RateLimiterProperties properties) {
+    return new RateLimiter(properties, scheduler, () -> scheduler.now(NANOSECONDS));
+  }
+
+  private static RateLimiterProperties properties(double initialRate, int burst, double increase, Duration maxWait) {
+    return new RateLimiterProperties(true, initialRate, 0.5, 50, increase, 0.5, DECREASE_INTERVAL, burst, maxWait);
+  }
+}
@@ -0,0 +1,80 @@
+package com.acme.resume.refresh.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.HttpMethod.POST;
+
+class RetryPoliciesTest {
+  private static final String STEP = "naukri.login";
+  private final RetryPolicies retryPolicies = new RetryPolicies(new ResilienceProperties(
+      new RetryPolicyProperties(3, Duration.ofMillis(1), Duration.ofMillis(1), 0), null, null, null));
+
+  @Test
+  void retriesFailureAfterRequestWasSent() throws Exception {
+    final var attempts = new AtomicInteger();
+    final var output = retryPolicies.call(STEP, () -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw requestFailure(new IOException("Connection reset by peer"));
+      }
+      return "ok";
+    });
+    assertThat(output).isEqualTo("ok");
+    assertThat(attempts).hasValue(3);
+  }
+
+  @Test
+  void nonIdempotentRetriesOnlyFailuresBeforeSend() throws Exception {
+    final var attempts = new AtomicInteger();
+    final var output = retryPolicies.callNonIdempotent(STEP, () -> {
+      if (attempts.incrementAndGet() < 3) {
+        throw requestFailure(new ConnectException("Connection refused"));
+      }
+      return "ok";
+    });
+    assertThat(output).isEqualTo("ok");
+    assertThat(attempts).hasValue(3);
+
+    final var sentAttempts = new AtomicInteger();
+    assertThatThrownBy(() -> retryPolicies.callNonIdempotent(STEP, () -> {
+      sentAttempts.incrementAndGet();
+      throw requestFailure(new IOException("Connection reset by peer"));
+    })).isInstanceOf(WebClientRequestException.class);
+    assertThat(sentAttempts).hasValue(1);
+  }
+
+  @Test
+  void reactiveNonIdempotentRetriesOnlyFailuresBeforeSend() {
+    final var attempts = new AtomicInteger();
+    StepVerifier.create(Mono.defer(() -> attempts.incrementAndGet() < 3 ? Mono.error(requestFailure(new ConnectException("Connection refused"))) : Mono.just("ok"))
+            .retryWhen(retryPolicies.retryNonIdempotentFor(STEP)))
+        .expectNext("ok")
+        .verifyComplete();
+    assertThat(attempts).hasValue(3);
+
+    final var sentAttempts = new AtomicInteger();
+    StepVerifier.create(Mono.defer(() -> {
+              sentAttempts.incrementAndGet();
+              return Mono.error(requestFailure(new IOException("Connection reset by peer")));
+            })
+            .retryWhen(retryPolicies.retryNonIdempotentFor(STEP)))
+        .expectError(WebClientRequestException.class)
+        .verify();
+    assertThat(sentAttempts).hasValue(1);
+  }
+
+  private static WebClientRequestException requestFailure(Throwable cause) {
+    return new WebClientRequestException(cause, POST, URI.create("https://www.nma.mobi/central-login-services/v1/login"), new HttpHeaders());
+  }
+}
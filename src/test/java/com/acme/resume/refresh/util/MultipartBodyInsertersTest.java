@@ -0,0 +1,131 @@
+package com.acme.resume.refresh.util;
+
+import com.acme.resume.refresh.store.StoredResume;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_PDF;
+
+/**
+ * Uploads over plain http, so that the resume is sent using sendfile, & checks the exact bytes the server receives
+ */
+class MultipartBodyInsertersTest {
+  private final AtomicReference<HttpHeaders> receivedHeaders = new AtomicReference<>();
+  private final AtomicReference<byte[]> receivedBody = new AtomicReference<>();
+  private DisposableServer server;
+  private WebClient webClient;
+
+  @TempDir
+  Path directory;
+
+  @BeforeEach
+  void startServer() {
+    server = HttpServer.create()
+        .host("127.0.0.1")
+        .port(0)
+        .handle((request, response) -> request.receive().aggregate().asByteArray()
+            .defaultIfEmpty(new byte[0])
+            .flatMap(body -> {
+              final var headers = new HttpHeaders();
+              request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+              receivedHeaders.set(headers);
+              receivedBody.set(body);
+              return response.status(200).send().then();
+            }))
+        .bindNow();
+    webClient = WebClient.builder()
+        .baseUrl("http://127.0.0.1:" + server.port())
+        .clientConnector(new ReactorClientHttpConnector())
+        .build();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.disposeNow();
+  }
+
+  @Test
+  void sendsHeadFileAndTailAsSingleRequestOverPlainConnection() throws IOException {
+    final var content = randomBytes(200_000);
+    final var resume = storedResumeOf(Files.write(directory.resolve("resume.pdf"), content), content);
+
+    upload(resume);
+    // a second upload over the same (pooled) connection would be garbled if the first one left bytes behind
+    upload(resume);
+
+    assertThat(receivedHeaders.get().getContentLength()).isEqualTo(receivedBody.get().length);
+    assertThat(receivedBody.get()).isEqualTo(expectedBodyOf(content));
+  }
+
+  @Test
+  void sendsContentThatWasReadWhenFileChangedSinceThen() throws IOException {
+    final var content = randomBytes(50_000);
+    final var file = Files.write(directory.resolve("resume.pdf"), content);
+    final var resume = storedResumeOf(file, content);
+    // truncated by an edit, after the resume was read (& checkpointed by its hash)
+    Files.write(file, new byte[10]);
+    Files.setLastModifiedTime(file, FileTime.fromMillis(resume.lastModified().toMillis() + 1_000));
+
+    upload(resume);
+
+    assertThat(receivedHeaders.get().getContentLength()).isEqualTo(receivedBody.get().length);
+    assertThat(receivedBody.get()).isEqualTo(expectedBodyOf(content));
+  }
+
+  private void upload(StoredResume resume) {
+    final var fields = new LinkedHashMap<String, String>();
+    fields.put("formKey", "F51f8e7e54e205");
+    fields.put("fileName", "resume.pdf");
+    webClient.post()
+        .uri("/upload")
+        .body(MultipartBodyInserters.fromFieldsAndFile(fields, "file", "resume.pdf", APPLICATION_PDF, resume, 64 * 1024))
+        .retrieve()
+        .toBodilessEntity()
+        .block(Duration.ofSeconds(10));
+  }
+
+  /**
+   * Boundary is random, so its taken from the content type the server received
+   */
+  private byte[] expectedBodyOf(byte[] content) throws IOException {
+    final var boundary = MediaType.parseMediaType(receivedHeaders.get().getFirst(HttpHeaders.CONTENT_TYPE)).getParameter("boundary");
+    final var fields = new LinkedHashMap<String, String>();
+    fields.put("formKey", "F51f8e7e54e205");
+    fields.put("fileName", "resume.pdf");
+    final var expected = new ByteArrayOutputStream();
+    expected.write(MultipartBodyInserters.headOf(boundary, fields, "file", "resume.pdf", APPLICATION_PDF));
+    expected.write(content);
+    expected.write(MultipartBodyInserters.tailOf(boundary));
+    return expected.toByteArray();
+  }
+
+  private static StoredResume storedResumeOf(Path file, byte[] content) throws IOException {
+    return new StoredResume(file, "test", content.length, Files.getLastModifiedTime(file), ByteBuffer.wrap(content).asReadOnlyBuffer());
+  }
+
+  private static byte[] randomBytes(int size) {
+    final var bytes = new byte[size];
+    new Random(42).nextBytes(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,101 @@
+package com.acme.resume.refresh.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingBase64BodyInsertersTest {
+  private static final byte[] BODY_BEFORE_CONTENT = "{\"content\":\"".getBytes(UTF_8);
+  private static final byte[] BODY_AFTER_CONTENT = "\"}".getBytes(UTF_8);
+
+  @Test
+  void encodesSameAsWholeContentEncoding() {
+    final var random = new Random(42);
+    // sizes around multiples of 3 exercise carry over of 1 & 2 held back bytes as well as 1 & 2 bytes of padding
+    for (int contentSize : new int[]{0, 1, 2, 3, 4, 5, 10, 100, 1001, 4096}) {
+      final var content = new byte[contentSize];
+      random.nextBytes(content);
+      for (int sourceChunkSize : new int[]{1, 2, 4, 5, 7, 1000, 5000}) {
+        for (int encoderChunkSize : new int[]{1, 2, 5, 4096}) {
+          final var request = insert(StreamingBase64BodyInserters.fromContentAsBase64(BODY_BEFORE_CONTENT, chunksOf(content, sourceChunkSize), content.length, BODY_AFTER_CONTENT, encoderChunkSize));
+          final var expectedBody = new String(BODY_BEFORE_CONTENT, UTF_8) + Base64.getEncoder().encodeToString(content) + new String(BODY_AFTER_CONTENT, UTF_8);
+
+          final var description = "content of " + contentSize + " bytes in chunks of " + sourceChunkSize + " encoded " + encoderChunkSize + " bytes at a time";
+          assertThat(request.getBodyAsString().block()).as(description).isEqualTo(expectedBody);
+          assertThat(request.getHeaders().getContentLength()).as(description).isEqualTo(expectedBody.length());
+        }
+      }
+    }
+  }
+
+  @Test
+  void writesEncodedContentAsIs() {
+    final var encodedContent = Base64.getEncoder().encode("some content".getBytes(UTF_8));
+    final var request = insert(StreamingBase64BodyInserters.fromBase64EncodedContent(BODY_BEFORE_CONTENT, ByteBuffer.wrap(encodedContent), BODY_AFTER_CONTENT));
+    final var expectedBody = new String(BODY_BEFORE_CONTENT, UTF_8) + new String(encodedContent, UTF_8) + new String(BODY_AFTER_CONTENT, UTF_8);
+
+    assertThat(request.getBodyAsString().block()).isEqualTo(expectedBody);
+    assertThat(request.getHeaders().getContentLength()).isEqualTo(expectedBody.length());
+  }
+
+  @Test
+  void computesBase64Length() {
+    for (int size = 0; size < 64; size++) {
+      assertThat(StreamingBase64BodyInserters.base64LengthOf(size)).isEqualTo(Base64.getEncoder().encode(new byte[size]).length);
+    }
+  }
+
+  private static MockClientHttpRequest insert(BodyInserter<Flux<DataBuffer>, ReactiveHttpOutputMessage> inserter) {
+    final var request = new MockClientHttpRequest(HttpMethod.POST, URI.create("http://localhost/upload"));
+    inserter.insert(request, new EmptyContext()).block();
+    return request;
+  }
+
+  private static Flux<DataBuffer> chunksOf(byte[] content, int chunkSize) {
+    final List<byte[]> chunks = new ArrayList<>();
+    for (int start = 0; start < content.length; start += chunkSize) {
+      chunks.add(Arrays.copyOfRange(content, start, Math.min(content.length, start + chunkSize)));
+    }
+    return Flux.fromIterable(chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+  }
+
+  /**
+   * Inserters under test write raw buffers & need none of the codecs
+   */
+  private static class EmptyContext implements BodyInserter.Context {
+    @Override
+    public List<HttpMessageWriter<?>> messageWriters() {
+      return List.of();
+    }
+
+    @Override
+    public Optional<ServerHttpRequest> serverRequest() {
+      return Optional.empty();
+    }
+
+    @Override
+    public Map<String, Object> hints() {
+      return Map.of();
+    }
+  }
+}
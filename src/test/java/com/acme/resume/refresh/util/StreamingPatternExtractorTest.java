@@ -0,0 +1,108 @@
+package com.acme.resume.refresh.util;
+
+import com.acme.resume.refresh.resilience.PortalContractException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingPatternExtractorTest {
+  private static final Pattern QUOTED_ID_PATTERN = Pattern.compile("\"id\":\"(?<id>[^\"]+)\"");
+  private static final Pattern UNTERMINATED_ID_PATTERN = Pattern.compile("id=(?<id>[0-9]+)");
+
+  @Test
+  void findsMatchSplitAtEveryOffset() {
+    final var body = "{\"name\":\"someone\",\"id\":\"1234567\",\"rest\":\"ignored\"}".getBytes(UTF_8);
+    final var extractor = new StreamingPatternExtractor(QUOTED_ID_PATTERN, "id", 32, 1024);
+    for (int offset = 0; offset <= body.length; offset++) {
+      StepVerifier.create(extractor.extract(splitAt(body, offset)))
+          .expectNext("1234567")
+          .verifyComplete();
+    }
+  }
+
+  @Test
+  void findsMatchAcrossSingleByteChunks() {
+    final var body = "{\"name\":\"someone\",\"id\":\"1234567\"}".getBytes(UTF_8);
+    final var extractor = new StreamingPatternExtractor(QUOTED_ID_PATTERN, "id", 32, 1024);
+    StepVerifier.create(extractor.extract(chunksOf(body, 1)))
+        .expectNext("1234567")
+        .verifyComplete();
+  }
+
+  @Test
+  void decodesMultiByteCharSplitAcrossChunks() {
+    // e acute takes 2 bytes, euro sign 3 & g clef (a surrogate pair) 4 in utf-8. Escaped, so that the test does not depend on the source encoding
+    final var id = "\u00e9\u20ac\ud834\udd1e-id";
+    final var body = ("{\"id\":\"" + id + "\"}").getBytes(UTF_8);
+    final var extractor = new StreamingPatternExtractor(QUOTED_ID_PATTERN, "id", 32, 1024);
+    for (int offset = 0; offset <= body.length; offset++) {
+      StepVerifier.create(extractor.extract(splitAt(body, offset)))
+          .expectNext(id)
+          .verifyComplete();
+    }
+    StepVerifier.create(extractor.extract(chunksOf(body, 1)))
+        .expectNext(id)
+        .verifyComplete();
+  }
+
+  @Test
+  void failsWhenPatternIsNotFoundWithinMaxScanBytes() {
+    final var body = ("x".repeat(100) + "\"id\":\"1234567\"").getBytes(UTF_8);
+    final var extractor = new StreamingPatternExtractor(QUOTED_ID_PATTERN, "id", 32, 64);
+    StepVerifier.create(extractor.extract(chunksOf(body, 10)))
+        .expectErrorSatisfies(e -> assertThat(e)
+            .isInstanceOf(PortalContractException.class)
+            .hasMessageContaining("not found within first 64 bytes"))
+        .verify();
+  }
+
+  @Test
+  void failsWhenPatternIsNotFoundInTheBody() {
+    final var body = "{\"name\":\"someone\"}".getBytes(UTF_8);
+    final var extractor = new StreamingPatternExtractor(QUOTED_ID_PATTERN, "id", 32, 1024);
+    StepVerifier.create(extractor.extract(chunksOf(body, 5)))
+        .expectError(PortalContractException.class)
+        .verify();
+  }
+
+  @Test
+  void confirmsMatchEndingExactlyAtEndOfBodyOnlyOnceBodyEnds() {
+    final var body = "name=someone&id=1234567".getBytes(UTF_8);
+    final var extractor = new StreamingPatternExtractor(UNTERMINATED_ID_PATTERN, "id", 32, 1024);
+    // a partial id at the end of a chunk must not be mistaken for the whole id
+    for (int offset = 0; offset <= body.length; offset++) {
+      StepVerifier.create(extractor.extract(splitAt(body, offset)))
+          .expectNext("1234567")
+          .verifyComplete();
+    }
+  }
+
+  /**
+   * @return body as two chunks split at `offset`
+   */
+  private static Flux<DataBuffer> splitAt(byte[] body, int offset) {
+    return Flux.just(Arrays.copyOfRange(body, 0, offset), Arrays.copyOfRange(body, offset, body.length))
+        .map(DefaultDataBufferFactory.sharedInstance::wrap);
+  }
+
+  /**
+   * @return body as chunks of `chunkSize` bytes each (last one could be smaller)
+   */
+  private static Flux<DataBuffer> chunksOf(byte[] body, int chunkSize) {
+    final List<byte[]> chunks = new ArrayList<>();
+    for (int start = 0; start < body.length; start += chunkSize) {
+      chunks.add(Arrays.copyOfRange(body, start, Math.min(body.length, start + chunkSize)));
+    }
+    return Flux.fromIterable(chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+  }
+}